@@ -0,0 +1,69 @@
+package com.topcoder.scraper.converter;
+
+import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.module.amazon.OrderFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Json column conversion of purchase histories, time is per operation on all orders
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JpaConverterJsonBenchmark {
+
+  @Param({"1", "100", "10000"})
+  public int orders;
+
+  private final JpaConverterJson converter = new JpaConverterJson();
+
+  private List<PurchaseHistory> histories;
+  private List<String> columns;
+
+  @Setup
+  public void setUp() throws IOException {
+    histories = new OrderFixtures("").purchaseHistories(orders);
+    columns = histories.stream().map(converter::convertToDatabaseColumn).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void toColumn(Blackhole blackhole) {
+    for (PurchaseHistory history : histories) {
+      blackhole.consume(converter.convertToDatabaseColumn(history));
+    }
+  }
+
+  @Benchmark
+  public void fromColumn(Blackhole blackhole) {
+    for (String column : columns) {
+      blackhole.consume(converter.convertToEntityAttribute(column));
+    }
+  }
+
+  @Benchmark
+  public void fromColumnReader(Blackhole blackhole) {
+    for (String column : columns) {
+      blackhole.consume(converter.convertToEntityAttribute(new StringReader(column)));
+    }
+  }
+}
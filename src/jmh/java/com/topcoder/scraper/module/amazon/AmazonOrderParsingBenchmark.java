@@ -0,0 +1,122 @@
+package com.topcoder.scraper.module.amazon;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.topcoder.scraper.fetcher.HtmlNode;
+import com.topcoder.scraper.parser.CompiledRules;
+import com.topcoder.scraper.parser.DateParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction and parsing of order pages by the purchase history module, time is per operation on all orders.
+ *
+ * extractOrders runs the bundled extraction rules, selectorQueries runs one selector query per field
+ * as orders were extracted before extraction rules. parseOrders and parseProducts convert extracted fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmazonOrderParsingBenchmark {
+
+  @Param({"1", "100", "10000"})
+  public int orders;
+
+  @Param({"jsoup", "htmlunit"})
+  public String engine;
+
+  /**
+   * Archive folder of recorded order pages, test fixture page if empty
+   */
+  @Param({""})
+  public String archive;
+
+  private final CompiledRules rules = OrderPages.rules();
+  private final AmazonPurchaseHistoryListModule module = OrderFixtures.module();
+  private final DateParser.Marketplace marketplace = new DateParser().forUrl(OrderFixtures.URL);
+
+  private WebClient webClient;
+  private List<List<HtmlNode>> pages;
+  private List<List<CompiledRules.Extraction>> extractions;
+  private List<CompiledRules.Extraction> products;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    webClient = OrderPages.webClient();
+    pages = new ArrayList<>();
+    extractions = new ArrayList<>();
+    products = new ArrayList<>();
+    for (String html : new OrderFixtures(archive).pages(orders)) {
+      HtmlNode page = "htmlunit".equals(engine) ? OrderPages.htmlUnit(webClient, html) : OrderPages.jsoup(html);
+      List<HtmlNode> pageOrders = page.selectAll(rules.getOrders());
+      List<CompiledRules.Extraction> pageExtractions = new ArrayList<>();
+      for (HtmlNode order : pageOrders) {
+        CompiledRules.Extraction extraction = rules.extract(order);
+        pageExtractions.add(extraction);
+        products.addAll(extraction.getProducts());
+      }
+      pages.add(pageOrders);
+      extractions.add(pageExtractions);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    webClient.close();
+  }
+
+  @Benchmark
+  public void extractOrders(Blackhole blackhole) {
+    for (List<HtmlNode> page : pages) {
+      for (HtmlNode order : page) {
+        blackhole.consume(rules.extract(order));
+      }
+    }
+  }
+
+  @Benchmark
+  public void selectorQueries(Blackhole blackhole) {
+    for (List<HtmlNode> page : pages) {
+      for (HtmlNode order : page) {
+        blackhole.consume(OrderPages.legacyExtract(order));
+      }
+    }
+  }
+
+  @Benchmark
+  public void parseOrders(Blackhole blackhole) {
+    int[] unknownDates = new int[1];
+    for (List<CompiledRules.Extraction> page : extractions) {
+      DateParser.PageDates dates = marketplace.newPage();
+      for (CompiledRules.Extraction order : page) {
+        blackhole.consume(module.parseOrder(order, dates, unknownDates));
+      }
+    }
+  }
+
+  @Benchmark
+  public void parseProducts(Blackhole blackhole) {
+    for (CompiledRules.Extraction product : products) {
+      blackhole.consume(module.parseProduct(product));
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.topcoder.scraper.module.amazon;
+
+import com.topcoder.scraper.config.AmazonProperty;
+import com.topcoder.scraper.config.PurchaseHistoryProperty;
+import com.topcoder.scraper.config.WebClientProperty;
+import com.topcoder.scraper.config.WebpageProperty;
+import com.topcoder.scraper.fetcher.HtmlNode;
+import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.parser.CompiledRules;
+import com.topcoder.scraper.parser.DateParser;
+import com.topcoder.scraper.service.impl.ArchiveWebpageService;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order pages and purchase histories of benchmarks, built from recorded order pages.
+ *
+ * Recorded orders are repeated with new order numbers until the wanted number of orders is reached,
+ * ten orders per page as amazon shows them.
+ */
+public class OrderFixtures {
+
+  public static final String URL = "https://www.amazon.com/";
+
+  private static final int ORDERS_PER_PAGE = 10;
+
+  private final Document template;
+  private final List<Element> orders = new ArrayList<>();
+
+  /**
+   * @param archive archive folder of recorded purchase history pages, test fixture page is used if empty
+   */
+  public OrderFixtures(String archive) throws IOException {
+    List<String> pages = recordedPages(archive);
+    this.template = Jsoup.parse(pages.get(0), URL);
+    for (String page : pages) {
+      for (Element order : Jsoup.parse(page, URL).select(OrderPages.ORDERS)) {
+        orders.add(order.clone());
+      }
+    }
+    if (orders.isEmpty()) {
+      throw new IllegalStateException("No order in recorded pages");
+    }
+    template.select(OrderPages.ORDERS).remove();
+  }
+
+  /**
+   * build order pages
+   * @param count number of orders
+   * @return html of pages holding count orders
+   */
+  public List<String> pages(int count) {
+    Element pagination = template.selectFirst("#ordersContainer").children().last();
+    List<String> pages = new ArrayList<>();
+    for (int from = 0; from < count; from += ORDERS_PER_PAGE) {
+      Elements added = new Elements();
+      for (int i = from; i < Math.min(count, from + ORDERS_PER_PAGE); i++) {
+        Element order = orders.get(i % orders.size()).clone();
+        Element orderNumber = order.selectFirst(OrderPages.ORDER_NUMBER);
+        if (orderNumber != null) {
+          orderNumber.text(String.format("114-%07d-%07d", i / ORDERS_PER_PAGE, i));
+        }
+        pagination.before(order);
+        added.add(order);
+      }
+      pages.add(template.outerHtml());
+      added.remove();
+    }
+    return pages;
+  }
+
+  /**
+   * parse purchase histories as the purchase history module does
+   * @param count number of orders
+   * @return purchase histories
+   */
+  public List<PurchaseHistory> purchaseHistories(int count) {
+    CompiledRules rules = OrderPages.rules();
+    AmazonPurchaseHistoryListModule module = module();
+    DateParser.Marketplace marketplace = new DateParser().forUrl(URL);
+    List<PurchaseHistory> histories = new ArrayList<>(count);
+    for (String page : pages(count)) {
+      DateParser.PageDates dates = marketplace.newPage();
+      for (HtmlNode order : OrderPages.jsoup(page).selectAll(rules.getOrders())) {
+        histories.add(module.parseOrder(rules.extract(order), dates, new int[1]));
+      }
+    }
+    return histories;
+  }
+
+  /**
+   * create module for parsing only, it has no services
+   */
+  static AmazonPurchaseHistoryListModule module() {
+    AmazonProperty property = new AmazonProperty();
+    property.setUrl(URL);
+    return new AmazonPurchaseHistoryListModule(
+      property, new PurchaseHistoryProperty(), new WebClientProperty(), null, null, new DateParser());
+  }
+
+  private static List<String> recordedPages(String archive) throws IOException {
+    List<String> pages = new ArrayList<>();
+    if (archive == null || archive.isEmpty()) {
+      pages.add(OrderPages.fixture());
+      return pages;
+    }
+
+    WebpageProperty property = new WebpageProperty();
+    property.setFolder(archive);
+    ArchiveWebpageService service = new ArchiveWebpageService(property);
+    try {
+      for (ArchiveWebpageService.Entry entry : service.list("amazon")) {
+        if (entry.getFilename().startsWith("purchase-history")) {
+          pages.add(service.read("amazon", entry));
+        }
+      }
+    } finally {
+      service.close();
+    }
+    if (pages.isEmpty()) {
+      throw new IllegalStateException("No purchase history page in archive " + archive);
+    }
+    return pages;
+  }
+}
@@ -0,0 +1,81 @@
+package com.topcoder.scraper.parser;
+
+import com.topcoder.scraper.module.amazon.OrderFixtures;
+import com.topcoder.scraper.util.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Order date parsing, time is per operation on dates of all orders.
+ *
+ * pageDates parses as the purchase history module does, with a date cache per page of ten orders.
+ * marketplace parses each date with the marketplace formatters, dateUtils with {@link DateUtils#parseOrderDate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderDateBenchmark {
+
+  private static final int ORDERS_PER_PAGE = 10;
+
+  @Param({"1", "100", "10000"})
+  public int orders;
+
+  private final DateParser.Marketplace marketplace = new DateParser().forUrl(OrderFixtures.URL);
+
+  private List<String> dates;
+
+  @Setup
+  public void setUp() throws IOException {
+    // page texts, as amazon.com shows them
+    DateTimeFormatter format = DateTimeFormatter.ofPattern("MMMM d, uuuu", Locale.US);
+    dates = new OrderFixtures("").purchaseHistories(orders).stream()
+      .map(history -> history.getOrderDate().format(format))
+      .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void pageDates(Blackhole blackhole) {
+    DateParser.PageDates page = null;
+    for (int i = 0; i < dates.size(); i++) {
+      if (i % ORDERS_PER_PAGE == 0) {
+        page = marketplace.newPage();
+      }
+      blackhole.consume(page.parse(dates.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void marketplace(Blackhole blackhole) {
+    for (String date : dates) {
+      blackhole.consume(marketplace.parse(date));
+    }
+  }
+
+  @Benchmark
+  public void dateUtils(Blackhole blackhole) {
+    for (String date : dates) {
+      blackhole.consume(DateUtils.parseOrderDate(date));
+    }
+  }
+}
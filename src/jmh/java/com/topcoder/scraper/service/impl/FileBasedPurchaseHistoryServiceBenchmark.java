@@ -0,0 +1,77 @@
+package com.topcoder.scraper.service.impl;
+
+import com.topcoder.scraper.config.PurchaseHistoryProperty;
+import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.module.amazon.OrderFixtures;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reading purchase histories of a site from the file store, time is per operation on all orders.
+ * Orders are saved by pages of ten, as the purchase history module saves them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBasedPurchaseHistoryServiceBenchmark {
+
+  private static final String SITE = "amazon";
+
+  @Param({"1", "100", "10000"})
+  public int orders;
+
+  private Path folder;
+  private FileBasedPurchaseHistoryService service;
+
+  @Setup
+  public void setUp() throws IOException {
+    folder = Files.createTempDirectory("purchase-history-benchmark");
+    PurchaseHistoryProperty property = new PurchaseHistoryProperty();
+    property.setStore("file");
+    property.setFolder(folder.toString());
+    service = new FileBasedPurchaseHistoryService(property);
+
+    List<PurchaseHistory> histories = new OrderFixtures("").purchaseHistories(orders);
+    for (int from = 0; from < histories.size(); from += 10) {
+      service.save(SITE, "account", histories.subList(from, Math.min(histories.size(), from + 10)));
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(folder.toFile());
+  }
+
+  @Benchmark
+  public List<PurchaseHistory> listAll() {
+    return service.listAll(SITE);
+  }
+
+  @Benchmark
+  public long streamAll() {
+    try (Stream<PurchaseHistory> stream = service.streamAll(SITE)) {
+      return stream.count();
+    }
+  }
+}
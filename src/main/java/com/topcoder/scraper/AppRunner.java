@@ -2,37 +2,55 @@ package com.topcoder.scraper;
 
 import com.topcoder.scraper.command.impl.AuthenticationCommand;
 import com.topcoder.scraper.command.impl.PurchaseHistoryListCommand;
+import com.topcoder.scraper.metrics.MetricsFileExporter;
+import com.topcoder.scraper.scheduler.ScrapeScheduler;
+import com.topcoder.scraper.service.WebpageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+
 /**
  * AppRunner is an implementation of {@link ApplicationRunner}
  */
 @Component
 public class AppRunner implements ApplicationRunner {
 
+  private final ScrapeScheduler scrapeScheduler;
   private final AuthenticationCommand authenticationCommand;
   private final PurchaseHistoryListCommand purchaseHistoryListCommand;
+  private final WebpageService webpageService;
+  private final MetricsFileExporter metricsFileExporter;
 
   @Autowired
-  public AppRunner(AuthenticationCommand authenticationCommand, PurchaseHistoryListCommand purchaseHistoryListCommand) {
+  public AppRunner(
+    ScrapeScheduler scrapeScheduler,
+    AuthenticationCommand authenticationCommand,
+    PurchaseHistoryListCommand purchaseHistoryListCommand,
+    WebpageService webpageService,
+    MetricsFileExporter metricsFileExporter) {
+    this.scrapeScheduler = scrapeScheduler;
     this.authenticationCommand = authenticationCommand;
     this.purchaseHistoryListCommand = purchaseHistoryListCommand;
+    this.webpageService = webpageService;
+    this.metricsFileExporter = metricsFileExporter;
   }
 
   /**
-   * Create browser driver,
+   * For every account,
    * run {@link com.topcoder.scraper.command.impl.AuthenticationCommand}
-   * then {@link PurchaseHistoryListCommand}
+   * then {@link PurchaseHistoryListCommand},
+   * then wait for saved webpages to be written and write metrics of the run
    *
    * @param args ApplicationArguments from input
    */
   @Override
   public void run(ApplicationArguments args) {
-    authenticationCommand.run(args);
-    purchaseHistoryListCommand.run(args);
+    scrapeScheduler.run(args, Arrays.asList(authenticationCommand, purchaseHistoryListCommand));
+    webpageService.flush();
+    metricsFileExporter.write();
   }
 
 }
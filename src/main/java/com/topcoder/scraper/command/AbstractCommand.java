@@ -1,6 +1,9 @@
 package com.topcoder.scraper.command;
 
+import com.topcoder.scraper.metrics.ScrapeMetrics;
 import com.topcoder.scraper.module.IBasicModule;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
 import org.springframework.boot.ApplicationArguments;
 
 import java.util.List;
@@ -34,12 +37,31 @@ public abstract class AbstractCommand<T extends IBasicModule> {
     List<String> sites = args.getOptionValues("site");
 
     if (sites != null) {
-      sites.forEach(site -> getModule(site).ifPresent(this::process));
+      sites.forEach(site -> getModule(site).ifPresent(module -> timedProcess(module, ScrapeMetrics.sessionTags(site))));
     } else {
-      modules.forEach(this::process);
+      modules.forEach(module -> timedProcess(module, ScrapeMetrics.sessionTags()));
     }
   }
 
+  /**
+   * run module only for given site
+   *
+   * @param site site name
+   */
+  public void run(String site) {
+    getModule(site).ifPresent(module -> timedProcess(module, ScrapeMetrics.sessionTags(site)));
+  }
+
+  /**
+   * process module, timed by command, site and account
+   *
+   * @param module module to be run
+   * @param tags site and account tags
+   */
+  private void timedProcess(T module, Tags tags) {
+    Metrics.timer(ScrapeMetrics.COMMAND, tags.and("command", getClass().getSimpleName())).record(() -> process(module));
+  }
+
   /**
    * abstract method to be implemented in subclass
    *
@@ -1,19 +1,67 @@
 package com.topcoder.scraper.config;
 
+import com.topcoder.scraper.fetcher.FetchMode;
+import com.topcoder.scraper.model.Account;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * amazon related property
  */
 @Configuration
 @ConfigurationProperties(prefix = "amazon")
-public class AmazonProperty {
+public class AmazonProperty implements SiteProperty {
 
   private String username;
   private String password;
+  private List<Account> accounts = new ArrayList<>();
   private String url;
   private String historyUrl;
+  private Map<String, FetchMode> fetchMode = new HashMap<>();
+
+  /**
+   * Order date locale and patterns, only needed for a marketplace not known by DateParser
+   */
+  private String dateLocale;
+  private List<String> dateFormats = new ArrayList<>();
+
+  /**
+   * Extraction rule file of purchase history, bundled rules are used if not set
+   */
+  private String rulesFile;
+
+  @Override
+  public String getSite() {
+    return "amazon";
+  }
+
+  /**
+   * get configured accounts,
+   * falls back to single username and password if no account list is configured
+   * @return list of accounts
+   */
+  @Override
+  public List<Account> getAccounts() {
+    if (accounts.isEmpty()) {
+      return Collections.singletonList(new Account(username, password));
+    }
+    return accounts;
+  }
+
+  /**
+   * get fetch mode of a module, defaults to {@link FetchMode#HTMLUNIT}
+   * @param module module name, e.g. purchase-history
+   * @return fetch mode
+   */
+  public FetchMode getFetchMode(String module) {
+    return fetchMode.getOrDefault(module, FetchMode.HTMLUNIT);
+  }
 
   public String getUsername() {
     return username;
@@ -39,6 +87,10 @@ public class AmazonProperty {
     this.password = password;
   }
 
+  public void setAccounts(List<Account> accounts) {
+    this.accounts = accounts;
+  }
+
   public void setUrl(String url) {
     this.url = url;
   }
@@ -46,4 +98,36 @@ public class AmazonProperty {
   public void setHistoryUrl(String historyUrl) {
     this.historyUrl = historyUrl;
   }
+
+  public Map<String, FetchMode> getFetchMode() {
+    return fetchMode;
+  }
+
+  public void setFetchMode(Map<String, FetchMode> fetchMode) {
+    this.fetchMode = fetchMode;
+  }
+
+  public String getDateLocale() {
+    return dateLocale;
+  }
+
+  public void setDateLocale(String dateLocale) {
+    this.dateLocale = dateLocale;
+  }
+
+  public List<String> getDateFormats() {
+    return dateFormats;
+  }
+
+  public void setDateFormats(List<String> dateFormats) {
+    this.dateFormats = dateFormats;
+  }
+
+  public String getRulesFile() {
+    return rulesFile;
+  }
+
+  public void setRulesFile(String rulesFile) {
+    this.rulesFile = rulesFile;
+  }
 }
@@ -0,0 +1,64 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * on-disk http cache related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "http-cache")
+public class HttpCacheProperty {
+
+  /**
+   * Whether responses of web clients are cached on disk and revalidated with conditional requests
+   */
+  private boolean enabled = false;
+
+  /**
+   * Folder of cached responses
+   */
+  private String folder = "http-cache";
+
+  /**
+   * Maximum size in bytes of cached responses, least recently used ones are evicted above it
+   */
+  private long maxSize = 256L * 1024 * 1024;
+
+  /**
+   * Maximum size in bytes of one cached response body, bigger responses are not cached
+   */
+  private long maxEntrySize = 8L * 1024 * 1024;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String getFolder() {
+    return folder;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public long getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setFolder(String folder) {
+    this.folder = folder;
+  }
+
+  public void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public void setMaxEntrySize(long maxEntrySize) {
+    this.maxEntrySize = maxEntrySize;
+  }
+}
@@ -0,0 +1,39 @@
+package com.topcoder.scraper.config;
+
+import com.topcoder.scraper.service.PurchaseHistoryService;
+import com.topcoder.scraper.service.impl.MeteredPurchaseHistoryService;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Metrics Configuration
+ */
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * Prometheus registry, added to global registry where scraper meters are registered
+   * @return prometheus registry
+   */
+  @Bean
+  public PrometheusMeterRegistry prometheusMeterRegistry() {
+    PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    Metrics.addRegistry(registry);
+    return registry;
+  }
+
+  /**
+   * Times calls to configured purchase history store, used by modules instead of the store itself
+   * @param store configured purchase history store
+   * @return metered purchase history service
+   */
+  @Bean
+  @Primary
+  public MeteredPurchaseHistoryService meteredPurchaseHistoryService(PurchaseHistoryService store) {
+    return new MeteredPurchaseHistoryService(store);
+  }
+}
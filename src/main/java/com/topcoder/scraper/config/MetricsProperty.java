@@ -0,0 +1,25 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * metrics related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "metrics")
+public class MetricsProperty {
+
+  /**
+   * File where metrics are written in prometheus text format after each run, empty disables it
+   */
+  private String file = "metrics/scraper.prom";
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+}
@@ -0,0 +1,117 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * purchase history persistence related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "purchase-history")
+public class PurchaseHistoryProperty {
+
+  /**
+   * Number of orders written per batch, each batch is one transaction
+   */
+  private int batchSize = 500;
+
+  /**
+   * Number of fetched pages waiting to be parsed
+   */
+  private int prefetchPages = 2;
+
+  /**
+   * Number of parsed pages waiting to be written, parsing blocks when it is reached
+   */
+  private int pendingWrites = 4;
+
+  /**
+   * Number of time periods fetched at the same time by a full backfill, each on its own web client.
+   * 1 fetches time periods one after another
+   */
+  private int periodConcurrency = 1;
+
+  /**
+   * Purchase history store, "db" (default) for mysql, "file" for segment files on disk
+   */
+  private String store = "db";
+
+  /**
+   * Folder of file store, site folders are created in it
+   */
+  private String folder = ".";
+
+  /**
+   * Size in bytes after which file store starts a new segment
+   */
+  private long segmentSize = 8L * 1024 * 1024;
+
+  /**
+   * Number of segments of a site which triggers compaction of file store
+   */
+  private int compactSegments = 16;
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public int getPrefetchPages() {
+    return prefetchPages;
+  }
+
+  public int getPendingWrites() {
+    return pendingWrites;
+  }
+
+  public int getPeriodConcurrency() {
+    return periodConcurrency;
+  }
+
+  public String getStore() {
+    return store;
+  }
+
+  public String getFolder() {
+    return folder;
+  }
+
+  public long getSegmentSize() {
+    return segmentSize;
+  }
+
+  public int getCompactSegments() {
+    return compactSegments;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public void setPrefetchPages(int prefetchPages) {
+    this.prefetchPages = prefetchPages;
+  }
+
+  public void setPendingWrites(int pendingWrites) {
+    this.pendingWrites = pendingWrites;
+  }
+
+  public void setPeriodConcurrency(int periodConcurrency) {
+    this.periodConcurrency = periodConcurrency;
+  }
+
+  public void setStore(String store) {
+    this.store = store;
+  }
+
+  public void setFolder(String folder) {
+    this.folder = folder;
+  }
+
+  public void setSegmentSize(long segmentSize) {
+    this.segmentSize = segmentSize;
+  }
+
+  public void setCompactSegments(int compactSegments) {
+    this.compactSegments = compactSegments;
+  }
+}
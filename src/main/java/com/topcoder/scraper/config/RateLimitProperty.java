@@ -0,0 +1,186 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * page request pacing and retry related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperty {
+
+  /**
+   * Whether page requests are paced and throttled responses retried
+   */
+  private boolean enabled = true;
+
+  /**
+   * Page requests per second of each account when a run starts
+   */
+  private double requestsPerSecond = 1;
+
+  /**
+   * Lowest rate after throttled responses
+   */
+  private double minRequestsPerSecond = 0.1;
+
+  /**
+   * Highest rate reached by healthy responses
+   */
+  private double maxRequestsPerSecond = 4;
+
+  /**
+   * Page requests sent back to back after an idle period
+   */
+  private int burst = 2;
+
+  /**
+   * Rate added after every {@link #healthyResponses} healthy responses in a row
+   */
+  private double increase = 0.1;
+
+  /**
+   * Rate is multiplied by this factor after a throttled response
+   */
+  private double decrease = 0.5;
+
+  /**
+   * Number of healthy responses in a row before rate increases
+   */
+  private int healthyResponses = 10;
+
+  /**
+   * Retries of a throttled page request before it fails
+   */
+  private int maxRetries = 4;
+
+  /**
+   * Wait in milliseconds before first retry, doubled for every next retry, with random jitter
+   */
+  private long backoff = 2000;
+
+  /**
+   * Longest wait in milliseconds before a retry, also caps Retry-After of responses
+   */
+  private long maxBackoff = 60000;
+
+  /**
+   * Status codes of throttled responses
+   */
+  private List<Integer> throttleStatus = new ArrayList<>(Arrays.asList(429, 500, 502, 503, 504));
+
+  /**
+   * Patterns (regular expression, found anywhere in content) of throttled html pages served with status 200,
+   * e.g. captcha pages
+   */
+  private List<String> throttlePatterns = new ArrayList<>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public double getRequestsPerSecond() {
+    return requestsPerSecond;
+  }
+
+  public double getMinRequestsPerSecond() {
+    return minRequestsPerSecond;
+  }
+
+  public double getMaxRequestsPerSecond() {
+    return maxRequestsPerSecond;
+  }
+
+  public int getBurst() {
+    return burst;
+  }
+
+  public double getIncrease() {
+    return increase;
+  }
+
+  public double getDecrease() {
+    return decrease;
+  }
+
+  public int getHealthyResponses() {
+    return healthyResponses;
+  }
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  public long getBackoff() {
+    return backoff;
+  }
+
+  public long getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  public List<Integer> getThrottleStatus() {
+    return throttleStatus;
+  }
+
+  public List<String> getThrottlePatterns() {
+    return throttlePatterns;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setRequestsPerSecond(double requestsPerSecond) {
+    this.requestsPerSecond = requestsPerSecond;
+  }
+
+  public void setMinRequestsPerSecond(double minRequestsPerSecond) {
+    this.minRequestsPerSecond = minRequestsPerSecond;
+  }
+
+  public void setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+    this.maxRequestsPerSecond = maxRequestsPerSecond;
+  }
+
+  public void setBurst(int burst) {
+    this.burst = burst;
+  }
+
+  public void setIncrease(double increase) {
+    this.increase = increase;
+  }
+
+  public void setDecrease(double decrease) {
+    this.decrease = decrease;
+  }
+
+  public void setHealthyResponses(int healthyResponses) {
+    this.healthyResponses = healthyResponses;
+  }
+
+  public void setMaxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public void setBackoff(long backoff) {
+    this.backoff = backoff;
+  }
+
+  public void setMaxBackoff(long maxBackoff) {
+    this.maxBackoff = maxBackoff;
+  }
+
+  public void setThrottleStatus(List<Integer> throttleStatus) {
+    this.throttleStatus = throttleStatus;
+  }
+
+  public void setThrottlePatterns(List<String> throttlePatterns) {
+    this.throttlePatterns = throttlePatterns;
+  }
+}
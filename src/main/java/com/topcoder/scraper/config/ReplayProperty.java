@@ -0,0 +1,64 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * offline replay related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "replay")
+public class ReplayProperty {
+
+  /**
+   * Whether web clients are served from archived pages instead of network
+   */
+  private boolean enabled = false;
+
+  /**
+   * Archive folder of replayed pages, an archive store folder or a file store folder with one folder per site
+   */
+  private String folder = "archive";
+
+  /**
+   * Latency added to each response in milliseconds
+   */
+  private long latency = 0;
+
+  /**
+   * Bandwidth of responses in bytes per second, 0 means unlimited
+   */
+  private long bandwidth = 0;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String getFolder() {
+    return folder;
+  }
+
+  public long getLatency() {
+    return latency;
+  }
+
+  public long getBandwidth() {
+    return bandwidth;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setFolder(String folder) {
+    this.folder = folder;
+  }
+
+  public void setLatency(long latency) {
+    this.latency = latency;
+  }
+
+  public void setBandwidth(long bandwidth) {
+    this.bandwidth = bandwidth;
+  }
+}
@@ -0,0 +1,50 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * scraper scheduling related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "scraper")
+public class ScraperProperty {
+
+  /**
+   * Number of accounts scraped at the same time, also the default size of web client pool
+   */
+  private int concurrency = 1;
+
+  /**
+   * Maximum number of accounts scraped at the same time per site
+   */
+  private Map<String, Integer> siteConcurrency = new HashMap<>();
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public Map<String, Integer> getSiteConcurrency() {
+    return siteConcurrency;
+  }
+
+  /**
+   * get concurrency limit of a site, defaults to global concurrency
+   * @param site site name
+   * @return concurrency limit
+   */
+  public int getSiteConcurrency(String site) {
+    return Math.min(concurrency, siteConcurrency.getOrDefault(site, concurrency));
+  }
+
+  public void setConcurrency(int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  public void setSiteConcurrency(Map<String, Integer> siteConcurrency) {
+    this.siteConcurrency = siteConcurrency;
+  }
+}
@@ -0,0 +1,51 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * saved login session related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "session")
+public class SessionProperty {
+
+  /**
+   * Base64 encoded AES key (16, 24 or 32 bytes) encrypting saved sessions, sessions are not saved if empty
+   */
+  private String key = "";
+
+  /**
+   * Folder of saved sessions
+   */
+  private String folder = "sessions";
+
+  /**
+   * Saved sessions older than this number of hours are ignored
+   */
+  private int maxAgeHours = 168;
+
+  public String getKey() {
+    return key;
+  }
+
+  public String getFolder() {
+    return folder;
+  }
+
+  public int getMaxAgeHours() {
+    return maxAgeHours;
+  }
+
+  public void setKey(String key) {
+    this.key = key;
+  }
+
+  public void setFolder(String folder) {
+    this.folder = folder;
+  }
+
+  public void setMaxAgeHours(int maxAgeHours) {
+    this.maxAgeHours = maxAgeHours;
+  }
+}
@@ -0,0 +1,22 @@
+package com.topcoder.scraper.config;
+
+import com.topcoder.scraper.model.Account;
+
+import java.util.List;
+
+/**
+ * Interface for site related property
+ */
+public interface SiteProperty {
+  /**
+   * get site name, same as {@link com.topcoder.scraper.module.IBasicModule#getECName()}
+   * @return site name
+   */
+  String getSite();
+
+  /**
+   * get accounts to be scraped in this site
+   * @return list of accounts
+   */
+  List<Account> getAccounts();
+}
@@ -1,22 +1,129 @@
 package com.topcoder.scraper.config;
 
 import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.gargoylesoftware.htmlunit.Cache;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.topcoder.scraper.connection.CachingWebConnection;
+import com.topcoder.scraper.connection.FilteringWebConnection;
+import com.topcoder.scraper.connection.HttpCache;
+import com.topcoder.scraper.connection.RateLimitedWebConnection;
+import com.topcoder.scraper.connection.RateLimiters;
+import com.topcoder.scraper.connection.ReplaySite;
+import com.topcoder.scraper.connection.ReplayWebConnection;
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import com.topcoder.scraper.session.WebClientPool;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Web Client Configuration
  */
 @Configuration
 public class WebClientConfig {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(WebClientConfig.class);
+
+  private final ScraperProperty scraperProperty;
+  private final WebClientProperty webClientProperty;
+  private final ReplayProperty replayProperty;
+  private final RateLimitProperty rateLimitProperty;
+  private final WebClientPoolProperty poolProperty;
+  private final HttpCacheProperty httpCacheProperty;
+
+  /**
+   * Rate limiters of all accounts, shared by web clients of the pool
+   */
+  private final RateLimiters rateLimiters;
+
+  /**
+   * Script and stylesheet cache shared by all web clients, scripts compiled by a session are reused by next ones
+   */
+  private final Cache cache = new Cache();
+
+  /**
+   * On-disk http cache shared by all web clients, null unless http cache is enabled
+   */
+  private final HttpCache httpCache;
 
+  /**
+   * Stand-in sites of replay mode, empty unless replay is enabled
+   */
+  private final List<ReplaySite> replaySites;
+
+  @Autowired
+  public WebClientConfig(
+    ScraperProperty scraperProperty,
+    WebClientProperty webClientProperty,
+    ReplayProperty replayProperty,
+    RateLimitProperty rateLimitProperty,
+    WebClientPoolProperty poolProperty,
+    HttpCacheProperty httpCacheProperty,
+    ObjectProvider<List<ReplaySite>> replaySites) {
+    this.scraperProperty = scraperProperty;
+    this.webClientProperty = webClientProperty;
+    this.replayProperty = replayProperty;
+    this.rateLimitProperty = rateLimitProperty;
+    this.poolProperty = poolProperty;
+    this.httpCacheProperty = httpCacheProperty;
+    this.rateLimiters = new RateLimiters(rateLimitProperty);
+    this.httpCache = httpCacheProperty.isEnabled() ? new HttpCache(httpCacheProperty) : null;
+    if (httpCache != null) {
+      Metrics.gauge(ScrapeMetrics.HTTP_CACHE_SIZE, Tags.empty(), httpCache, HttpCache::getSize);
+    }
+    List<ReplaySite> sites = replaySites.getIfAvailable();
+    this.replaySites = sites != null ? sites : Collections.emptyList();
+    if (replayProperty.isEnabled()) {
+      LOGGER.info("Replay mode, pages are served from " + replayProperty.getFolder() + " instead of network");
+    }
+  }
+
+  /**
+   * Pool of web clients, sized to number of accounts scraped at the same time unless max size is configured
+   */
   @Bean
-  public WebClient webClient() {
+  public WebClientPool webClientPool() {
+    int maxSize = poolProperty.getMaxSize() > 0 ? poolProperty.getMaxSize() : scraperProperty.getConcurrency();
+    return new WebClientPool(this::createWebClient, maxSize, poolProperty);
+  }
+
+  /**
+   * Create a new web client, each scrape session uses its own one, sharing script cache with the others.
+   * Requests are filtered by configured resource policy,
+   * page requests are paced and retried by configured rate limit.
+   * With http cache, fresh responses are served from disk and stale ones revalidated before reaching rate limit.
+   * In replay mode, requests are answered from archived pages.
+   * @return web client
+   */
+  public WebClient createWebClient() {
     WebClient webClient = new WebClient(BrowserVersion.CHROME);
     webClient.getOptions().setThrowExceptionOnScriptError(false);
     webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+    webClient.getOptions().setCssEnabled(webClientProperty.isCss());
+    webClient.getOptions().setJavaScriptEnabled(webClientProperty.isJavascript());
+    webClient.getOptions().setDownloadImages(webClientProperty.isImages());
+    webClient.getOptions().setTimeout(webClientProperty.getTimeout());
+    webClient.getOptions().setHistorySizeLimit(webClientProperty.getHistorySize());
+    webClient.getOptions().setHistoryPageCacheLimit(webClientProperty.getHistoryPageCache());
+    webClient.setCache(cache);
+    if (replayProperty.isEnabled()) {
+      webClient.setWebConnection(new ReplayWebConnection(replaySites, replayProperty));
+    }
+    if (rateLimitProperty.isEnabled()) {
+      webClient.setWebConnection(new RateLimitedWebConnection(webClient, rateLimitProperty, rateLimiters));
+    }
+    if (httpCache != null) {
+      webClient.setWebConnection(new CachingWebConnection(webClient, httpCacheProperty, httpCache));
+    }
+    webClient.setWebConnection(new FilteringWebConnection(webClient, webClientProperty));
 
     return webClient;
   }
@@ -0,0 +1,106 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * web client pool related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "web-client-pool")
+public class WebClientPoolProperty {
+
+  /**
+   * Number of idle web clients kept by the pool, created at startup and never evicted
+   */
+  private int minIdle = 0;
+
+  /**
+   * Maximum number of web clients borrowed at the same time, 0 uses scraper concurrency
+   */
+  private int maxSize = 0;
+
+  /**
+   * Time in milliseconds after which an idle web client above min idle is closed, 0 keeps idle web clients
+   */
+  private long idleTimeout = 300000;
+
+  /**
+   * Number of sessions served by a web client before it is replaced by a new one, 0 means no limit
+   */
+  private int maxUses = 0;
+
+  /**
+   * Time in milliseconds to wait for a web client lent to a session besides its own, like for parallel time periods
+   */
+  private long borrowTimeout = 1000;
+
+  /**
+   * Whether web clients created at startup load prewarm urls, so script engine and shared script cache are ready
+   */
+  private boolean prewarm = false;
+
+  /**
+   * Urls loaded by prewarmed web clients, e.g. site home pages
+   */
+  private List<String> prewarmUrls = new ArrayList<>();
+
+  public int getMinIdle() {
+    return minIdle;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public int getMaxUses() {
+    return maxUses;
+  }
+
+  public long getBorrowTimeout() {
+    return borrowTimeout;
+  }
+
+  public boolean isPrewarm() {
+    return prewarm;
+  }
+
+  public List<String> getPrewarmUrls() {
+    return prewarmUrls;
+  }
+
+  public void setMinIdle(int minIdle) {
+    this.minIdle = minIdle;
+  }
+
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public void setIdleTimeout(long idleTimeout) {
+    this.idleTimeout = idleTimeout;
+  }
+
+  public void setMaxUses(int maxUses) {
+    this.maxUses = maxUses;
+  }
+
+  public void setBorrowTimeout(long borrowTimeout) {
+    this.borrowTimeout = borrowTimeout;
+  }
+
+  public void setPrewarm(boolean prewarm) {
+    this.prewarm = prewarm;
+  }
+
+  public void setPrewarmUrls(List<String> prewarmUrls) {
+    this.prewarmUrls = prewarmUrls;
+  }
+}
@@ -0,0 +1,132 @@
+package com.topcoder.scraper.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * web client resource policy related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "web-client")
+public class WebClientProperty {
+
+  /**
+   * Url patterns (regular expression, found anywhere in url) always fetched, even if denied or of a disabled resource type
+   */
+  private List<String> allow = new ArrayList<>();
+
+  /**
+   * Url patterns (regular expression, found anywhere in url) never fetched, e.g. trackers and ads
+   */
+  private List<String> deny = new ArrayList<>();
+
+  /**
+   * Whether stylesheets are downloaded and applied
+   */
+  private boolean css = true;
+
+  /**
+   * Whether scripts are downloaded and run
+   */
+  private boolean javascript = true;
+
+  /**
+   * Whether images are downloaded
+   */
+  private boolean images = true;
+
+  /**
+   * Timeout of each request in milliseconds, 0 means no timeout
+   */
+  private int timeout = 90000;
+
+  /**
+   * Maximum time in milliseconds waiting for background javascript after a page is loaded, 0 means no wait
+   */
+  private long backgroundJavascriptWait = 0;
+
+  /**
+   * Number of navigation history entries kept by each window
+   */
+  private int historySize = 5;
+
+  /**
+   * Number of history entries of each window keeping their page in memory
+   */
+  private int historyPageCache = 1;
+
+  public List<String> getAllow() {
+    return allow;
+  }
+
+  public List<String> getDeny() {
+    return deny;
+  }
+
+  public boolean isCss() {
+    return css;
+  }
+
+  public boolean isJavascript() {
+    return javascript;
+  }
+
+  public boolean isImages() {
+    return images;
+  }
+
+  public int getTimeout() {
+    return timeout;
+  }
+
+  public long getBackgroundJavascriptWait() {
+    return backgroundJavascriptWait;
+  }
+
+  public int getHistorySize() {
+    return historySize;
+  }
+
+  public int getHistoryPageCache() {
+    return historyPageCache;
+  }
+
+  public void setAllow(List<String> allow) {
+    this.allow = allow;
+  }
+
+  public void setDeny(List<String> deny) {
+    this.deny = deny;
+  }
+
+  public void setCss(boolean css) {
+    this.css = css;
+  }
+
+  public void setJavascript(boolean javascript) {
+    this.javascript = javascript;
+  }
+
+  public void setImages(boolean images) {
+    this.images = images;
+  }
+
+  public void setTimeout(int timeout) {
+    this.timeout = timeout;
+  }
+
+  public void setBackgroundJavascriptWait(long backgroundJavascriptWait) {
+    this.backgroundJavascriptWait = backgroundJavascriptWait;
+  }
+
+  public void setHistorySize(int historySize) {
+    this.historySize = historySize;
+  }
+
+  public void setHistoryPageCache(int historyPageCache) {
+    this.historyPageCache = historyPageCache;
+  }
+}
@@ -0,0 +1,42 @@
+package com.topcoder.scraper.config;
+
+import com.topcoder.scraper.service.WebpageService;
+import com.topcoder.scraper.service.impl.AsyncWebpageService;
+import com.topcoder.scraper.service.impl.MeteredWebpageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Webpage Configuration
+ */
+@Configuration
+public class WebpageConfig {
+
+  private final WebpageProperty webpageProperty;
+
+  @Autowired
+  public WebpageConfig(WebpageProperty webpageProperty) {
+    this.webpageProperty = webpageProperty;
+  }
+
+  /**
+   * Times webpage saves of configured store, used by modules instead of the store itself.
+   * Webpages are written on a background thread unless webpage.async is false
+   * @param store configured webpage store
+   * @return metered webpage service
+   */
+  @Bean
+  @Primary
+  public MeteredWebpageService webpageService(WebpageService store) {
+    if (!webpageProperty.isAsync()) {
+      return new MeteredWebpageService(store);
+    }
+    return new MeteredWebpageService(new AsyncWebpageService(
+      store,
+      webpageProperty.getQueueSize(),
+      webpageProperty.getWriteBatchSize(),
+      webpageProperty.getQueueFullPolicy()));
+  }
+}
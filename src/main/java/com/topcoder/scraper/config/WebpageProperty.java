@@ -0,0 +1,130 @@
+package com.topcoder.scraper.config;
+
+import com.topcoder.scraper.service.QueueFullPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * saved webpage related property
+ */
+@Configuration
+@ConfigurationProperties(prefix = "webpage")
+public class WebpageProperty {
+
+  /**
+   * Webpage store, "archive" (default) for compressed segment files, "file" for one html file per page
+   */
+  private String store = "archive";
+
+  /**
+   * Folder of archive
+   */
+  private String folder = "archive";
+
+  /**
+   * Size in bytes after which a new segment file is started
+   */
+  private long segmentSize = 64L * 1024 * 1024;
+
+  /**
+   * Saved pages older than this number of days are dropped by compaction, 0 keeps all pages
+   */
+  private int retentionDays = 90;
+
+  /**
+   * Number of segment files of a site which triggers compaction
+   */
+  private int compactSegments = 8;
+
+  /**
+   * Whether webpages are written by a background thread, so scraping does not wait for disk
+   */
+  private boolean async = true;
+
+  /**
+   * Number of webpages waiting to be written
+   */
+  private int queueSize = 256;
+
+  /**
+   * Maximum number of webpages written between two flushes
+   */
+  private int writeBatchSize = 32;
+
+  /**
+   * What to do when queue is full
+   */
+  private QueueFullPolicy queueFullPolicy = QueueFullPolicy.SPILL;
+
+  public String getStore() {
+    return store;
+  }
+
+  public String getFolder() {
+    return folder;
+  }
+
+  public long getSegmentSize() {
+    return segmentSize;
+  }
+
+  public int getRetentionDays() {
+    return retentionDays;
+  }
+
+  public int getCompactSegments() {
+    return compactSegments;
+  }
+
+  public boolean isAsync() {
+    return async;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public int getWriteBatchSize() {
+    return writeBatchSize;
+  }
+
+  public QueueFullPolicy getQueueFullPolicy() {
+    return queueFullPolicy;
+  }
+
+  public void setStore(String store) {
+    this.store = store;
+  }
+
+  public void setFolder(String folder) {
+    this.folder = folder;
+  }
+
+  public void setSegmentSize(long segmentSize) {
+    this.segmentSize = segmentSize;
+  }
+
+  public void setRetentionDays(int retentionDays) {
+    this.retentionDays = retentionDays;
+  }
+
+  public void setCompactSegments(int compactSegments) {
+    this.compactSegments = compactSegments;
+  }
+
+  public void setAsync(boolean async) {
+    this.async = async;
+  }
+
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public void setWriteBatchSize(int writeBatchSize) {
+    this.writeBatchSize = writeBatchSize;
+  }
+
+  public void setQueueFullPolicy(QueueFullPolicy queueFullPolicy) {
+    this.queueFullPolicy = queueFullPolicy;
+  }
+}
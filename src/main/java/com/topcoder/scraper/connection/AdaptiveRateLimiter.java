@@ -0,0 +1,96 @@
+package com.topcoder.scraper.connection;
+
+import com.topcoder.scraper.config.RateLimitProperty;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket pacing page requests of one account.
+ *
+ * Rate grows additively after a run of healthy responses
+ * and is cut multiplicatively after a throttled response (AIMD),
+ * so it settles just below the rate a site tolerates.
+ */
+public class AdaptiveRateLimiter {
+
+  private final RateLimitProperty property;
+  private final LongSupplier nanoClock;
+
+  private double rate;
+  private double tokens;
+  private long refilledAt;
+  private int healthy;
+
+  public AdaptiveRateLimiter(RateLimitProperty property) {
+    this(property, System::nanoTime);
+  }
+
+  AdaptiveRateLimiter(RateLimitProperty property, LongSupplier nanoClock) {
+    this.property = property;
+    this.nanoClock = nanoClock;
+    this.rate = clamp(property.getRequestsPerSecond());
+    this.tokens = Math.max(1, property.getBurst());
+    this.refilledAt = nanoClock.getAsLong();
+  }
+
+  /**
+   * wait until a request can be sent
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void acquire() throws InterruptedException {
+    long wait = reserve();
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+  /**
+   * take a token, tokens go negative so that waiting requests are served in order
+   * @return nanoseconds to wait before sending the request
+   */
+  synchronized long reserve() {
+    refill();
+    tokens -= 1;
+    return tokens >= 0 ? 0 : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+  }
+
+  /**
+   * increase rate after enough healthy responses in a row
+   */
+  public synchronized void onHealthy() {
+    if (++healthy >= property.getHealthyResponses()) {
+      healthy = 0;
+      refill();
+      rate = clamp(rate + property.getIncrease());
+    }
+  }
+
+  /**
+   * cut rate after a throttled response, saved up burst is dropped
+   */
+  public synchronized void onThrottled() {
+    healthy = 0;
+    refill();
+    rate = clamp(rate * property.getDecrease());
+    tokens = Math.min(tokens, 0);
+  }
+
+  /**
+   * get current rate
+   * @return requests per second
+   */
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  private void refill() {
+    long now = nanoClock.getAsLong();
+    tokens = Math.min(Math.max(1, property.getBurst()), tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+    refilledAt = now;
+  }
+
+  private double clamp(double value) {
+    return Math.max(property.getMinRequestsPerSecond(), Math.min(property.getMaxRequestsPerSecond(), value));
+  }
+}
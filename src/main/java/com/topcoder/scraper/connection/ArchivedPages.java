@@ -0,0 +1,68 @@
+package com.topcoder.scraper.connection;
+
+import com.topcoder.scraper.config.WebpageProperty;
+import com.topcoder.scraper.service.impl.ArchiveWebpageService;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads pages saved by a webpage store, to be replayed
+ */
+public class ArchivedPages {
+
+  /**
+   * Name of pages saved by file store, page name then save time
+   */
+  private static final Pattern FILE_NAME = Pattern.compile("^(.+)-(\\d{4}-\\d{2}-\\d{2}T[\\d.-]+)\\.html$");
+
+  private ArchivedPages() {
+  }
+
+  /**
+   * read saved pages of a site, from an archive store folder or from a file store folder
+   * @param folder store folder
+   * @param site site name
+   * @return page contents by page name (e.g. login, purchase-history), oldest first
+   */
+  public static Map<String, List<String>> read(String folder, String site) throws IOException {
+    Map<String, List<String>> pages = new LinkedHashMap<>();
+
+    File[] files = new File(folder, site).listFiles((dir, name) -> FILE_NAME.matcher(name).matches());
+    if (files != null && files.length > 0) {
+      // save time in name sorts in save order
+      Arrays.sort(files);
+      for (File file : files) {
+        Matcher matcher = FILE_NAME.matcher(file.getName());
+        matcher.matches();
+        pages.computeIfAbsent(matcher.group(1), name -> new ArrayList<>())
+          .add(FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+      }
+      return pages;
+    }
+
+    WebpageProperty property = new WebpageProperty();
+    property.setFolder(folder);
+    ArchiveWebpageService archive = new ArchiveWebpageService(property, true);
+    try {
+      List<ArchiveWebpageService.Entry> entries = new ArrayList<>(archive.list(site));
+      entries.sort(Comparator.comparingLong(ArchiveWebpageService.Entry::getSavedAt));
+      for (ArchiveWebpageService.Entry entry : entries) {
+        pages.computeIfAbsent(entry.getFilename(), name -> new ArrayList<>()).add(archive.read(site, entry));
+      }
+    } finally {
+      archive.close();
+    }
+    return pages;
+  }
+}
@@ -0,0 +1,308 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import com.topcoder.scraper.config.HttpCacheProperty;
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Web connection answering GET requests from the on-disk {@link HttpCache}.
+ *
+ * Fresh responses (Cache-Control max-age, Expires, or a heuristic from Last-Modified) are served without a request,
+ * stale ones with an ETag or Last-Modified are revalidated with a conditional request, a 304 serves the stored body.
+ * Only 200 responses are stored, never no-store or private ones, so logged in pages marked private stay off disk.
+ * Other pages are stored per account, scripts, stylesheets and images are shared by all accounts.
+ */
+public class CachingWebConnection extends WebConnectionWrapper implements SessionBoundConnection {
+
+  /**
+   * Headers describing the transfer of a response rather than its content, and cookies of the session storing it
+   */
+  private static final List<String> UNSTORED_HEADERS = Arrays.asList(HttpHeaders.CONTENT_ENCODING,
+    HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING, "Set-Cookie");
+
+  /**
+   * Maximum freshness lifetime guessed from Last-Modified
+   */
+  private static final long MAX_HEURISTIC_LIFETIME = TimeUnit.DAYS.toMillis(1);
+
+  private final HttpCache cache;
+  private final HttpCacheProperty property;
+  private final LongSupplier clock;
+
+  private volatile String site = ScrapeMetrics.UNKNOWN;
+  private volatile String account = ScrapeMetrics.UNKNOWN;
+
+  /**
+   * Wrap current web connection of web client
+   * @param webClient web client to be cached
+   * @param property cache policy
+   * @param cache on-disk cache shared by web clients
+   */
+  public CachingWebConnection(WebClient webClient, HttpCacheProperty property, HttpCache cache) {
+    this(webClient, property, cache, System::currentTimeMillis);
+  }
+
+  /**
+   * @param webClient web client to be cached
+   * @param property cache policy
+   * @param cache on-disk cache shared by web clients
+   * @param clock current time in milliseconds
+   */
+  CachingWebConnection(WebClient webClient, HttpCacheProperty property, HttpCache cache, LongSupplier clock) {
+    super(webClient);
+    this.cache = cache;
+    this.property = property;
+    this.clock = clock;
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    if (request.getHttpMethod() != HttpMethod.GET || request.isAdditionalHeader(HttpHeaders.IF_NONE_MATCH)
+      || request.isAdditionalHeader(HttpHeaders.IF_MODIFIED_SINCE)) {
+      return super.getResponse(request);
+    }
+
+    ResourceType type = ResourceType.of(request);
+    String key = key(request, type);
+    HttpCache.Entry entry = cache.get(key);
+    if (entry != null && entry.isFresh(clock.getAsLong())) {
+      count(type, "hit");
+      return new CachedWebResponse(entry, request);
+    }
+
+    WebResponse response = entry != null && entry.hasValidator() ? revalidate(request, entry) : super.getResponse(request);
+    if (entry != null && response.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+      refresh(entry, response);
+      count(type, "revalidated");
+      return new CachedWebResponse(entry, request);
+    }
+    count(type, "miss");
+    store(key, response);
+    return response;
+  }
+
+  /**
+   * check if response was served from cache, it was not fetched from network
+   * @param response web response
+   * @return true if served from cache
+   */
+  public static boolean isCached(WebResponse response) {
+    return response instanceof CachedWebResponse;
+  }
+
+  /**
+   * store pages of this connection under the account of session using it
+   * @param site site name
+   * @param account account username
+   */
+  @Override
+  public void bind(String site, String account) {
+    this.site = site;
+    this.account = account;
+  }
+
+  /**
+   * stop storing pages under last session, once web client is released
+   */
+  @Override
+  public void unbind() {
+    bind(ScrapeMetrics.UNKNOWN, ScrapeMetrics.UNKNOWN);
+  }
+
+  /**
+   * send a conditional request for a stale response
+   * @param request web request
+   * @param entry stale response with a validator
+   * @return 304 if stored response is unchanged, new response otherwise
+   * @throws IOException if request fails
+   */
+  private WebResponse revalidate(WebRequest request, HttpCache.Entry entry) throws IOException {
+    if (entry.etag != null) {
+      request.setAdditionalHeader(HttpHeaders.IF_NONE_MATCH, entry.etag);
+    }
+    if (entry.lastModified != null) {
+      request.setAdditionalHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified);
+    }
+    try {
+      return super.getResponse(request);
+    } finally {
+      request.removeAdditionalHeader(HttpHeaders.IF_NONE_MATCH);
+      request.removeAdditionalHeader(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+  }
+
+  /**
+   * update stored response with headers of a 304, which restarts its freshness lifetime
+   * @param entry stored response
+   * @param notModified 304 response
+   */
+  private void refresh(HttpCache.Entry entry, WebResponse notModified) {
+    List<NameValuePair> updated = storedHeaders(notModified);
+    List<String> names = updated.stream().map(header -> header.getName().toLowerCase(Locale.ROOT))
+      .collect(Collectors.toList());
+    entry.headers.removeIf(header -> names.contains(header.name.toLowerCase(Locale.ROOT)));
+    updated.forEach(header -> entry.headers.add(new HttpCache.Header(header.getName(), header.getValue())));
+    describe(entry, entry.headers.stream().map(header -> new NameValuePair(header.name, header.value))
+      .collect(Collectors.toList()));
+    cache.refresh(entry);
+  }
+
+  /**
+   * store a response if it is cacheable
+   * @param key cache key
+   * @param response response from network
+   * @throws IOException if response content can not be read
+   */
+  private void store(String key, WebResponse response) throws IOException {
+    if (response.getStatusCode() != HttpStatus.SC_OK || response.getContentLength() > property.getMaxEntrySize()) {
+      return;
+    }
+    List<String> cacheControl = directives(response.getResponseHeaderValue(HttpHeaders.CACHE_CONTROL));
+    String vary = response.getResponseHeaderValue("Vary");
+    if (cacheControl.contains("no-store") || cacheControl.contains("private")
+      || (vary != null && !vary.trim().equalsIgnoreCase("Accept-Encoding"))) {
+      return;
+    }
+
+    HttpCache.Entry entry = new HttpCache.Entry();
+    entry.key = key;
+    entry.url = response.getWebRequest().getUrl().toExternalForm();
+    entry.status = response.getStatusCode();
+    entry.message = response.getStatusMessage();
+    List<NameValuePair> headers = storedHeaders(response);
+    headers.forEach(header -> entry.headers.add(new HttpCache.Header(header.getName(), header.getValue())));
+    describe(entry, headers);
+    if (!entry.isFresh(entry.storedAt) && !entry.hasValidator()) {
+      return;
+    }
+
+    try (InputStream in = response.getContentAsStream()) {
+      entry.body = IOUtils.toByteArray(in);
+    }
+    if (entry.body.length <= property.getMaxEntrySize()) {
+      cache.put(entry);
+    }
+  }
+
+  /**
+   * set validators and freshness of a response from its headers
+   * @param entry stored response
+   * @param headers response headers
+   */
+  private void describe(HttpCache.Entry entry, List<NameValuePair> headers) {
+    long now = clock.getAsLong();
+    entry.storedAt = now;
+    entry.etag = header(headers, HttpHeaders.ETAG);
+    entry.lastModified = header(headers, HttpHeaders.LAST_MODIFIED);
+    entry.expiresAt = now + lifetime(headers, now);
+  }
+
+  /**
+   * get freshness lifetime of a response, max-age wins over Expires, which wins over a guess from Last-Modified
+   * @param headers response headers
+   * @param now current time in milliseconds
+   * @return lifetime in milliseconds, 0 if response is stale right away
+   */
+  private static long lifetime(List<NameValuePair> headers, long now) {
+    List<String> cacheControl = directives(header(headers, HttpHeaders.CACHE_CONTROL));
+    if (cacheControl.contains("no-cache")) {
+      return 0;
+    }
+    for (String directive : cacheControl) {
+      if (directive.startsWith("max-age=")) {
+        try {
+          return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(directive.substring("max-age=".length()))));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+
+    Date date = date(header(headers, HttpHeaders.DATE));
+    long served = date != null ? date.getTime() : now;
+    String expires = header(headers, HttpHeaders.EXPIRES);
+    if (expires != null) {
+      Date expiry = date(expires);
+      return expiry != null ? Math.max(0, expiry.getTime() - served) : 0;
+    }
+    Date lastModified = date(header(headers, HttpHeaders.LAST_MODIFIED));
+    if (lastModified != null) {
+      return Math.min(MAX_HEURISTIC_LIFETIME, Math.max(0, (served - lastModified.getTime()) / 10));
+    }
+    return 0;
+  }
+
+  /**
+   * get cache key of a request, pages are keyed by account so one account never sees pages of another
+   * @param request web request
+   * @param type resource type
+   * @return cache key
+   */
+  private String key(WebRequest request, ResourceType type) {
+    String url = request.getUrl().toExternalForm();
+    return type == ResourceType.DOCUMENT ? site + " " + account + " " + url : url;
+  }
+
+  private void count(ResourceType type, String result) {
+    Metrics.counter(ScrapeMetrics.HTTP_CACHE, ScrapeMetrics.tags(site, account)
+      .and("type", type.name().toLowerCase(Locale.ROOT), "result", result)).increment();
+  }
+
+  private static List<NameValuePair> storedHeaders(WebResponse response) {
+    return response.getResponseHeaders().stream()
+      .filter(header -> UNSTORED_HEADERS.stream().noneMatch(header.getName()::equalsIgnoreCase))
+      .collect(Collectors.toList());
+  }
+
+  private static List<String> directives(String cacheControl) {
+    List<String> directives = new ArrayList<>();
+    if (cacheControl != null) {
+      for (String directive : cacheControl.split(",")) {
+        directives.add(directive.trim().toLowerCase(Locale.ROOT));
+      }
+    }
+    return directives;
+  }
+
+  private static String header(List<NameValuePair> headers, String name) {
+    return headers.stream().filter(header -> header.getName().equalsIgnoreCase(name))
+      .map(NameValuePair::getValue).findFirst().orElse(null);
+  }
+
+  private static Date date(String value) {
+    return value != null ? DateUtils.parseDate(value) : null;
+  }
+
+  /**
+   * Response served from a stored response
+   */
+  private static class CachedWebResponse extends WebResponse {
+
+    private CachedWebResponse(HttpCache.Entry entry, WebRequest request) {
+      super(new WebResponseData(entry.body, entry.status, entry.message, entry.headers.stream()
+        .map(header -> new NameValuePair(header.name, header.value)).collect(Collectors.toList())), request, 0);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import com.topcoder.scraper.config.WebClientProperty;
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Web connection blocking requests by url pattern and resource type,
+ * blocked requests get an empty response without going to network.
+ * Responses served from http cache are counted as cached, their bytes are not counted as fetched.
+ */
+public class FilteringWebConnection extends WebConnectionWrapper implements SessionBoundConnection {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FilteringWebConnection.class);
+
+  private final List<Pattern> allow;
+  private final List<Pattern> deny;
+  private final WebClientProperty property;
+
+  /**
+   * Site and account of session using this connection, tags of request meters
+   */
+  private volatile Tags tags = ScrapeMetrics.tags(ScrapeMetrics.UNKNOWN, ScrapeMetrics.UNKNOWN);
+
+  /**
+   * Wrap current web connection of web client
+   * @param webClient web client to be filtered
+   * @param property resource policy
+   */
+  public FilteringWebConnection(WebClient webClient, WebClientProperty property) {
+    super(webClient);
+    this.property = property;
+    this.allow = compile(property.getAllow());
+    this.deny = compile(property.getDeny());
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    ResourceType type = ResourceType.of(request);
+    String typeTag = type.name().toLowerCase(Locale.ROOT);
+    if (isBlocked(request.getUrl().toExternalForm(), type)) {
+      Metrics.counter(ScrapeMetrics.REQUESTS, tags.and("type", typeTag, "result", "blocked")).increment();
+      LOGGER.debug("Blocked " + type + " " + request.getUrl());
+      return emptyResponse(request, type);
+    }
+
+    WebResponse response = super.getResponse(request);
+    if (CachingWebConnection.isCached(response)) {
+      Metrics.counter(ScrapeMetrics.REQUESTS, tags.and("type", typeTag, "result", "cached")).increment();
+      return response;
+    }
+    Metrics.counter(ScrapeMetrics.REQUESTS, tags.and("type", typeTag, "result", "fetched")).increment();
+    Metrics.counter(ScrapeMetrics.FETCHED_BYTES, tags).increment(Math.max(0, response.getContentLength()));
+    return response;
+  }
+
+  /**
+   * tag requests of this connection with session using it
+   * @param site site name
+   * @param account account username
+   */
+  @Override
+  public void bind(String site, String account) {
+    this.tags = ScrapeMetrics.tags(site, account);
+  }
+
+  /**
+   * stop tagging requests with last session, once web client is released
+   */
+  @Override
+  public void unbind() {
+    bind(ScrapeMetrics.UNKNOWN, ScrapeMetrics.UNKNOWN);
+  }
+
+  /**
+   * check if request is blocked, allowed patterns win over everything else
+   * @param url request url
+   * @param type resource type
+   * @return true if request should not be sent
+   */
+  private boolean isBlocked(String url, ResourceType type) {
+    if (matches(allow, url)) {
+      return false;
+    }
+    if (matches(deny, url)) {
+      return true;
+    }
+    switch (type) {
+      case SCRIPT:
+        return !property.isJavascript();
+      case STYLESHEET:
+        return !property.isCss();
+      case IMAGE:
+        return !property.isImages();
+      default:
+        return false;
+    }
+  }
+
+  private static WebResponse emptyResponse(WebRequest request, ResourceType type) {
+    List<NameValuePair> headers = Collections.singletonList(new NameValuePair(HttpHeaders.CONTENT_TYPE, contentType(type)));
+    return new WebResponse(new WebResponseData(new byte[0], 200, "OK", headers), request, 0);
+  }
+
+  private static String contentType(ResourceType type) {
+    switch (type) {
+      case SCRIPT:
+        return "application/javascript";
+      case STYLESHEET:
+        return "text/css";
+      case IMAGE:
+        return "image/gif";
+      default:
+        return "text/html";
+    }
+  }
+
+  private static boolean matches(List<Pattern> patterns, String url) {
+    return patterns.stream().anyMatch(pattern -> pattern.matcher(url).find());
+  }
+
+  private static List<Pattern> compile(List<String> patterns) {
+    return patterns.stream().map(Pattern::compile).collect(Collectors.toList());
+  }
+}
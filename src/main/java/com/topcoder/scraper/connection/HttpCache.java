@@ -0,0 +1,366 @@
+package com.topcoder.scraper.connection;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.topcoder.scraper.config.HttpCacheProperty;
+import com.topcoder.scraper.util.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk store of http responses, shared by all web clients.
+ *
+ * Each response is a metadata file (status, headers, freshness) and a body file, named by hash of its cache key.
+ * Stored responses are indexed in memory in access order, rebuilt from file times at startup,
+ * least recently used responses are deleted once total size exceeds max size.
+ * Files are written to a unique temp file then moved. Reading and writing a response hold the lock of its key,
+ * so a reader never pairs metadata of one response with body of another.
+ */
+public class HttpCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpCache.class);
+
+  private static final ObjectMapper OB = new ObjectMapper()
+    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private static final String META = ".meta";
+  private static final String BODY = ".body";
+  private static final String TEMP = ".tmp";
+  private static final int LOCKS = 64;
+
+  private final Path folder;
+  private final long maxSize;
+
+  /**
+   * Size of stored responses by file name, least recently used first
+   */
+  private final Map<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  /**
+   * Locks of stored responses, by hash of file name
+   */
+  private final ReadWriteLock[] locks = new ReadWriteLock[LOCKS];
+
+  public HttpCache(HttpCacheProperty property) {
+    this.folder = Paths.get(property.getFolder());
+    this.maxSize = property.getMaxSize();
+    for (int i = 0; i < LOCKS; i++) {
+      locks[i] = new ReentrantReadWriteLock();
+    }
+    load();
+  }
+
+  /**
+   * find stored response
+   * @param key cache key
+   * @return stored response with its body, null if not stored or not readable
+   */
+  public Entry get(String key) {
+    String name = HashUtils.sha256(key);
+    synchronized (this) {
+      if (index.get(name) == null) {
+        return null;
+      }
+    }
+    Lock lock = lock(name).readLock();
+    lock.lock();
+    try {
+      return read(key, name);
+    } catch (IOException e) {
+      LOGGER.debug("Fail to read cached response of " + key + ": " + e.getMessage());
+    } finally {
+      lock.unlock();
+    }
+    return readOrRemove(key, name);
+  }
+
+  /**
+   * store a response with its body, replacing previous one of the key
+   * @param entry response to be stored
+   */
+  public void put(Entry entry) {
+    write(entry, true);
+  }
+
+  /**
+   * store new metadata of a revalidated response, its body is unchanged
+   * @param entry revalidated response
+   */
+  public void refresh(Entry entry) {
+    write(entry, false);
+  }
+
+  /**
+   * get total size of stored responses
+   * @return size in bytes
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * get number of stored responses
+   * @return stored responses
+   */
+  public synchronized int getEntries() {
+    return index.size();
+  }
+
+  /**
+   * write files of a response under the lock of its key, then delete responses evicted by it
+   * @param entry response to be stored
+   * @param withBody true to write body as well, false if only metadata changed
+   */
+  private void write(Entry entry, boolean withBody) {
+    String name = HashUtils.sha256(entry.key);
+    List<String> evicted = Collections.emptyList();
+    Lock lock = lock(name).writeLock();
+    lock.lock();
+    try {
+      if (withBody) {
+        write(body(name), entry.body);
+      }
+      write(meta(name), OB.writeValueAsBytes(entry));
+      evicted = stored(name, Files.size(meta(name)) + entry.body.length);
+    } catch (IOException e) {
+      LOGGER.warn("Fail to cache response of " + entry.url + ": " + e.getMessage());
+      unindex(name);
+      delete(name);
+    } finally {
+      lock.unlock();
+    }
+    evicted.forEach(this::deleteEvicted);
+  }
+
+  /**
+   * index responses stored by previous runs, least recently used first
+   */
+  private void load() {
+    try {
+      Files.createDirectories(folder);
+      List<File> files;
+      try (Stream<Path> list = Files.list(folder)) {
+        files = list.map(Path::toFile).sorted(Comparator.comparingLong(File::lastModified)).collect(Collectors.toList());
+      }
+      List<File> metas = new ArrayList<>();
+      for (File file : files) {
+        if (file.getName().endsWith(TEMP)) {
+          // left by an interrupted write
+          Files.deleteIfExists(file.toPath());
+        } else if (file.getName().endsWith(META)) {
+          metas.add(file);
+        }
+      }
+      for (File file : metas) {
+        String name = file.getName().substring(0, file.getName().length() - META.length());
+        File body = body(name).toFile();
+        if (body.exists()) {
+          stored(name, file.length() + body.length()).forEach(this::delete);
+        } else {
+          Files.deleteIfExists(file.toPath());
+        }
+      }
+      LOGGER.info("Http cache holds " + getEntries() + " responses, " + getSize() + " bytes");
+    } catch (IOException e) {
+      LOGGER.error("Fail to read http cache folder " + folder + ", responses are cached from now on", e);
+    }
+  }
+
+  /**
+   * index a stored response, then unindex least recently used responses until size is below max size
+   * @param name file name of stored response
+   * @param entrySize size of its files
+   * @return file names of evicted responses, their files are deleted by caller
+   */
+  private synchronized List<String> stored(String name, long entrySize) {
+    Long previous = index.put(name, entrySize);
+    size += entrySize - (previous != null ? previous : 0);
+
+    List<String> evicted = new ArrayList<>();
+    Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+    while (size > maxSize && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      size -= entry.getValue();
+      evicted.add(entry.getKey());
+      eldest.remove();
+    }
+    return evicted;
+  }
+
+  private synchronized void unindex(String name) {
+    Long previous = index.remove(name);
+    if (previous != null) {
+      size -= previous;
+    }
+  }
+
+  /**
+   * read files of a stored response, caller holds the lock of its name
+   * @param key cache key
+   * @param name file name of response
+   * @return stored response, null if file name belongs to another key
+   * @throws IOException if files can not be read
+   */
+  private Entry read(String key, String name) throws IOException {
+    Entry entry = OB.readValue(meta(name).toFile(), Entry.class);
+    if (!key.equals(entry.key)) {
+      return null;
+    }
+    entry.body = Files.readAllBytes(body(name));
+    Files.setLastModifiedTime(meta(name), FileTime.fromMillis(System.currentTimeMillis()));
+    return entry;
+  }
+
+  /**
+   * read a response again under the write lock of its name, it is unindexed and its files deleted
+   * only if it still can not be read, as another thread may have stored it since the failed read
+   * @param key cache key
+   * @param name file name of response
+   * @return stored response, null if it was removed
+   */
+  private Entry readOrRemove(String key, String name) {
+    Lock lock = lock(name).writeLock();
+    lock.lock();
+    try {
+      return read(key, name);
+    } catch (IOException e) {
+      unindex(name);
+      delete(name);
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * delete files of an evicted response under the lock of its name, unless it was stored again in the meantime
+   * @param name file name of response
+   */
+  private void deleteEvicted(String name) {
+    Lock lock = lock(name).writeLock();
+    lock.lock();
+    try {
+      synchronized (this) {
+        if (index.containsKey(name)) {
+          return;
+        }
+      }
+      delete(name);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void delete(String name) {
+    try {
+      Files.deleteIfExists(meta(name));
+      Files.deleteIfExists(body(name));
+    } catch (IOException e) {
+      LOGGER.warn("Fail to delete cached response " + name + ": " + e.getMessage());
+    }
+  }
+
+  private void write(Path file, byte[] content) throws IOException {
+    Path temp = Files.createTempFile(folder, file.getFileName().toString(), TEMP);
+    try {
+      Files.write(temp, content);
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private ReadWriteLock lock(String name) {
+    return locks[(name.hashCode() & Integer.MAX_VALUE) % LOCKS];
+  }
+
+  private Path meta(String name) {
+    return folder.resolve(name + META);
+  }
+
+  private Path body(String name) {
+    return folder.resolve(name + BODY);
+  }
+
+  /**
+   * Stored response, body is kept in its own file
+   */
+  public static class Entry {
+    public String key;
+    public String url;
+    public int status;
+    public String message;
+    public List<Header> headers = new ArrayList<>();
+
+    /**
+     * Time the response was stored or last revalidated, in epoch milliseconds
+     */
+    public long storedAt;
+
+    /**
+     * Time the response becomes stale, in epoch milliseconds
+     */
+    public long expiresAt;
+
+    public String etag;
+    public String lastModified;
+
+    @JsonIgnore
+    public byte[] body;
+
+    /**
+     * check if response can be used without asking the server
+     * @param now current time in epoch milliseconds
+     * @return true if response is fresh
+     */
+    public boolean isFresh(long now) {
+      return now < expiresAt;
+    }
+
+    /**
+     * check if a stale response can be revalidated with a conditional request
+     * @return true if response has a validator
+     */
+    public boolean hasValidator() {
+      return etag != null || lastModified != null;
+    }
+  }
+
+  /**
+   * Stored response header
+   */
+  public static class Header {
+    public String name;
+    public String value;
+
+    public Header() {
+    }
+
+    public Header(String name, String value) {
+      this.name = name;
+      this.value = value;
+    }
+  }
+}
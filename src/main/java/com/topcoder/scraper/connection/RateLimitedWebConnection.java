@@ -0,0 +1,193 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import com.topcoder.scraper.config.RateLimitProperty;
+import com.topcoder.scraper.exception.FetchThrottledFailure;
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Web connection pacing page requests by the rate limiter of the bound account.
+ *
+ * Throttled responses (configured status codes, or html pages matching a throttle pattern like a captcha)
+ * and network errors cut the rate, then GET requests are retried after a jittered exponential backoff.
+ * A request still throttled after all retries fails with {@link FetchThrottledFailure},
+ * so a throttled page is never parsed as a page without orders.
+ * Scripts, stylesheets and images are not paced.
+ */
+public class RateLimitedWebConnection extends WebConnectionWrapper implements SessionBoundConnection {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RateLimitedWebConnection.class);
+
+  private final RateLimitProperty property;
+  private final RateLimiters limiters;
+  private final List<Pattern> throttlePatterns;
+
+  private volatile String site = ScrapeMetrics.UNKNOWN;
+  private volatile String account = ScrapeMetrics.UNKNOWN;
+
+  /**
+   * Wrap current web connection of web client
+   * @param webClient web client to be paced
+   * @param property rate limit policy
+   * @param limiters rate limiters shared by web clients
+   */
+  public RateLimitedWebConnection(WebClient webClient, RateLimitProperty property, RateLimiters limiters) {
+    super(webClient);
+    this.property = property;
+    this.limiters = limiters;
+    this.throttlePatterns = property.getThrottlePatterns().stream().map(Pattern::compile).collect(Collectors.toList());
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    if (ResourceType.of(request) != ResourceType.DOCUMENT) {
+      return super.getResponse(request);
+    }
+
+    AdaptiveRateLimiter limiter = limiters.get(site, account);
+    for (int retry = 0; ; retry++) {
+      acquire(limiter, request);
+
+      WebResponse response = null;
+      Throttle throttle;
+      try {
+        response = super.getResponse(request);
+        throttle = classify(response);
+        if (throttle == null) {
+          limiter.onHealthy();
+          return response;
+        }
+      } catch (IOException e) {
+        if (retry >= property.getMaxRetries() || !isRetryable(request)) {
+          limiter.onThrottled();
+          throw e;
+        }
+        throttle = new Throttle("error", e.toString());
+      }
+
+      limiter.onThrottled();
+      Metrics.counter(ScrapeMetrics.THROTTLED, ScrapeMetrics.tags(site, account).and("reason", throttle.reason)).increment();
+      if (retry >= property.getMaxRetries() || !isRetryable(request)) {
+        throw new FetchThrottledFailure(request.getHttpMethod() + " " + request.getUrl() + " of " + site + "/" + account
+          + " throttled (" + throttle.detail + ") after " + retry + " retries");
+      }
+
+      long wait = backoff(retry, response);
+      LOGGER.warn(request.getUrl() + " of " + site + "/" + account + " throttled (" + throttle.detail + "), retry in "
+        + wait + " ms, rate " + String.format("%.2f", limiter.getRate()) + " requests/s");
+      if (response != null) {
+        response.cleanUp();
+      }
+      sleep(wait, request);
+    }
+  }
+
+  /**
+   * pace requests with rate limiter of given site and account
+   * @param site site name
+   * @param account account username
+   */
+  @Override
+  public void bind(String site, String account) {
+    this.site = site;
+    this.account = account;
+  }
+
+  /**
+   * stop pacing with last account, once web client is released
+   */
+  @Override
+  public void unbind() {
+    bind(ScrapeMetrics.UNKNOWN, ScrapeMetrics.UNKNOWN);
+  }
+
+  /**
+   * check if response is throttled
+   * @param response web response
+   * @return throttle, null if response is healthy
+   */
+  private Throttle classify(WebResponse response) {
+    int status = response.getStatusCode();
+    if (property.getThrottleStatus().contains(status)) {
+      return new Throttle("status", "status " + status);
+    }
+    if (!throttlePatterns.isEmpty() && "text/html".equals(response.getContentType())) {
+      String content = response.getContentAsString();
+      for (Pattern pattern : throttlePatterns) {
+        if (content != null && pattern.matcher(content).find()) {
+          return new Throttle("content", "page matches " + pattern);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * get wait before a retry, Retry-After of response if any,
+   * otherwise backoff doubled for every retry with "equal jitter": half fixed, half random
+   * @param retry number of retries so far
+   * @param response throttled response, null if request failed
+   * @return milliseconds to wait
+   */
+  private long backoff(int retry, WebResponse response) {
+    String retryAfter = response != null ? response.getResponseHeaderValue(HttpHeaders.RETRY_AFTER) : null;
+    if (retryAfter != null && retryAfter.trim().matches("\\d+")) {
+      return Math.min(property.getMaxBackoff(), Long.parseLong(retryAfter.trim()) * 1000);
+    }
+    long wait = Math.min(property.getMaxBackoff(), property.getBackoff() << Math.min(retry, 30));
+    return wait / 2 + ThreadLocalRandom.current().nextLong(wait / 2 + 1);
+  }
+
+  private static boolean isRetryable(WebRequest request) {
+    return request.getHttpMethod() == HttpMethod.GET || request.getHttpMethod() == HttpMethod.HEAD;
+  }
+
+  private static void acquire(AdaptiveRateLimiter limiter, WebRequest request) throws InterruptedIOException {
+    try {
+      limiter.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to fetch " + request.getUrl());
+    }
+  }
+
+  private static void sleep(long millis, WebRequest request) throws InterruptedIOException {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to retry " + request.getUrl());
+    }
+  }
+
+  /**
+   * Why a response is throttled
+   */
+  private static class Throttle {
+    /**
+     * Tag of throttled counter, status, content or error
+     */
+    private final String reason;
+    private final String detail;
+
+    private Throttle(String reason, String detail) {
+      this.reason = reason;
+      this.detail = detail;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.topcoder.scraper.connection;
+
+import com.topcoder.scraper.config.RateLimitProperty;
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate limiters of all accounts, shared by web clients
+ * so an account keeps its learnt rate whichever pooled web client it borrows
+ */
+public class RateLimiters {
+
+  private final RateLimitProperty property;
+  private final Map<String, AdaptiveRateLimiter> limiters = new ConcurrentHashMap<>();
+
+  public RateLimiters(RateLimitProperty property) {
+    this.property = property;
+  }
+
+  /**
+   * get rate limiter of an account, created on first use
+   * @param site site name
+   * @param account account username
+   * @return rate limiter
+   */
+  public AdaptiveRateLimiter get(String site, String account) {
+    return limiters.computeIfAbsent(site + "/" + account, key ->
+      Metrics.gauge(ScrapeMetrics.FETCH_RATE, ScrapeMetrics.tags(site, account), new AdaptiveRateLimiter(property),
+        AdaptiveRateLimiter::getRate));
+  }
+}
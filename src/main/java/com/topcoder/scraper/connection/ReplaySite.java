@@ -0,0 +1,26 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+
+import java.net.URL;
+
+/**
+ * Stand-in of a site in replay mode, answers requests of the site from archived pages
+ */
+public interface ReplaySite {
+
+  /**
+   * check if url belongs to this site
+   * @param url request url
+   * @return true if site answers the request
+   */
+  boolean handles(URL url);
+
+  /**
+   * answer a request of the site
+   * @param request web request
+   * @return response, null if site has no page for the request
+   */
+  WebResponseData respond(WebRequest request);
+}
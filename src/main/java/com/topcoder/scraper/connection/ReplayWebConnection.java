@@ -0,0 +1,114 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.topcoder.scraper.config.ReplayProperty;
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Web connection answering requests from archived pages instead of network.
+ *
+ * Each request is answered by the replay site of its host, requests no site can answer get a 404.
+ * Configured latency and bandwidth are added to every response, so a replayed scrape takes as long as a real one.
+ */
+public class ReplayWebConnection implements WebConnection {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplayWebConnection.class);
+
+  private final List<ReplaySite> sites;
+  private final long latency;
+  private final long bandwidth;
+
+  public ReplayWebConnection(List<ReplaySite> sites, ReplayProperty property) {
+    this.sites = sites;
+    this.latency = property.getLatency();
+    this.bandwidth = property.getBandwidth();
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    long start = System.currentTimeMillis();
+    WebResponseData data = null;
+    for (ReplaySite site : sites) {
+      if (site.handles(request.getUrl())) {
+        data = site.respond(request);
+        break;
+      }
+    }
+    if (data == null) {
+      LOGGER.debug("No replayed page for " + request.getHttpMethod() + " " + request.getUrl());
+      data = html(404, "Not Found", "<html><body></body></html>");
+    }
+
+    delay(data.getContentLength());
+    return new WebResponse(data, request, System.currentTimeMillis() - start);
+  }
+
+  @Override
+  public void close() {
+  }
+
+  /**
+   * wait as long as the response would take on configured network
+   * @param length response body length
+   */
+  private void delay(long length) throws InterruptedIOException {
+    long millis = latency + (bandwidth > 0 ? length * 1000 / bandwidth : 0);
+    if (millis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Replayed request interrupted");
+    }
+  }
+
+  /**
+   * create html response
+   * @param status http status code
+   * @param message http status message
+   * @param content html content
+   * @return response data
+   */
+  public static WebResponseData html(int status, String message, String content) {
+    List<NameValuePair> headers = Collections.singletonList(
+      new NameValuePair(HttpHeaders.CONTENT_TYPE, "text/html; charset=UTF-8"));
+    return new WebResponseData(content.getBytes(StandardCharsets.UTF_8), status, message, headers);
+  }
+
+  /**
+   * create html response with status 200
+   * @param content html content
+   * @return response data
+   */
+  public static WebResponseData html(String content) {
+    return html(200, "OK", content);
+  }
+
+  /**
+   * create redirect response
+   * @param location redirect target
+   * @return response data
+   */
+  public static WebResponseData redirect(URL location) {
+    List<NameValuePair> headers = Arrays.asList(
+      new NameValuePair(HttpHeaders.LOCATION, location.toExternalForm()),
+      new NameValuePair(HttpHeaders.CONTENT_TYPE, "text/html; charset=UTF-8"));
+    return new WebResponseData(new byte[0], 302, "Found", headers);
+  }
+}
@@ -0,0 +1,56 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import org.apache.http.HttpHeaders;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Type of resource requested by web client
+ */
+public enum ResourceType {
+  DOCUMENT,
+  SCRIPT,
+  STYLESHEET,
+  IMAGE;
+
+  private static final List<String> SCRIPT_EXTENSIONS = Arrays.asList(".js", ".mjs");
+  private static final List<String> STYLESHEET_EXTENSIONS = Arrays.asList(".css");
+  private static final List<String> IMAGE_EXTENSIONS =
+    Arrays.asList(".png", ".jpg", ".jpeg", ".gif", ".svg", ".webp", ".ico", ".bmp");
+
+  /**
+   * guess resource type of request, from url extension then from accept header
+   * @param request web request
+   * @return resource type, DOCUMENT if unknown
+   */
+  public static ResourceType of(WebRequest request) {
+    String path = request.getUrl().getPath().toLowerCase(Locale.ROOT);
+    if (endsWithAny(path, SCRIPT_EXTENSIONS)) {
+      return SCRIPT;
+    }
+    if (endsWithAny(path, STYLESHEET_EXTENSIONS)) {
+      return STYLESHEET;
+    }
+    if (endsWithAny(path, IMAGE_EXTENSIONS)) {
+      return IMAGE;
+    }
+
+    String accept = request.getAdditionalHeaders().get(HttpHeaders.ACCEPT);
+    if (accept != null) {
+      if (accept.startsWith("text/css")) {
+        return STYLESHEET;
+      }
+      if (accept.startsWith("image/")) {
+        return IMAGE;
+      }
+    }
+    return DOCUMENT;
+  }
+
+  private static boolean endsWithAny(String path, List<String> extensions) {
+    return extensions.stream().anyMatch(path::endsWith);
+  }
+}
@@ -0,0 +1,54 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+
+/**
+ * Connection wrapper keeping state of the session using its web client,
+ * bound when a session borrows the web client and unbound when it is released
+ */
+public interface SessionBoundConnection {
+
+  /**
+   * bind connection to a session
+   * @param site site name
+   * @param account account username
+   */
+  void bind(String site, String account);
+
+  /**
+   * unbind connection from last session
+   */
+  void unbind();
+
+  /**
+   * bind every session bound connection of web client, looking through connection wrappers
+   * @param webClient web client
+   * @param site site name
+   * @param account account username
+   */
+  static void bindAll(WebClient webClient, String site, String account) {
+    WebConnection connection = webClient.getWebConnection();
+    while (connection instanceof WebConnectionWrapper) {
+      if (connection instanceof SessionBoundConnection) {
+        ((SessionBoundConnection) connection).bind(site, account);
+      }
+      connection = ((WebConnectionWrapper) connection).getWrappedWebConnection();
+    }
+  }
+
+  /**
+   * unbind every session bound connection of web client
+   * @param webClient web client
+   */
+  static void unbindAll(WebClient webClient) {
+    WebConnection connection = webClient.getWebConnection();
+    while (connection instanceof WebConnectionWrapper) {
+      if (connection instanceof SessionBoundConnection) {
+        ((SessionBoundConnection) connection).unbind();
+      }
+      connection = ((WebConnectionWrapper) connection).getWrappedWebConnection();
+    }
+  }
+}
@@ -2,21 +2,30 @@ package com.topcoder.scraper.converter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.topcoder.scraper.model.PurchaseHistory;
 
 import javax.persistence.AttributeConverter;
 import javax.persistence.Converter;
 import java.io.IOException;
+import java.io.Reader;
 
 @Converter(autoApply = true)
 public class JpaConverterJson implements AttributeConverter<PurchaseHistory, String> {
 
     private final static ObjectMapper OB = new ObjectMapper();
 
+    /**
+     * Reader and writer are built once, they are immutable and shared by all threads
+     */
+    private final static ObjectReader READER = OB.readerFor(PurchaseHistory.class);
+    private final static ObjectWriter WRITER = OB.writerFor(PurchaseHistory.class);
+
     @Override
     public String convertToDatabaseColumn(PurchaseHistory meta) {
         try {
-            return OB.writeValueAsString(meta);
+            return WRITER.writeValueAsString(meta);
         } catch (JsonProcessingException ex) {
             return null;
         }
@@ -25,7 +34,20 @@ public class JpaConverterJson implements AttributeConverter<PurchaseHistory, Str
     @Override
     public PurchaseHistory convertToEntityAttribute(String dbData) {
         try {
-            return OB.readValue(dbData, PurchaseHistory.class);
+            return READER.readValue(dbData);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * parse purchase history from a column reader, without copying column into a String
+     * @param reader json column content
+     * @return purchase history, null if content is not valid
+     */
+    public PurchaseHistory convertToEntityAttribute(Reader reader) {
+        try (Reader in = reader) {
+            return READER.readValue(in);
         } catch (IOException ex) {
             return null;
         }
@@ -0,0 +1,23 @@
+package com.topcoder.scraper.converter;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Stores LocalDate in DATE columns, not supported natively by this Hibernate version
+ */
+@Converter(autoApply = true)
+public class LocalDateConverter implements AttributeConverter<LocalDate, Date> {
+
+    @Override
+    public Date convertToDatabaseColumn(LocalDate date) {
+        return date != null ? Date.valueOf(date) : null;
+    }
+
+    @Override
+    public LocalDate convertToEntityAttribute(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+}
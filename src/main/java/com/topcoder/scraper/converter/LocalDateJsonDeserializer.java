@@ -0,0 +1,31 @@
+package com.topcoder.scraper.converter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.topcoder.scraper.util.DateUtils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads LocalDate from ISO date text,
+ * or from order page text like "March 3, 2018" saved by previous versions.
+ * A date which cannot be parsed is read as null.
+ */
+public class LocalDateJsonDeserializer extends StdScalarDeserializer<LocalDate> {
+
+    public LocalDateJsonDeserializer() {
+        super(LocalDate.class);
+    }
+
+    @Override
+    public LocalDate deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        try {
+            return DateUtils.parseOrderDate(parser.getValueAsString());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
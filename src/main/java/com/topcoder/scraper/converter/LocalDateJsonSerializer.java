@@ -0,0 +1,23 @@
+package com.topcoder.scraper.converter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes LocalDate as ISO date text, like "2018-03-03"
+ */
+public class LocalDateJsonSerializer extends StdSerializer<LocalDate> {
+
+    public LocalDateJsonSerializer() {
+        super(LocalDate.class);
+    }
+
+    @Override
+    public void serialize(LocalDate value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeString(value.toString());
+    }
+}
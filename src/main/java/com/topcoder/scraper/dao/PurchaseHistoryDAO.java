@@ -1,6 +1,7 @@
 package com.topcoder.scraper.dao;
 
 import com.topcoder.scraper.converter.JpaConverterJson;
+import com.topcoder.scraper.converter.LocalDateConverter;
 import com.topcoder.scraper.model.PurchaseHistory;
 
 import javax.persistence.Column;
@@ -10,6 +11,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import java.time.LocalDate;
 
 @Entity
 @Table(name = "purchase_history")
@@ -22,6 +24,31 @@ public class PurchaseHistoryDAO {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
+    /**
+     * Site name
+     */
+    @Column(name = "site")
+    private String site;
+
+    /**
+     * Account username
+     */
+    @Column(name = "account")
+    private String account;
+
+    /**
+     * Order number, copied from json for indexed lookup
+     */
+    @Column(name = "order_number")
+    private String orderNumber;
+
+    /**
+     * Order date, copied from json for indexed lookup
+     */
+    @Column(name = "order_date")
+    @Convert(converter = LocalDateConverter.class)
+    private LocalDate orderDate;
+
     /**
      * Purchase history as json
      */
@@ -29,7 +56,11 @@ public class PurchaseHistoryDAO {
     @Convert(converter = JpaConverterJson.class)
     private PurchaseHistory purchaseHistory;
 
-    public PurchaseHistoryDAO(PurchaseHistory purchaseHistory) {
+    public PurchaseHistoryDAO(String site, String account, PurchaseHistory purchaseHistory) {
+        this.site = site;
+        this.account = account;
+        this.orderNumber = purchaseHistory.getOrderNumber();
+        this.orderDate = purchaseHistory.getOrderDate();
         this.purchaseHistory = purchaseHistory;
     }
 
@@ -40,6 +71,22 @@ public class PurchaseHistoryDAO {
         this.id = id;
     }
 
+    public void setSite(String site) {
+        this.site = site;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    public void setOrderNumber(String orderNumber) {
+        this.orderNumber = orderNumber;
+    }
+
+    public void setOrderDate(LocalDate orderDate) {
+        this.orderDate = orderDate;
+    }
+
     public void setPurchaseHistory(PurchaseHistory purchaseHistory) {
         this.purchaseHistory = purchaseHistory;
     }
@@ -48,6 +95,22 @@ public class PurchaseHistoryDAO {
         return id;
     }
 
+    public String getSite() {
+        return site;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
     public PurchaseHistory getPurchaseHistory() {
         return purchaseHistory;
     }
@@ -0,0 +1,115 @@
+package com.topcoder.scraper.dao;
+
+import com.topcoder.scraper.converter.LocalDateConverter;
+import com.topcoder.scraper.model.ScrapeCheckpoint;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "scrape_checkpoint")
+public class ScrapeCheckpointDAO {
+
+    /**
+     * Checkpoint id
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    /**
+     * Site name
+     */
+    @Column(name = "site")
+    private String site;
+
+    /**
+     * Account username
+     */
+    @Column(name = "account")
+    private String account;
+
+    /**
+     * Time period filter of last written page
+     */
+    @Column(name = "period")
+    private String period;
+
+    /**
+     * Url of last written page
+     */
+    @Column(name = "cursor_url")
+    private String cursor;
+
+    /**
+     * Number of orders written so far
+     */
+    @Column(name = "orders")
+    private int orders;
+
+    /**
+     * Order number of last written order
+     */
+    @Column(name = "last_order_number")
+    private String lastOrderNumber;
+
+    /**
+     * Order date of last written order
+     */
+    @Column(name = "last_order_date")
+    @Convert(converter = LocalDateConverter.class)
+    private LocalDate lastOrderDate;
+
+    /**
+     * Time of last update in epoch milliseconds
+     */
+    @Column(name = "updated_at")
+    private long updatedAt;
+
+    public ScrapeCheckpointDAO() {
+    }
+
+    /**
+     * copy checkpoint into this row
+     * @param checkpoint checkpoint to be stored
+     */
+    public void update(ScrapeCheckpoint checkpoint) {
+        this.site = checkpoint.getSite();
+        this.account = checkpoint.getAccount();
+        this.period = checkpoint.getPeriod();
+        this.cursor = checkpoint.getCursor();
+        this.orders = checkpoint.getOrders();
+        this.lastOrderNumber = checkpoint.getLastOrderNumber();
+        this.lastOrderDate = checkpoint.getLastOrderDate();
+        this.updatedAt = checkpoint.getUpdatedAt();
+    }
+
+    /**
+     * get checkpoint stored in this row
+     * @return checkpoint
+     */
+    public ScrapeCheckpoint toCheckpoint() {
+        ScrapeCheckpoint checkpoint = new ScrapeCheckpoint(site, account);
+        checkpoint.setPeriod(period);
+        checkpoint.setCursor(cursor);
+        checkpoint.setOrders(orders);
+        checkpoint.setLastOrderNumber(lastOrderNumber);
+        checkpoint.setLastOrderDate(lastOrderDate);
+        checkpoint.setUpdatedAt(updatedAt);
+        return checkpoint;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+}
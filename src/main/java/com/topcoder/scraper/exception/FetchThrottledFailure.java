@@ -0,0 +1,11 @@
+package com.topcoder.scraper.exception;
+
+/**
+ * Page request still throttled after all retries
+ */
+public class FetchThrottledFailure extends RuntimeException {
+
+  public FetchThrottledFailure(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,121 @@
+package com.topcoder.scraper.fetcher;
+
+import com.gargoylesoftware.css.parser.CSSErrorHandler;
+import com.gargoylesoftware.css.parser.CSSException;
+import com.gargoylesoftware.css.parser.CSSOMParser;
+import com.gargoylesoftware.css.parser.CSSParseException;
+import com.gargoylesoftware.css.parser.InputSource;
+import com.gargoylesoftware.css.parser.javacc.CSS3Parser;
+import com.gargoylesoftware.css.parser.selector.SelectorList;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.jsoup.select.Selector;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Css selector parsed once and reused.
+ *
+ * Selectors are parsed for HtmlUnit and for jsoup on first use by each of them,
+ * parsed selectors are immutable and shared by all threads.
+ * {@link #of(String)} keeps one instance per selector text.
+ */
+public final class CompiledSelector {
+
+  private static final ConcurrentMap<String, CompiledSelector> CACHE = new ConcurrentHashMap<>();
+
+  private final String css;
+  private volatile SelectorList htmlUnitSelector;
+  private volatile Evaluator jsoupSelector;
+
+  private CompiledSelector(String css) {
+    this.css = css;
+  }
+
+  /**
+   * get compiled selector of a css selector text
+   * @param css css selector
+   * @return compiled selector, same instance for same text
+   */
+  public static CompiledSelector of(String css) {
+    return CACHE.computeIfAbsent(css, CompiledSelector::new);
+  }
+
+  public String getCss() {
+    return css;
+  }
+
+  /**
+   * @return selector parsed by HtmlUnit css parser
+   * @throws IllegalArgumentException if selector is not valid
+   */
+  SelectorList htmlUnit() {
+    SelectorList selector = htmlUnitSelector;
+    if (selector == null) {
+      CSSOMParser parser = new CSSOMParser(new CSS3Parser());
+      parser.setErrorHandler(new FailingErrorHandler());
+      try {
+        selector = parser.parseSelectors(new InputSource(new StringReader(css)));
+      } catch (IOException | CSSException e) {
+        throw new IllegalArgumentException("Invalid selector: " + css, e);
+      }
+      if (selector == null) {
+        throw new IllegalArgumentException("Invalid selector: " + css);
+      }
+      htmlUnitSelector = selector;
+    }
+    return selector;
+  }
+
+  /**
+   * @return selector parsed by jsoup
+   */
+  Evaluator jsoup() {
+    Evaluator selector = jsoupSelector;
+    if (selector == null) {
+      selector = QueryParser.parse(css);
+      jsoupSelector = selector;
+    }
+    return selector;
+  }
+
+  /**
+   * parse selector for both HtmlUnit and jsoup now, instead of on first use
+   * @throws IllegalArgumentException if selector is not valid
+   */
+  public void validate() {
+    htmlUnit();
+    try {
+      jsoup();
+    } catch (Selector.SelectorParseException e) {
+      throw new IllegalArgumentException("Invalid selector: " + css, e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return css;
+  }
+
+  /**
+   * Turns css parser errors into exceptions, parser only reports them by default
+   */
+  private static class FailingErrorHandler implements CSSErrorHandler {
+    @Override
+    public void warning(CSSParseException exception) {
+    }
+
+    @Override
+    public void error(CSSParseException exception) {
+      throw exception;
+    }
+
+    @Override
+    public void fatalError(CSSParseException exception) {
+      throw exception;
+    }
+  }
+}
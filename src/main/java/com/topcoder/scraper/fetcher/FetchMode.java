@@ -0,0 +1,16 @@
+package com.topcoder.scraper.fetcher;
+
+/**
+ * How a module fetches pages
+ */
+public enum FetchMode {
+  /**
+   * full browser emulation, with javascript and css
+   */
+  HTMLUNIT,
+
+  /**
+   * plain http requests with session cookies, parsed as static html
+   */
+  HTTP
+}
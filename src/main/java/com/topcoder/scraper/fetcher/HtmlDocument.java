@@ -0,0 +1,67 @@
+package com.topcoder.scraper.fetcher;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.function.Supplier;
+
+/**
+ * A fetched html page
+ */
+public class HtmlDocument implements AutoCloseable {
+
+  /**
+   * Represents page url
+   */
+  private final URL url;
+
+  /**
+   * Represents root node of the page
+   */
+  private final HtmlNode root;
+
+  /**
+   * Provides raw page content, only read when page is saved
+   */
+  private final Supplier<String> content;
+
+  /**
+   * Releases resources held by the page
+   */
+  private final Runnable release;
+
+  public HtmlDocument(URL url, HtmlNode root, Supplier<String> content, Runnable release) {
+    this.url = url;
+    this.root = root;
+    this.content = content;
+    this.release = release;
+  }
+
+  public URL getUrl() {
+    return url;
+  }
+
+  public HtmlNode getRoot() {
+    return root;
+  }
+
+  public String getContent() {
+    return content.get();
+  }
+
+  /**
+   * resolve a link of this page
+   * @param href link, absolute or relative to this page
+   * @return absolute url
+   */
+  public URL resolve(String href) throws MalformedURLException {
+    return new URL(url, href);
+  }
+
+  /**
+   * release page, it should not be used anymore
+   */
+  @Override
+  public void close() {
+    release.run();
+  }
+}
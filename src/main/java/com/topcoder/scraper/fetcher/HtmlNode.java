@@ -0,0 +1,78 @@
+package com.topcoder.scraper.fetcher;
+
+import java.util.List;
+
+/**
+ * Read only view of an html element,
+ * so that pages can be parsed the same way whichever parser loaded them
+ */
+public interface HtmlNode {
+  /**
+   * find first descendant matching css selector
+   * @param selector css selector
+   * @return matching node, null if not found
+   */
+  default HtmlNode selectFirst(String selector) {
+    return selectFirst(CompiledSelector.of(selector));
+  }
+
+  /**
+   * find all descendants matching css selector
+   * @param selector css selector
+   * @return matching nodes in document order
+   */
+  default List<HtmlNode> selectAll(String selector) {
+    return selectAll(CompiledSelector.of(selector));
+  }
+
+  /**
+   * find first descendant matching compiled selector
+   * @param selector compiled selector
+   * @return matching node, null if not found
+   */
+  HtmlNode selectFirst(CompiledSelector selector);
+
+  /**
+   * find all descendants matching compiled selector
+   * @param selector compiled selector
+   * @return matching nodes in document order
+   */
+  List<HtmlNode> selectAll(CompiledSelector selector);
+
+  /**
+   * check if this element matches a selector, as it would be found by selectFirst of scope
+   * @param selector compiled selector
+   * @param scope element the selector is relative to, an ancestor of this element
+   * @return true if matching
+   */
+  boolean matches(CompiledSelector selector, HtmlNode scope);
+
+  /**
+   * visit this element and all descendant elements once, in document order
+   * @param visitor element visitor
+   */
+  void traverse(Visitor visitor);
+
+  /**
+   * get trimmed text content
+   * @return text content
+   */
+  String text();
+
+  /**
+   * get attribute value
+   * @param name attribute name
+   * @return attribute value, null if attribute is not present
+   */
+  String attr(String name);
+
+  /**
+   * Visits elements of a subtree, an element is exited after all its descendants
+   */
+  interface Visitor {
+    void enter(HtmlNode element);
+
+    default void exit(HtmlNode element) {
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.topcoder.scraper.fetcher;
+
+import com.gargoylesoftware.css.parser.selector.Selector;
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.gargoylesoftware.htmlunit.html.DomElement;
+import com.gargoylesoftware.htmlunit.html.DomNode;
+import com.gargoylesoftware.htmlunit.javascript.host.css.CSSStyleSheet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HtmlNode backed by HtmlUnit dom node.
+ *
+ * Compiled selectors are matched with HtmlUnit selector matching,
+ * the same way as querySelector but without parsing selector on each call.
+ */
+public class HtmlUnitNode implements HtmlNode {
+
+  private final DomNode node;
+
+  public HtmlUnitNode(DomNode node) {
+    this.node = node;
+  }
+
+  @Override
+  public HtmlNode selectFirst(CompiledSelector selector) {
+    BrowserVersion browserVersion = browserVersion();
+    for (DomElement element : node.getDomElementDescendants()) {
+      if (matches(browserVersion, selector, element)) {
+        return new HtmlUnitNode(element);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public List<HtmlNode> selectAll(CompiledSelector selector) {
+    BrowserVersion browserVersion = browserVersion();
+    List<HtmlNode> result = new ArrayList<>();
+    for (DomElement element : node.getDomElementDescendants()) {
+      if (matches(browserVersion, selector, element)) {
+        result.add(new HtmlUnitNode(element));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * match this element, querySelector matches selectors against the whole document so scope is not used
+   */
+  @Override
+  public boolean matches(CompiledSelector selector, HtmlNode scope) {
+    return node instanceof DomElement && matches(browserVersion(), selector, (DomElement) node);
+  }
+
+  @Override
+  public void traverse(Visitor visitor) {
+    traverse(node, visitor);
+  }
+
+  @Override
+  public String text() {
+    return node.getTextContent().trim();
+  }
+
+  @Override
+  public String attr(String name) {
+    if (node instanceof DomElement && ((DomElement) node).hasAttribute(name)) {
+      return ((DomElement) node).getAttribute(name);
+    }
+    return null;
+  }
+
+  public DomNode getNode() {
+    return node;
+  }
+
+  private BrowserVersion browserVersion() {
+    return node.getPage().getWebClient().getBrowserVersion();
+  }
+
+  private static boolean matches(BrowserVersion browserVersion, CompiledSelector selector, DomElement element) {
+    for (Selector s : selector.htmlUnit()) {
+      if (CSSStyleSheet.selects(browserVersion, s, element, null, true)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void traverse(DomNode node, Visitor visitor) {
+    HtmlUnitNode element = new HtmlUnitNode(node);
+    visitor.enter(element);
+    for (DomNode child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof DomElement) {
+        traverse(child, visitor);
+      }
+    }
+    visitor.exit(element);
+  }
+}
@@ -0,0 +1,112 @@
+package com.topcoder.scraper.fetcher;
+
+import com.gargoylesoftware.htmlunit.TopLevelWindow;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebWindow;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PageFetcher running pages in HtmlUnit web client.
+ *
+ * Every page is opened in its own window, so a page being parsed is not replaced by next one,
+ * the window is closed with the page, which releases its DOM and stops its javascript.
+ * After loading, background javascript of page is waited for at most the configured time,
+ * then remaining javascript jobs of the page are removed, page is only read from then on.
+ * Windows of pages still open are closed with the fetcher.
+ *
+ * Web client is only used by the thread fetching pages, pages are read by other threads once loaded.
+ * A page released by another thread has its window closed by next fetch, or when fetcher is closed
+ * once no page is fetched anymore.
+ */
+public class HtmlUnitPageFetcher implements PageFetcher {
+
+  private static final String WINDOW_NAME_PREFIX = "fetcher-";
+  private static final AtomicLong WINDOW_COUNTER = new AtomicLong();
+
+  private final WebClient webClient;
+  private final long backgroundJavascriptWait;
+
+  /**
+   * Windows of pages not closed yet
+   */
+  private final Set<WebWindow> windows = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Windows of released pages, closed by fetching thread
+   */
+  private final Queue<WebWindow> released = new ConcurrentLinkedQueue<>();
+
+  public HtmlUnitPageFetcher(WebClient webClient, long backgroundJavascriptWait) {
+    this.webClient = webClient;
+    this.backgroundJavascriptWait = backgroundJavascriptWait;
+  }
+
+  @Override
+  public HtmlDocument fetch(URL url) throws IOException {
+    closeReleased();
+    WebWindow window = openWindow();
+    try {
+      HtmlPage page = webClient.getPage(window, new WebRequest(url));
+      if (backgroundJavascriptWait > 0) {
+        webClient.waitForBackgroundJavaScript(backgroundJavascriptWait);
+      }
+      window.getJobManager().removeAllJobs();
+      return new HtmlDocument(
+        page.getUrl(),
+        new HtmlUnitNode(page),
+        () -> page.getWebResponse().getContentAsString(),
+        () -> released.add(window));
+    } catch (IOException | RuntimeException e) {
+      close(window);
+      throw e;
+    }
+  }
+
+  /**
+   * close windows of pages which were not closed
+   */
+  @Override
+  public void close() {
+    released.clear();
+    windows.forEach(this::close);
+  }
+
+  /**
+   * open a window for next page
+   * @return new window
+   */
+  private WebWindow openWindow() {
+    WebWindow window = webClient.openWindow(null, WINDOW_NAME_PREFIX + WINDOW_COUNTER.incrementAndGet());
+    windows.add(window);
+    if (window instanceof TopLevelWindow) {
+      // opener is the current window, usually the previous page: once closed, it would be kept by this one
+      ((TopLevelWindow) window).setOpener(null);
+    }
+    return window;
+  }
+
+  /**
+   * close windows of pages released since last fetch
+   */
+  private void closeReleased() {
+    WebWindow window;
+    while ((window = released.poll()) != null) {
+      close(window);
+    }
+  }
+
+  private void close(WebWindow window) {
+    if (windows.remove(window) && window instanceof TopLevelWindow) {
+      ((TopLevelWindow) window).close();
+    }
+  }
+}
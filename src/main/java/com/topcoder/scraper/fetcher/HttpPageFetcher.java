@@ -0,0 +1,50 @@
+package com.topcoder.scraper.fetcher;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import org.apache.http.HttpHeaders;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * PageFetcher using plain http requests, pages are parsed as static html without running scripts.
+ *
+ * Requests go through the web connection of the authenticated web client, so they belong to the same session
+ * and pass its connection wrappers, e.g. replay in replay mode. Redirects are followed by the web client.
+ */
+public class HttpPageFetcher implements PageFetcher {
+
+  private final WebClient webClient;
+
+  public HttpPageFetcher(WebClient webClient) {
+    this.webClient = webClient;
+  }
+
+  @Override
+  public HtmlDocument fetch(URL url) throws IOException {
+    WebRequest request = new WebRequest(url);
+    request.setAdditionalHeader(HttpHeaders.ACCEPT, "text/html,application/xhtml+xml");
+
+    WebResponse response = webClient.loadWebResponse(request);
+    try {
+      String content = response.getContentAsString();
+
+      // links are relative to the url after redirects
+      URL finalUrl = response.getWebRequest().getUrl();
+
+      Document document = Jsoup.parse(content != null ? content : "", finalUrl.toString());
+      return new HtmlDocument(finalUrl, new JsoupNode(document), () -> content, () -> { });
+    } finally {
+      response.cleanUp();
+    }
+  }
+
+  @Override
+  public void close() {
+    // connection belongs to web client
+  }
+}
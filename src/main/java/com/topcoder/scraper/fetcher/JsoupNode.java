@@ -0,0 +1,67 @@
+package com.topcoder.scraper.fetcher;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * HtmlNode backed by jsoup element
+ */
+public class JsoupNode implements HtmlNode {
+
+  private final Element element;
+
+  public JsoupNode(Element element) {
+    this.element = element;
+  }
+
+  @Override
+  public HtmlNode selectFirst(CompiledSelector selector) {
+    Element result = Collector.findFirst(selector.jsoup(), element);
+    return result != null ? new JsoupNode(result) : null;
+  }
+
+  @Override
+  public List<HtmlNode> selectAll(CompiledSelector selector) {
+    return Collector.collect(selector.jsoup(), element).stream().map(JsoupNode::new).collect(Collectors.toList());
+  }
+
+  /**
+   * match this element, jsoup selectors are relative to the element they are run from
+   */
+  @Override
+  public boolean matches(CompiledSelector selector, HtmlNode scope) {
+    Element root = scope instanceof JsoupNode ? ((JsoupNode) scope).element : element.ownerDocument();
+    return selector.jsoup().matches(root != null ? root : element, element);
+  }
+
+  @Override
+  public void traverse(Visitor visitor) {
+    traverse(element, visitor);
+  }
+
+  @Override
+  public String text() {
+    return element.text().trim();
+  }
+
+  @Override
+  public String attr(String name) {
+    return element.hasAttr(name) ? element.attr(name) : null;
+  }
+
+  public Element getElement() {
+    return element;
+  }
+
+  private static void traverse(Element element, Visitor visitor) {
+    JsoupNode node = new JsoupNode(element);
+    visitor.enter(node);
+    for (Element child : element.children()) {
+      traverse(child, visitor);
+    }
+    visitor.exit(node);
+  }
+}
@@ -0,0 +1,22 @@
+package com.topcoder.scraper.fetcher;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Fetches html pages within a scrape session
+ */
+public interface PageFetcher extends AutoCloseable {
+  /**
+   * fetch a page
+   * @param url page url
+   * @return fetched page, to be closed when no longer used
+   */
+  HtmlDocument fetch(URL url) throws IOException;
+
+  /**
+   * release resources of this fetcher
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,53 @@
+package com.topcoder.scraper.metrics;
+
+import com.topcoder.scraper.config.MetricsProperty;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes all meters to a file in prometheus text format,
+ * so a node exporter textfile collector or a pushgateway script can pick them up
+ */
+@Component
+public class MetricsFileExporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricsFileExporter.class);
+
+  private final MetricsProperty property;
+  private final PrometheusMeterRegistry registry;
+
+  @Autowired
+  public MetricsFileExporter(MetricsProperty property, PrometheusMeterRegistry registry) {
+    this.property = property;
+    this.registry = registry;
+  }
+
+  /**
+   * replace metrics file with current meters, nothing is written if no file is configured
+   */
+  public void write() {
+    if (property.getFile() == null || property.getFile().isEmpty()) {
+      return;
+    }
+
+    Path file = Paths.get(property.getFile()).toAbsolutePath();
+    try {
+      Files.createDirectories(file.getParent());
+      Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      Files.write(temp, registry.scrape().getBytes(StandardCharsets.UTF_8));
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Fail to write metrics to " + file, e);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.topcoder.scraper.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Snapshot of pages, orders and bytes fetched so far, read from scraper meters.
+ * Difference of two snapshots summarizes one run.
+ */
+public class RunSummary {
+
+  private final long nanos;
+  private final long pages;
+  private final double orders;
+  private final double bytes;
+
+  private RunSummary(long nanos, long pages, double orders, double bytes) {
+    this.nanos = nanos;
+    this.pages = pages;
+    this.orders = orders;
+    this.bytes = bytes;
+  }
+
+  /**
+   * read scraper meters of all sites and accounts
+   * @param registry meter registry
+   * @return current snapshot
+   */
+  public static RunSummary snapshot(MeterRegistry registry) {
+    return new RunSummary(
+      System.nanoTime(),
+      registry.find(ScrapeMetrics.PAGE_FETCH).timers().stream().mapToLong(Timer::count).sum(),
+      registry.find(ScrapeMetrics.ORDERS).counters().stream().mapToDouble(Counter::count).sum(),
+      registry.find(ScrapeMetrics.FETCHED_BYTES).counters().stream().mapToDouble(Counter::count).sum());
+  }
+
+  /**
+   * get run since an earlier snapshot
+   * @param before snapshot at start of run
+   * @return summary of run
+   */
+  public RunSummary since(RunSummary before) {
+    return new RunSummary(nanos - before.nanos, pages - before.pages, orders - before.orders, bytes - before.bytes);
+  }
+
+  public long getPages() {
+    return pages;
+  }
+
+  public long getOrders() {
+    return (long) orders;
+  }
+
+  public long getBytes() {
+    return (long) bytes;
+  }
+
+  /**
+   * get duration of run
+   * @return seconds
+   */
+  public double getSeconds() {
+    return nanos / 1e9;
+  }
+
+  @Override
+  public String toString() {
+    double seconds = Math.max(getSeconds(), 1e-3);
+    return String.format("%d pages (%.2f pages/s), %d orders (%.2f orders/s), %d bytes fetched in %.1f s",
+      getPages(), pages / seconds, getOrders(), orders / seconds, getBytes(), getSeconds());
+  }
+}
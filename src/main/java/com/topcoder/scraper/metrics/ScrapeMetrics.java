@@ -0,0 +1,130 @@
+package com.topcoder.scraper.metrics;
+
+import com.topcoder.scraper.session.ScrapeSession;
+import com.topcoder.scraper.session.ScrapeSessionHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scraper meters, tagged by site and account.
+ *
+ * Meters are registered in {@link Metrics#globalRegistry},
+ * which exports them through the registry of {@link com.topcoder.scraper.config.MetricsConfig}.
+ * An instance holds the page and order meters of one session, so they are looked up once per run.
+ */
+public class ScrapeMetrics {
+
+  public static final String COMMAND = "scraper.command";
+  public static final String PAGE_FETCH = "scraper.page.fetch";
+  public static final String PAGE_PARSE = "scraper.page.parse";
+  public static final String ORDER_PARSE = "scraper.order.parse";
+  public static final String ORDERS = "scraper.orders";
+  public static final String REQUESTS = "scraper.requests";
+  public static final String FETCHED_BYTES = "scraper.fetched.bytes";
+  public static final String HTTP_CACHE = "scraper.http.cache";
+  public static final String HTTP_CACHE_SIZE = "scraper.http.cache.size";
+  public static final String THROTTLED = "scraper.fetch.throttled";
+  public static final String FETCH_RATE = "scraper.fetch.rate";
+  public static final String HISTORY_SAVE = "scraper.purchase.history.save";
+  public static final String HISTORY_FETCH_LAST = "scraper.purchase.history.fetch.last";
+  public static final String HISTORY_FIND_STORED = "scraper.purchase.history.find.stored";
+  public static final String WEBPAGE_SAVE = "scraper.webpage.save";
+  public static final String WEBPAGE_DROPPED = "scraper.webpage.dropped";
+
+  /**
+   * Tag value of account when no session is bound
+   */
+  public static final String UNKNOWN = "unknown";
+
+  private final Timer pageFetch;
+  private final Timer pageParse;
+  private final Timer orderParse;
+  private final Counter orders;
+
+  /**
+   * Meters of one session
+   * @param site site name
+   * @param account account username
+   */
+  public ScrapeMetrics(String site, String account) {
+    Tags tags = tags(site, account);
+    this.pageFetch = Metrics.timer(PAGE_FETCH, tags);
+    this.pageParse = Metrics.timer(PAGE_PARSE, tags);
+    this.orderParse = Metrics.timer(ORDER_PARSE, tags);
+    this.orders = Metrics.counter(ORDERS, tags);
+  }
+
+  /**
+   * get tags of a site and account
+   * @param site site name
+   * @param account account username
+   * @return tags
+   */
+  public static Tags tags(String site, String account) {
+    return Tags.of("site", site, "account", account);
+  }
+
+  /**
+   * get tags of a site and account of current session
+   * @param site site name
+   * @return tags, account is unknown if no session is bound to current thread
+   */
+  public static Tags sessionTags(String site) {
+    ScrapeSession session = ScrapeSessionHolder.find();
+    return tags(site, session != null ? session.getAccount().getUsername() : UNKNOWN);
+  }
+
+  /**
+   * get tags of site and account of current session
+   * @return tags, site and account are unknown if no session is bound to current thread
+   */
+  public static Tags sessionTags() {
+    ScrapeSession session = ScrapeSessionHolder.find();
+    return session != null ? tags(session.getSite(), session.getAccount().getUsername()) : tags(UNKNOWN, UNKNOWN);
+  }
+
+  /**
+   * record time of a page fetch, a page parse or an order parse
+   * @param timer timer of this session
+   * @param startNanos start time from {@link System#nanoTime()}
+   */
+  private static void record(Timer timer, long startNanos) {
+    timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * record a page fetched since given time
+   * @param startNanos start time from {@link System#nanoTime()}
+   */
+  public void pageFetched(long startNanos) {
+    record(pageFetch, startNanos);
+  }
+
+  /**
+   * record a page parsed since given time
+   * @param startNanos start time from {@link System#nanoTime()}
+   */
+  public void pageParsed(long startNanos) {
+    record(pageParse, startNanos);
+  }
+
+  /**
+   * record an order parsed since given time
+   * @param startNanos start time from {@link System#nanoTime()}
+   */
+  public void orderParsed(long startNanos) {
+    record(orderParse, startNanos);
+  }
+
+  /**
+   * count new orders
+   * @param count number of new orders
+   */
+  public void newOrders(int count) {
+    orders.increment(count);
+  }
+}
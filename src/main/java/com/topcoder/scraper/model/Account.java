@@ -0,0 +1,41 @@
+package com.topcoder.scraper.model;
+
+/**
+ * Account model, credentials of one user in a site
+ */
+public class Account {
+
+  /**
+   * Represents account username
+   */
+  private String username;
+
+  /**
+   * Represents account password
+   */
+  private String password;
+
+  public Account() {
+  }
+
+  public Account(String username, String password) {
+    this.username = username;
+    this.password = password;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public String getPassword() {
+    return password;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public void setPassword(String password) {
+    this.password = password;
+  }
+}
@@ -0,0 +1,236 @@
+package com.topcoder.scraper.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Money amount in minor units of its currency, e.g. cents.
+ *
+ * Saved in json as text like "12.34 USD",
+ * amounts saved by previous versions like "12.34", "$12.34" or "EUR 12,34" are read as well.
+ */
+public final class Money implements Comparable<Money> {
+
+  /**
+   * Currency used when text has no currency
+   */
+  public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+  /**
+   * Currency symbols, "$" is the dollar of the marketplace
+   */
+  private static final Map<String, Currency> SYMBOLS = new HashMap<>();
+
+  /**
+   * Currency symbol or code, amount, then currency symbol or code
+   */
+  private static final Pattern MONEY = Pattern.compile("([^\\d-]*?)\\s*(-?\\d[\\d.,' ]*?)\\s*([^\\d]*)");
+
+  /**
+   * Number formats of amounts read from json, saved amounts first then amounts saved as shown by a marketplace
+   */
+  private static final List<Locale> JSON_LOCALES = Arrays.asList(Locale.US, Locale.GERMANY);
+
+  static {
+    SYMBOLS.put("US$", Currency.getInstance("USD"));
+    SYMBOLS.put("CDN$", Currency.getInstance("CAD"));
+    SYMBOLS.put("R$", Currency.getInstance("BRL"));
+    SYMBOLS.put("\u20b9", Currency.getInstance("INR"));
+    SYMBOLS.put("\u20ac", Currency.getInstance("EUR"));
+    SYMBOLS.put("\u00a3", Currency.getInstance("GBP"));
+    SYMBOLS.put("\u00a5", Currency.getInstance("JPY"));
+    SYMBOLS.put("\uffe5", Currency.getInstance("JPY"));
+  }
+
+  /**
+   * Represents amount in minor units
+   */
+  private final long amount;
+
+  /**
+   * Represents currency
+   */
+  private final Currency currency;
+
+  private Money(long amount, Currency currency) {
+    this.amount = amount;
+    this.currency = currency;
+  }
+
+  public static Money of(long amount, Currency currency) {
+    return new Money(amount, Objects.requireNonNull(currency));
+  }
+
+  /**
+   * parse money text written with US number format, like "$1,234.56", "1234.56 USD" or "1234.56"
+   * @param text money text
+   * @param defaultCurrency currency if text has neither symbol nor code
+   * @return money, null if text is empty
+   * @throws IllegalArgumentException if text is not a money amount
+   */
+  public static Money parse(String text, Currency defaultCurrency) {
+    return parse(text, defaultCurrency, Locale.US);
+  }
+
+  /**
+   * parse money text shown by a marketplace, like "$1,234.56", "EUR 1.234,56", "12,34 EUR" or "1234.56 USD".
+   * Decimal and grouping separators are the ones of the locale. A group after a grouping separator has 3 digits
+   * (2 between others, for lakh grouping), so "12,34" is not read as 1234 where ',' groups thousands.
+   * @param text money text
+   * @param defaultCurrency currency if text has neither symbol nor code, and of "$" if it is a dollar
+   * @param locale locale of number format
+   * @return money, null if text is empty
+   * @throws IllegalArgumentException if text is not a money amount
+   */
+  public static Money parse(String text, Currency defaultCurrency, Locale locale) {
+    if (text == null || text.trim().isEmpty()) {
+      return null;
+    }
+
+    Matcher matcher = MONEY.matcher(text.replace('\u00a0', ' ').replace('\u202f', ' ').trim());
+    if (!matcher.matches() || (!matcher.group(1).isEmpty() && !matcher.group(3).isEmpty())) {
+      throw new IllegalArgumentException("Invalid money amount: " + text);
+    }
+    String marker = matcher.group(1).isEmpty() ? matcher.group(3) : matcher.group(1);
+    Currency currency = marker.isEmpty() ? defaultCurrency : currency(marker, defaultCurrency, locale, text);
+
+    try {
+      BigDecimal decimal = number(matcher.group(2), locale, text);
+      int digits = Math.max(0, currency.getDefaultFractionDigits());
+      return new Money(decimal.setScale(digits, RoundingMode.HALF_UP).unscaledValue().longValueExact(), currency);
+    } catch (ArithmeticException | NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid money amount: " + text, e);
+    }
+  }
+
+  /**
+   * get currency of a locale, like EUR for de-DE
+   * @param locale locale with a country
+   * @return currency of country, default currency if locale has no country or country has no currency
+   */
+  public static Currency currencyOf(Locale locale) {
+    try {
+      Currency currency = Currency.getInstance(locale);
+      return currency != null ? currency : DEFAULT_CURRENCY;
+    } catch (IllegalArgumentException e) {
+      return DEFAULT_CURRENCY;
+    }
+  }
+
+  /**
+   * read money from json text, an invalid amount is read as null.
+   * Amounts saved as shown by a comma decimal marketplace, like "EUR 12,34", are read as well
+   */
+  @JsonCreator
+  public static Money fromJson(String text) {
+    for (Locale locale : JSON_LOCALES) {
+      try {
+        return parse(text, DEFAULT_CURRENCY, locale);
+      } catch (IllegalArgumentException e) {
+        // try next number format
+      }
+    }
+    return null;
+  }
+
+  private static Currency currency(String marker, Currency defaultCurrency, Locale locale, String text) {
+    if (marker.equals("$")) {
+      return defaultCurrency.getSymbol(locale).endsWith("$") ? defaultCurrency : DEFAULT_CURRENCY;
+    }
+    if (SYMBOLS.containsKey(marker)) {
+      return SYMBOLS.get(marker);
+    }
+    if (marker.matches("[A-Z]{3}")) {
+      return Currency.getInstance(marker);
+    }
+    throw new IllegalArgumentException("Unknown currency of money amount: " + text);
+  }
+
+  /**
+   * parse amount with decimal and grouping separators of a locale
+   */
+  private static BigDecimal number(String value, Locale locale, String text) {
+    DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+    char decimal = symbols.getMonetaryDecimalSeparator();
+    char grouping = Character.isSpaceChar(symbols.getGroupingSeparator()) ? ' ' : symbols.getGroupingSeparator();
+
+    boolean negative = value.startsWith("-");
+    String unsigned = negative ? value.substring(1) : value;
+    int point = unsigned.lastIndexOf(decimal);
+    String integer = point >= 0 ? unsigned.substring(0, point) : unsigned;
+    String fraction = point >= 0 ? unsigned.substring(point + 1) : "";
+
+    String[] groups = integer.split(Pattern.quote(String.valueOf(grouping)), -1);
+    boolean valid = !fraction.isEmpty() || point < 0;
+    for (int i = 0; i < groups.length && valid; i++) {
+      int length = groups[i].length();
+      valid = groups[i].chars().allMatch(Character::isDigit) && length > 0
+        && (groups.length == 1 || (i == 0 ? length <= 3 : i == groups.length - 1 ? length == 3 : length >= 2 && length <= 3));
+    }
+    if (!valid || !fraction.chars().allMatch(Character::isDigit)) {
+      throw new IllegalArgumentException("Invalid money amount for locale " + locale + ": " + text);
+    }
+    BigDecimal amount = new BigDecimal(String.join("", groups) + (fraction.isEmpty() ? "" : "." + fraction));
+    return negative ? amount.negate() : amount;
+  }
+
+  public long getAmount() {
+    return amount;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  /**
+   * @return amount as decimal number of currency units
+   */
+  public BigDecimal toDecimal() {
+    return BigDecimal.valueOf(amount, Math.max(0, currency.getDefaultFractionDigits()));
+  }
+
+  /**
+   * compare amounts, money of different currencies is ordered by currency code first
+   */
+  @Override
+  public int compareTo(Money other) {
+    int result = currency.getCurrencyCode().compareTo(other.currency.getCurrencyCode());
+    return result != 0 ? result : Long.compare(amount, other.amount);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Money)) {
+      return false;
+    }
+    Money money = (Money) o;
+    return amount == money.amount && currency.equals(money.currency);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(amount, currency);
+  }
+
+  @JsonValue
+  @Override
+  public String toString() {
+    return toDecimal().toPlainString() + " " + currency.getCurrencyCode();
+  }
+}
@@ -13,12 +13,12 @@ public class ProductInfo {
   /**
    * Represents product price
    */
-  private String price;
+  private Money price;
 
   /**
    * Represents product quantity
    */
-  private String quantity;
+  private int quantity;
 
   /**
    * Represents product distributor
@@ -28,7 +28,7 @@ public class ProductInfo {
   public ProductInfo() {
   }
 
-  public ProductInfo(String name, String price, String quantity, String distributor) {
+  public ProductInfo(String name, Money price, int quantity, String distributor) {
     this.name = name;
     this.price = price;
     this.quantity = quantity;
@@ -39,11 +39,11 @@ public class ProductInfo {
     return name;
   }
 
-  public String getPrice() {
+  public Money getPrice() {
     return price;
   }
 
-  public String getQuantity() {
+  public int getQuantity() {
     return quantity;
   }
 
@@ -55,11 +55,11 @@ public class ProductInfo {
     this.name = name;
   }
 
-  public void setPrice(String price) {
+  public void setPrice(Money price) {
     this.price = price;
   }
 
-  public void setQuantity(String quantity) {
+  public void setQuantity(int quantity) {
     this.quantity = quantity;
   }
 
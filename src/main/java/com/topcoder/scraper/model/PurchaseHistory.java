@@ -1,5 +1,11 @@
 package com.topcoder.scraper.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.topcoder.scraper.converter.LocalDateJsonDeserializer;
+import com.topcoder.scraper.converter.LocalDateJsonSerializer;
+
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -15,12 +21,14 @@ public class PurchaseHistory {
   /**
    * Represents order date
    */
-  private String orderDate;
+  @JsonSerialize(using = LocalDateJsonSerializer.class)
+  @JsonDeserialize(using = LocalDateJsonDeserializer.class)
+  private LocalDate orderDate;
 
   /**
    * Represents order total amount
    */
-  private String totalAmount;
+  private Money totalAmount;
 
   /**
    * Represents list of ProductInfo
@@ -36,7 +44,7 @@ public class PurchaseHistory {
   public PurchaseHistory() {
   }
 
-  public PurchaseHistory(String orderNumber, String orderDate, String totalAmount, List<ProductInfo> products, String deliveryStatus) {
+  public PurchaseHistory(String orderNumber, LocalDate orderDate, Money totalAmount, List<ProductInfo> products, String deliveryStatus) {
     this.orderNumber = orderNumber;
     this.orderDate = orderDate;
     this.totalAmount = totalAmount;
@@ -48,11 +56,11 @@ public class PurchaseHistory {
     return orderNumber;
   }
 
-  public String getOrderDate() {
+  public LocalDate getOrderDate() {
     return orderDate;
   }
 
-  public String getTotalAmount() {
+  public Money getTotalAmount() {
     return totalAmount;
   }
 
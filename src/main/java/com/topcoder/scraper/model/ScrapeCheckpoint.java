@@ -0,0 +1,130 @@
+package com.topcoder.scraper.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.topcoder.scraper.converter.LocalDateJsonDeserializer;
+import com.topcoder.scraper.converter.LocalDateJsonSerializer;
+
+import java.time.LocalDate;
+
+/**
+ * Scrape Checkpoint model, progress of an unfinished purchase history run of an account
+ */
+public class ScrapeCheckpoint {
+
+  /**
+   * Represents site name
+   */
+  private String site;
+
+  /**
+   * Represents account username
+   */
+  private String account;
+
+  /**
+   * Represents time period filter of last written page, e.g. "year-2017",
+   * or last written time period of a backfill fetching time periods in parallel
+   */
+  private String period;
+
+  /**
+   * Represents url of last written page, run resumes from it.
+   * Null for a backfill fetching time periods in parallel, it resumes after last written time period
+   */
+  private String cursor;
+
+  /**
+   * Represents number of orders written so far by the run
+   */
+  private int orders;
+
+  /**
+   * Represents order number of last written order, orders up to it are skipped when run resumes
+   */
+  private String lastOrderNumber;
+
+  /**
+   * Represents order date of last written order
+   */
+  @JsonSerialize(using = LocalDateJsonSerializer.class)
+  @JsonDeserialize(using = LocalDateJsonDeserializer.class)
+  private LocalDate lastOrderDate;
+
+  /**
+   * Represents time of last update in epoch milliseconds
+   */
+  private long updatedAt;
+
+  public ScrapeCheckpoint() {
+  }
+
+  public ScrapeCheckpoint(String site, String account) {
+    this.site = site;
+    this.account = account;
+  }
+
+  public String getSite() {
+    return site;
+  }
+
+  public String getAccount() {
+    return account;
+  }
+
+  public String getPeriod() {
+    return period;
+  }
+
+  public String getCursor() {
+    return cursor;
+  }
+
+  public int getOrders() {
+    return orders;
+  }
+
+  public String getLastOrderNumber() {
+    return lastOrderNumber;
+  }
+
+  public LocalDate getLastOrderDate() {
+    return lastOrderDate;
+  }
+
+  public long getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setSite(String site) {
+    this.site = site;
+  }
+
+  public void setAccount(String account) {
+    this.account = account;
+  }
+
+  public void setPeriod(String period) {
+    this.period = period;
+  }
+
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
+  public void setOrders(int orders) {
+    this.orders = orders;
+  }
+
+  public void setLastOrderNumber(String lastOrderNumber) {
+    this.lastOrderNumber = lastOrderNumber;
+  }
+
+  public void setLastOrderDate(LocalDate lastOrderDate) {
+    this.lastOrderDate = lastOrderDate;
+  }
+
+  public void setUpdatedAt(long updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
@@ -0,0 +1,110 @@
+package com.topcoder.scraper.model;
+
+import com.gargoylesoftware.htmlunit.util.Cookie;
+
+import java.util.Date;
+
+/**
+ * Session cookie model, one cookie of a saved login session
+ */
+public class SessionCookie {
+
+  private String name;
+  private String value;
+  private String domain;
+  private String path;
+
+  /**
+   * Represents expiry time in epoch milliseconds, null for browser session cookie
+   */
+  private Long expires;
+
+  private boolean secure;
+  private boolean httpOnly;
+
+  public SessionCookie() {
+  }
+
+  public SessionCookie(Cookie cookie) {
+    this.name = cookie.getName();
+    this.value = cookie.getValue();
+    this.domain = cookie.getDomain();
+    this.path = cookie.getPath();
+    this.expires = cookie.getExpires() == null ? null : cookie.getExpires().getTime();
+    this.secure = cookie.isSecure();
+    this.httpOnly = cookie.isHttpOnly();
+  }
+
+  /**
+   * convert to HtmlUnit cookie
+   * @return HtmlUnit cookie
+   */
+  public Cookie toCookie() {
+    return new Cookie(domain, name, value, path, expires == null ? null : new Date(expires), secure, httpOnly);
+  }
+
+  /**
+   * check if cookie is expired
+   * @param now current time in epoch milliseconds
+   * @return true if cookie is expired
+   */
+  public boolean isExpired(long now) {
+    return expires != null && expires <= now;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public String getDomain() {
+    return domain;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public Long getExpires() {
+    return expires;
+  }
+
+  public boolean isSecure() {
+    return secure;
+  }
+
+  public boolean isHttpOnly() {
+    return httpOnly;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public void setValue(String value) {
+    this.value = value;
+  }
+
+  public void setDomain(String domain) {
+    this.domain = domain;
+  }
+
+  public void setPath(String path) {
+    this.path = path;
+  }
+
+  public void setExpires(Long expires) {
+    this.expires = expires;
+  }
+
+  public void setSecure(boolean secure) {
+    this.secure = secure;
+  }
+
+  public void setHttpOnly(boolean httpOnly) {
+    this.httpOnly = httpOnly;
+  }
+}
@@ -0,0 +1,338 @@
+package com.topcoder.scraper.module;
+
+import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.session.ScrapeSessionHolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Staged purchase history pipeline: page fetcher -> order parser -> batch persister.
+ *
+ * Stages are connected by bounded queues, so next page is fetched while current one is parsed,
+ * and parsed orders are written while parsing continues.
+ * When writing falls behind, parser and then fetcher block until there is room again.
+ *
+ * @param <P> page type
+ */
+public class PurchaseHistoryPipeline<P> {
+
+  /**
+   * Marks end of parsed orders
+   */
+  private static final Parsed END = new Parsed(null, null);
+
+  private static final long POLL_MILLIS = 100;
+
+  /**
+   * Fetches pages, only called from fetcher thread
+   * @param <P> page type
+   */
+  public interface PageSource<P> {
+    /**
+     * fetch first page
+     * @return first page, null if there is no page
+     */
+    P first() throws IOException;
+
+    /**
+     * fetch page after given one
+     * @param page current page
+     * @return next page, null if there is no more page
+     */
+    P next(P page) throws IOException;
+
+    /**
+     * release a page which is no longer used by any stage
+     * @param page page to release
+     */
+    void release(P page);
+  }
+
+  /**
+   * Parses orders from a page, called from parser thread
+   * @param <P> page type
+   */
+  public interface PageParser<P> {
+    /**
+     * parse new orders of a page
+     * @param page page to parse
+     * @param orders new orders to be saved are added here
+     * @return true if next page needs to be checked
+     */
+    boolean parse(P page, List<PurchaseHistory> orders);
+  }
+
+  /**
+   * Records progress of a run, so an interrupted run can resume after the last written page
+   * @param <P> page type
+   */
+  public interface Progress<P> {
+    /**
+     * called from parser thread once a page is parsed, while page is still held
+     * @param page parsed page
+     * @param orders new orders of page
+     * @return run from persister thread once orders of this page and all pages before are written
+     */
+    Runnable parsed(P page, List<PurchaseHistory> orders);
+  }
+
+  private final PageSource<P> source;
+  private final PageParser<P> parser;
+  private final Consumer<List<PurchaseHistory>> persister;
+  private final int prefetchPages;
+  private final int pendingWrites;
+  private final Progress<P> progress;
+
+  /**
+   * @param source page source
+   * @param parser page parser
+   * @param persister writes a batch of orders
+   * @param prefetchPages number of fetched pages waiting to be parsed
+   * @param pendingWrites number of parsed pages waiting to be written
+   */
+  public PurchaseHistoryPipeline(
+    PageSource<P> source,
+    PageParser<P> parser,
+    Consumer<List<PurchaseHistory>> persister,
+    int prefetchPages,
+    int pendingWrites) {
+    this(source, parser, persister, prefetchPages, pendingWrites, null);
+  }
+
+  /**
+   * @param source page source
+   * @param parser page parser
+   * @param persister writes a batch of orders
+   * @param prefetchPages number of fetched pages waiting to be parsed
+   * @param pendingWrites number of parsed pages waiting to be written
+   * @param progress records written pages, null if progress is not recorded
+   */
+  public PurchaseHistoryPipeline(
+    PageSource<P> source,
+    PageParser<P> parser,
+    Consumer<List<PurchaseHistory>> persister,
+    int prefetchPages,
+    int pendingWrites,
+    Progress<P> progress) {
+    this.source = source;
+    this.parser = parser;
+    this.persister = persister;
+    this.prefetchPages = Math.max(1, prefetchPages);
+    this.pendingWrites = Math.max(1, pendingWrites);
+    this.progress = progress;
+  }
+
+  /**
+   * Run pipeline until parser stops or there is no more page,
+   * parsing happens in calling thread.
+   *
+   * Orders parsed before a failure are still written.
+   */
+  public void run() throws IOException {
+    BlockingQueue<Optional<P>> pages = new ArrayBlockingQueue<>(prefetchPages);
+    BlockingQueue<Parsed> orders = new ArrayBlockingQueue<>(pendingWrites);
+    AtomicBoolean stopped = new AtomicBoolean(false);
+    AtomicReference<P> current = new AtomicReference<>();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    // stages run with session of calling thread, so their meters are tagged by its account
+    Future<?> fetcherTask = executor.submit(ScrapeSessionHolder.propagate(() -> fetch(pages, stopped)));
+    Future<?> persisterTask = executor.submit(ScrapeSessionHolder.propagate(() -> persist(orders)));
+    try {
+      try {
+        parse(pages, orders, persisterTask, current);
+      } finally {
+        stopped.set(true);
+        drain(pages, fetcherTask);
+        if (current.get() != null) {
+          source.release(current.get());
+        }
+        offer(orders, END, persisterTask);
+        complete(persisterTask);
+      }
+      await(fetcherTask);
+      await(persisterTask);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while fetching purchase history", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * fetcher stage
+   */
+  private Void fetch(BlockingQueue<Optional<P>> pages, AtomicBoolean stopped) throws IOException, InterruptedException {
+    try {
+      P page = source.first();
+      while (page != null) {
+        if (stopped.get()) {
+          source.release(page);
+          break;
+        }
+        pages.put(Optional.of(page));
+        page = source.next(page);
+      }
+    } finally {
+      pages.put(Optional.empty());
+    }
+    return null;
+  }
+
+  /**
+   * parser stage, a page is released once next one is taken,
+   * at that point fetcher has finished reading it.
+   * The page being parsed is kept in current, to be released after fetcher finishes.
+   */
+  private void parse(
+    BlockingQueue<Optional<P>> pages,
+    BlockingQueue<Parsed> orders,
+    Future<?> persisterTask,
+    AtomicReference<P> current) throws InterruptedException {
+    while (true) {
+      Optional<P> page = pages.take();
+      P previous = current.getAndSet(page.orElse(null));
+      if (previous != null) {
+        source.release(previous);
+      }
+      if (!page.isPresent()) {
+        return;
+      }
+
+      List<PurchaseHistory> newOrders = new ArrayList<>();
+      boolean hasNext = parser.parse(page.get(), newOrders);
+      Runnable committed = progress != null ? progress.parsed(page.get(), newOrders) : null;
+      if ((!newOrders.isEmpty() || committed != null) && !offer(orders, new Parsed(newOrders, committed), persisterTask)) {
+        return;
+      }
+      if (!hasNext) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * persister stage, writes all orders available at once,
+   * then records progress of the last written page
+   */
+  private Void persist(BlockingQueue<Parsed> orders) throws InterruptedException {
+    while (true) {
+      Parsed first = orders.take();
+      if (first == END) {
+        return null;
+      }
+
+      List<Parsed> available = new ArrayList<>();
+      available.add(first);
+      orders.drainTo(available);
+
+      List<PurchaseHistory> batch = new ArrayList<>();
+      Runnable committed = null;
+      boolean end = false;
+      for (Parsed parsed : available) {
+        if (parsed == END) {
+          end = true;
+        } else {
+          batch.addAll(parsed.orders);
+          committed = parsed.committed != null ? parsed.committed : committed;
+        }
+      }
+      if (!batch.isEmpty()) {
+        persister.accept(batch);
+      }
+      if (committed != null) {
+        committed.run();
+      }
+      if (end) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * release remaining pages until fetcher finishes
+   */
+  private void drain(BlockingQueue<Optional<P>> pages, Future<?> fetcherTask) throws InterruptedException {
+    while (!fetcherTask.isDone() || !pages.isEmpty()) {
+      Optional<P> page = pages.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      if (page != null) {
+        page.ifPresent(source::release);
+      }
+    }
+  }
+
+  /**
+   * put orders to persister, gives up if persister has stopped
+   * @return false if persister has stopped
+   */
+  private boolean offer(
+    BlockingQueue<Parsed> orders,
+    Parsed parsed,
+    Future<?> persisterTask) throws InterruptedException {
+    while (!orders.offer(parsed, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+      if (persisterTask.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * wait for a stage to finish, its failure is reported by {@link #await(Future)}
+   */
+  private void complete(Future<?> task) throws InterruptedException {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      // rethrown by await
+    }
+  }
+
+  /**
+   * wait for a stage and rethrow its failure
+   */
+  private void await(Future<?> task) throws IOException, InterruptedException {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * New orders of a parsed page, with its progress callback
+   */
+  private static class Parsed {
+    private final List<PurchaseHistory> orders;
+    private final Runnable committed;
+
+    private Parsed(List<PurchaseHistory> orders, Runnable committed) {
+      this.orders = orders;
+      this.committed = committed;
+    }
+  }
+}
@@ -7,12 +7,21 @@ import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.html.HtmlPasswordInput;
 import com.gargoylesoftware.htmlunit.html.HtmlSubmitInput;
 import com.topcoder.scraper.config.AmazonProperty;
+import com.topcoder.scraper.config.WebClientProperty;
+import com.topcoder.scraper.fetcher.HtmlDocument;
+import com.topcoder.scraper.fetcher.HttpPageFetcher;
 import com.topcoder.scraper.module.AuthenticationModule;
+import com.topcoder.scraper.service.SessionService;
 import com.topcoder.scraper.service.WebpageService;
+import com.topcoder.scraper.session.ScrapeSession;
+import com.topcoder.scraper.session.ScrapeSessionHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.net.URL;
 
 /**
  * Amazon implementation for AuthenticationModule
@@ -20,17 +29,22 @@ import java.io.IOException;
 @Component
 public class AmazonAuthenticationModule extends AuthenticationModule {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(AmazonAuthenticationModule.class);
+
   private final AmazonProperty property;
-  private final WebClient webClient;
+  private final WebClientProperty webClientProperty;
+  private final SessionService sessionService;
   private final WebpageService webpageService;
 
   @Autowired
   public AmazonAuthenticationModule(
     AmazonProperty property,
-    WebClient webClient,
+    WebClientProperty webClientProperty,
+    SessionService sessionService,
     WebpageService webpageService) {
     this.property = property;
-    this.webClient = webClient;
+    this.webClientProperty = webClientProperty;
+    this.sessionService = sessionService;
     this.webpageService = webpageService;
   }
 
@@ -40,39 +54,92 @@ public class AmazonAuthenticationModule extends AuthenticationModule {
   }
 
   /**
-   * Implementation of authenticate method
+   * Implementation of authenticate method,
+   * reuses saved session of account in current session if it is still logged in,
+   * otherwise logs in with its web client and saves the new session
    */
   @Override
   public void authenticate() throws IOException {
+    ScrapeSession session = ScrapeSessionHolder.get();
+    WebClient webClient = session.getWebClient();
+    String account = session.getAccount().getUsername();
+
+    if (sessionService.restore(getECName(), account, webClient)) {
+      if (isLoggedIn(webClient)) {
+        LOGGER.info("Reuse saved session of " + account);
+        return;
+      }
+      LOGGER.info("Saved session of " + account + " expired, login again");
+      webClient.getCookieManager().clearCookies();
+      sessionService.delete(getECName(), account);
+    }
+
+    login(session);
+    sessionService.save(getECName(), account, webClient);
+  }
+
+  /**
+   * check if web client is logged in, with one plain http request of order history page
+   * @param webClient web client with restored cookies
+   * @return true if order history is shown instead of sign in page
+   */
+  private boolean isLoggedIn(WebClient webClient) throws IOException {
+    try (HttpPageFetcher fetcher = new HttpPageFetcher(webClient);
+         HtmlDocument page = fetcher.fetch(new URL(property.getHistoryUrl()))) {
+      return !page.getUrl().getPath().startsWith("/ap/") && page.getRoot().selectFirst("#ordersContainer") != null;
+    }
+  }
+
+  /**
+   * log in account of session, going through sign in pages
+   * @param session current scrape session
+   */
+  private void login(ScrapeSession session) throws IOException {
+    WebClient webClient = session.getWebClient();
+
     // Fetch homepage
     HtmlPage homePage = webClient.getPage(property.getUrl());
+    waitForBackgroundJavascript(webClient);
 
     // click login button
     //HtmlPage loginPage = ((HtmlAnchor) homePage.getFirstByXPath("//*[@id=\"nav-link-accountList\"]")).click();
     HtmlPage loginPage = ((HtmlAnchor) homePage.querySelector("#nav-link-accountList")).click();
+    waitForBackgroundJavascript(webClient);
 
     // Fill in email
     //HtmlEmailInput input = loginPage.getFirstByXPath("//input[@id=\"ap_email\"]");
     HtmlEmailInput input = loginPage.querySelector("input#ap_email");
-    input.type(property.getUsername());
+    input.type(session.getAccount().getUsername());
 
     // Submit form
     //HtmlSubmitInput submitInput1 = loginPage.getFirstByXPath("//input[@id=\"continue\"]");
     HtmlSubmitInput submitInput1 = loginPage.querySelector("input#continue");
     HtmlPage passwordPage = submitInput1.click();
+    waitForBackgroundJavascript(webClient);
 
     // Fill in password
     //HtmlPasswordInput passwordInput = passwordPage.getFirstByXPath("//input[@id=\"ap_password\"]");
     HtmlPasswordInput passwordInput = passwordPage.querySelector("input#ap_password");
-    passwordInput.type(property.getPassword());
+    passwordInput.type(session.getAccount().getPassword());
 
     // Submit form
     //HtmlSubmitInput submitInput2 = passwordPage.getFirstByXPath("//input[@id=\"signInSubmit\"]");
     HtmlSubmitInput submitInput2 = passwordPage.querySelector("input#signInSubmit");
 
     HtmlPage finalPage = submitInput2.click();
+    waitForBackgroundJavascript(webClient);
 
     // Save page
     webpageService.save("login", getECName(), finalPage.getWebResponse().getContentAsString());
   }
+
+  /**
+   * wait for background javascript of loaded page, at most the configured time
+   * @param webClient web client of current session
+   */
+  private void waitForBackgroundJavascript(WebClient webClient) {
+    if (webClientProperty.getBackgroundJavascriptWait() > 0) {
+      webClient.waitForBackgroundJavaScript(webClientProperty.getBackgroundJavascriptWait());
+    }
+  }
 }
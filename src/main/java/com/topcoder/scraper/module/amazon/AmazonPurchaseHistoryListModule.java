@@ -1,32 +1,57 @@
 package com.topcoder.scraper.module.amazon;
 
 import com.gargoylesoftware.htmlunit.WebClient;
-import com.gargoylesoftware.htmlunit.html.DomNode;
-import com.gargoylesoftware.htmlunit.html.HtmlAnchor;
-import com.gargoylesoftware.htmlunit.html.HtmlForm;
-import com.gargoylesoftware.htmlunit.html.HtmlPage;
-import com.gargoylesoftware.htmlunit.html.HtmlSelect;
 import com.topcoder.scraper.config.AmazonProperty;
+import com.topcoder.scraper.config.PurchaseHistoryProperty;
+import com.topcoder.scraper.config.WebClientProperty;
+import com.topcoder.scraper.exception.FetchPurchaseHistoryListFailure;
+import com.topcoder.scraper.fetcher.FetchMode;
+import com.topcoder.scraper.fetcher.HtmlDocument;
+import com.topcoder.scraper.fetcher.HtmlNode;
+import com.topcoder.scraper.fetcher.HtmlUnitPageFetcher;
+import com.topcoder.scraper.fetcher.HttpPageFetcher;
+import com.topcoder.scraper.fetcher.PageFetcher;
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import com.topcoder.scraper.model.Money;
 import com.topcoder.scraper.model.ProductInfo;
 import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.model.ScrapeCheckpoint;
 import com.topcoder.scraper.module.PurchaseHistoryListModule;
+import com.topcoder.scraper.module.PurchaseHistoryPipeline;
+import com.topcoder.scraper.parser.CompiledRules;
+import com.topcoder.scraper.parser.DateParser;
+import com.topcoder.scraper.parser.ExtractionRulesLoader;
 import com.topcoder.scraper.service.PurchaseHistoryService;
 import com.topcoder.scraper.service.WebpageService;
+import com.topcoder.scraper.session.ScrapeSession;
+import com.topcoder.scraper.session.ScrapeSessionHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.text.ParseException;
-import java.util.LinkedList;
+import java.net.URL;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import static com.topcoder.scraper.util.DateUtils.fromString;
-import static com.topcoder.scraper.util.HtmlUtils.getTextContent;
 
 /**
  * Amazon implementation of PurchaseHistoryListModule
@@ -36,22 +61,50 @@ public class AmazonPurchaseHistoryListModule extends PurchaseHistoryListModule {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(AmazonPurchaseHistoryListModule.class);
 
+  /**
+   * Module name used to configure fetch mode
+   */
+  private static final String MODULE_NAME = "purchase-history";
+
+  /**
+   * Bundled extraction rules, used if no rule file is configured
+   */
+  static final String RULES = "rules/amazon-purchase-history.json";
+
   private final AmazonProperty property;
-  private final WebClient webClient;
+  private final PurchaseHistoryProperty historyProperty;
+  private final WebClientProperty webClientProperty;
   private final PurchaseHistoryService purchaseHistoryService;
   private final WebpageService webpageService;
+  private final DateParser.Marketplace marketplace;
+
+  /**
+   * Currency of amounts without currency, and of "$", from marketplace locale
+   */
+  private final Currency currency;
+  private final ExtractionRulesLoader rules;
 
 
   @Autowired
   public AmazonPurchaseHistoryListModule(
     AmazonProperty property,
-    WebClient webClient,
+    PurchaseHistoryProperty historyProperty,
+    WebClientProperty webClientProperty,
     PurchaseHistoryService purchaseHistoryService,
-    WebpageService webpageService) {
+    WebpageService webpageService,
+    DateParser dateParser) {
     this.property = property;
-    this.webClient = webClient;
+    this.historyProperty = historyProperty;
+    this.webClientProperty = webClientProperty;
     this.purchaseHistoryService = purchaseHistoryService;
     this.webpageService = webpageService;
+    this.marketplace = property.getDateFormats().isEmpty()
+      ? dateParser.forUrl(property.getUrl())
+      : dateParser.forPatterns(
+          property.getDateLocale() != null ? Locale.forLanguageTag(property.getDateLocale()) : Locale.US,
+          property.getDateFormats());
+    this.currency = Money.currencyOf(marketplace.getLocale());
+    this.rules = new ExtractionRulesLoader(RULES, property.getRulesFile());
   }
 
   @Override
@@ -60,179 +113,688 @@ public class AmazonPurchaseHistoryListModule extends PurchaseHistoryListModule {
   }
 
   /**
-   * Implementation of fetchPurchaseHistoryList method
+   * Implementation of fetchPurchaseHistoryList method,
+   * fetches purchase history of account in current session.
+   *
+   * Pages are fetched, parsed and saved by {@link PurchaseHistoryPipeline},
+   * new orders are saved as soon as they are parsed.
+   * Pages are fetched by HtmlUnit, or by plain http if fetch mode of this module is {@link FetchMode#HTTP}.
+   *
+   * Once orders of a page are saved, the page is saved as checkpoint of the account.
+   * If last run was interrupted, it is resumed from its checkpoint first,
+   * then orders newer than last run are fetched from first order page.
+   *
+   * A full backfill of an account without stored orders fetches time periods in parallel
+   * if period concurrency is configured, see {@link #fetchPeriods}.
    */
   @Override
   public void fetchPurchaseHistoryList() throws IOException {
+    ScrapeSession session = ScrapeSessionHolder.get();
+    String account = session.getAccount().getUsername();
+    ScrapeMetrics metrics = new ScrapeMetrics(getECName(), account);
+
+    // order numbers parsed in this run, time periods may be parsed at the same time
+    Set<String> parsed = ConcurrentHashMap.newKeySet();
+
+    try (PageFetcher fetcher = createFetcher(session.getWebClient())) {
+      ScrapeCheckpoint checkpoint = purchaseHistoryService.findCheckpoint(getECName(), account);
+      if (checkpoint != null && checkpoint.getCursor() != null) {
+        LOGGER.info("Resume unfinished run of " + account + " from " + checkpoint.getPeriod() + " page "
+          + checkpoint.getCursor() + ", " + checkpoint.getOrders() + " orders saved so far");
+        runPass(new Pass(fetcher, account, parsed, metrics, checkpoint));
+      } else if (checkpoint != null) {
+        // backfill checkpoints have no cursor, they are resumed even if periods are no longer fetched in parallel
+        fetchPeriods(session, fetcher, parsed, metrics, checkpoint);
+      } else if (isParallelBackfill(session, account)) {
+        fetchPeriods(session, fetcher, parsed, metrics, null);
+      }
+      runPass(new Pass(fetcher, account, parsed, metrics, null));
+    }
+  }
 
-    Optional<PurchaseHistory> lastPurchaseHistory = purchaseHistoryService.fetchLast(getECName());
+  /**
+   * check if time periods are fetched in parallel, for an account without stored orders
+   * @param session current session
+   * @param account account username
+   * @return true if time periods are fetched in parallel
+   */
+  private boolean isParallelBackfill(ScrapeSession session, String account) {
+    if (historyProperty.getPeriodConcurrency() <= 1 || !session.canShareWebClient()) {
+      return false;
+    }
+    return !purchaseHistoryService.fetchLast(getECName(), account).isPresent();
+  }
 
-    List<PurchaseHistory> list = new LinkedList<>();
+  /**
+   * Full backfill, fetches time periods of order history in parallel.
+   *
+   * Time periods are read once from first order page, each one is reached directly through history url
+   * and fetched with its own pipeline. Periods are fetched by web clients borrowed from the pool, sharing cookies
+   * of the session, one period at a time per web client. If no web client is free, periods are fetched one by one
+   * with session web client.
+   * Orders of a period are kept until all newer periods are written, so orders are written
+   * from newest period to oldest, in order date order. An order found in several periods is written once.
+   *
+   * Once orders of a period are written, the period is saved as checkpoint of the account,
+   * an interrupted backfill resumes after last written period. It is resumed one period at a time with session
+   * web client if period concurrency is no longer above 1.
+   *
+   * @param session current session
+   * @param fetcher page fetcher of current session
+   * @param parsed order numbers parsed in this run
+   * @param metrics meters of current session
+   * @param resumed checkpoint of interrupted backfill, null if backfill starts from newest period
+   */
+  private void fetchPeriods(ScrapeSession session, PageFetcher fetcher, Set<String> parsed,
+                            ScrapeMetrics metrics, ScrapeCheckpoint resumed) throws IOException {
+    String account = session.getAccount().getUsername();
+    Map<String, String> periods = new LinkedHashMap<>();
+    try (HtmlDocument page = gotoOrderPage(fetcher, metrics)) {
+      // like order pages walk, periods start from the one selected by first order page
+      List<HtmlNode> options = page.getRoot().selectAll(rules.current().selector("timePeriods"));
+      for (HtmlNode option : options.subList(options.isEmpty() ? 0 : getSelectedIndex(options), options.size())) {
+        periods.put(option.attr("value"), option.text());
+      }
+    }
+    ScrapeCheckpoint checkpoint = resumed != null ? resumed : new ScrapeCheckpoint(getECName(), account);
+    if (checkpoint.getPeriod() != null && periods.containsKey(checkpoint.getPeriod())) {
+      LOGGER.info("Resume unfinished backfill of " + account + " after " + checkpoint.getPeriod() + ", "
+        + checkpoint.getOrders() + " orders saved so far");
+      List<String> written = new ArrayList<>();
+      for (String period : periods.keySet()) {
+        written.add(period);
+        if (period.equals(checkpoint.getPeriod())) {
+          break;
+        }
+      }
+      periods.keySet().removeAll(written);
+    }
+    if (periods.isEmpty()) {
+      return;
+    }
 
-    // go to homepage
-    LOGGER.info("goto Home Page");
-    HtmlPage homePage = webClient.getPage(property.getUrl());
+    // orders written from now on are covered by checkpoint, before they are written
+    checkpoint.setCursor(null);
+    checkpoint.setUpdatedAt(System.currentTimeMillis());
+    purchaseHistoryService.saveCheckpoint(checkpoint);
+
+    // borrowed web clients count against pool size, periods wait for a free one
+    List<WebClient> borrowed = new ArrayList<>();
+    BlockingQueue<PageFetcher> fetchers = new LinkedBlockingQueue<>();
+    ExecutorService executor = null;
+    try {
+      int wanted = historyProperty.getPeriodConcurrency() > 1
+        ? Math.min(historyProperty.getPeriodConcurrency(), periods.size()) : 0;
+      WebClient webClient;
+      while (borrowed.size() < wanted && (webClient = session.borrowSharedWebClient()) != null) {
+        borrowed.add(webClient);
+        fetchers.add(createFetcher(webClient));
+      }
+      if (fetchers.isEmpty()) {
+        if (wanted > 0) {
+          LOGGER.info("No free web client to fetch time periods of " + account + " in parallel, fetch them one by one");
+        }
+        fetchers.add(fetcher);
+      }
 
-    // go to order page
-    LOGGER.info("goto Order Page");
-    //HtmlPage page = ((HtmlAnchor) homePage.getFirstByXPath("//*[@id=\"nav-orders\"]")).click();
-    HtmlPage page = ((HtmlAnchor) homePage.querySelector("#nav-orders")).click();
+      int threads = fetchers.size();
+      LOGGER.info("Fetch " + periods.size() + " time periods of " + account + ", " + threads + " at the same time");
+      executor = Executors.newFixedThreadPool(threads);
+      Map<String, Future<List<PurchaseHistory>>> futures = new LinkedHashMap<>();
+      for (Map.Entry<String, String> period : periods.entrySet()) {
+        // periods run with session of this thread, so store and page meters are tagged by its account
+        futures.put(period.getKey(), executor.submit(ScrapeSessionHolder.propagate(() -> {
+          PageFetcher periodFetcher = fetchers.take();
+          try {
+            return fetchPeriod(periodFetcher, account, period.getKey(), period.getValue(), parsed, metrics);
+          } finally {
+            fetchers.add(periodFetcher);
+          }
+        })));
+      }
 
-    while (true) {
-      if (page == null || !parsePurchaseHistory(list, page, lastPurchaseHistory)) {
-        break;
-      } else {
-        LOGGER.info("goto Next Page");
-        page = gotoNextPage(page);
+      for (Map.Entry<String, Future<List<PurchaseHistory>>> period : futures.entrySet()) {
+        List<PurchaseHistory> orders = await(period.getValue());
+        if (!orders.isEmpty()) {
+          purchaseHistoryService.save(getECName(), account, orders);
+          PurchaseHistory last = orders.get(orders.size() - 1);
+          checkpoint.setOrders(checkpoint.getOrders() + orders.size());
+          checkpoint.setLastOrderNumber(last.getOrderNumber());
+          checkpoint.setLastOrderDate(last.getOrderDate() != null ? last.getOrderDate() : checkpoint.getLastOrderDate());
+        }
+        checkpoint.setPeriod(period.getKey());
+        checkpoint.setUpdatedAt(System.currentTimeMillis());
+        purchaseHistoryService.saveCheckpoint(checkpoint);
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while fetching time periods", e);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+        awaitTermination(executor);
+      }
+      for (PageFetcher periodFetcher : fetchers) {
+        if (periodFetcher != fetcher) {
+          periodFetcher.close();
+        }
+      }
+      borrowed.forEach(session::releaseSharedWebClient);
     }
+  }
 
-    purchaseHistoryService.save(getECName(), list);
+  /**
+   * fetch new orders of one time period
+   * @param fetcher page fetcher of a web client sharing cookies of the session
+   * @param account account username
+   * @param period time period filter value
+   * @param label time period label
+   * @param parsed order numbers parsed in this run
+   * @param metrics meters of current session
+   * @return new orders of time period, in page order
+   */
+  private List<PurchaseHistory> fetchPeriod(PageFetcher fetcher, String account, String period, String label,
+                                            Set<String> parsed, ScrapeMetrics metrics) throws IOException {
+    List<PurchaseHistory> orders = new ArrayList<>();
+    Pass pass = new Pass(fetcher, account, parsed, metrics, null, true);
+    new PurchaseHistoryPipeline<>(
+      new PeriodSource(pass, period, label),
+      (page, newOrders) -> parsePurchaseHistory(pass, page, newOrders),
+      orders::addAll,
+      historyProperty.getPrefetchPages(),
+      historyProperty.getPendingWrites()
+    ).run();
+    return orders;
+  }
+
+  /**
+   * wait until period tasks stop, so their web clients are idle before they go back to the pool
+   * @param executor executor of period tasks, already shut down
+   */
+  private void awaitTermination(ExecutorService executor) {
+    try {
+      if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        LOGGER.warn("Time period tasks still running after shutdown");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * wait for orders of a time period and rethrow its failure
+   * @param future orders of a time period
+   * @return orders of time period
+   */
+  private List<PurchaseHistory> await(Future<List<PurchaseHistory>> future) throws IOException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * run pipeline over order pages of a pass, checkpoint is deleted once the pass finishes
+   * @param pass pass to run
+   */
+  private void runPass(Pass pass) throws IOException {
+    new PurchaseHistoryPipeline<>(
+      new PageSource(pass),
+      (page, newOrders) -> parsePurchaseHistory(pass, page, newOrders),
+      newOrders -> purchaseHistoryService.save(getECName(), pass.account, newOrders),
+      historyProperty.getPrefetchPages(),
+      historyProperty.getPendingWrites(),
+      pass
+    ).run();
+    purchaseHistoryService.deleteCheckpoint(getECName(), pass.account);
+  }
+
+  /**
+   * create page fetcher for configured fetch mode
+   * @param webClient authenticated web client of current session
+   * @return page fetcher
+   */
+  private PageFetcher createFetcher(WebClient webClient) {
+    if (property.getFetchMode(MODULE_NAME) == FetchMode.HTTP) {
+      LOGGER.info("Fetch purchase history with plain http");
+      return new HttpPageFetcher(webClient);
+    }
+    return new HtmlUnitPageFetcher(webClient, webClientProperty.getBackgroundJavascriptWait());
+  }
+
+  /**
+   * fetch an order page, timed by page fetch timer of current session
+   * @param fetcher page fetcher of current session
+   * @param url order page url
+   * @param metrics meters of current session
+   * @return order page
+   */
+  private HtmlDocument fetchOrderPage(PageFetcher fetcher, URL url, ScrapeMetrics metrics) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return fetcher.fetch(url);
+    } finally {
+      metrics.pageFetched(start);
+    }
+  }
+
+  /**
+   * go to first order page from home page
+   * @param fetcher page fetcher of current session
+   * @param metrics meters of current session
+   * @return first order page
+   */
+  private HtmlDocument gotoOrderPage(PageFetcher fetcher, ScrapeMetrics metrics) throws IOException {
+    // go to homepage
+    LOGGER.info("goto Home Page");
+    try (HtmlDocument homePage = fetcher.fetch(new URL(property.getUrl()))) {
+
+      // go to order page
+      LOGGER.info("goto Order Page");
+      HtmlNode ordersAnchor = homePage.getRoot().selectFirst(rules.current().selector("ordersLink"));
+      return fetchOrderPage(fetcher, homePage.resolve(ordersAnchor.attr("href")), metrics);
+    }
   }
 
   /**
    * check if next page button exist, or next time range is available
+   * @param fetcher page fetcher of current session
+   * @param page current page
+   * @param metrics meters of current session
    * @return next page if has next page
    */
-  private HtmlPage gotoNextPage(HtmlPage page) throws IOException {
-    // Try to click next page first
-    //HtmlAnchor nextPageAnchor = page.getFirstByXPath("//*[@id=\"ordersContainer\"]/div[@class=\"a-row\"]/div/ul/li[@class=\"a-last\"]/a");
-    HtmlAnchor nextPageAnchor = page.querySelector("#ordersContainer > div.a-row > div > ul > li.a-last > a");
-    if (nextPageAnchor != null) {
-      return nextPageAnchor.click();
+  private HtmlDocument gotoNextPage(PageFetcher fetcher, HtmlDocument page, ScrapeMetrics metrics) throws IOException {
+    // Try to follow next page first
+    HtmlDocument nextPage = gotoNextPageOfPeriod(fetcher, page, metrics);
+    if (nextPage != null) {
+      return nextPage;
     }
 
     // if pagination reaches end, try to go next time period
-    //HtmlForm form = page.getFirstByXPath("//*[@id=\"timePeriodForm\"]");
-    HtmlForm form = page.querySelector("#timePeriodForm");
-    if (form != null) {
-      HtmlSelect select = form.getSelectByName("orderFilter");
-      if (select.getSelectedIndex() + 1 < select.getOptionSize()) {
-        String optionValue = select.getOption(select.getSelectedIndex() + 1).getValueAttribute();
-        String optionLabel = select.getOption(select.getSelectedIndex() + 1).getText();
-        LOGGER.info("goto " + optionLabel + " Order Page");
-        return webClient.getPage(property.getHistoryUrl() + optionValue);
-      }
+    List<HtmlNode> options = page.getRoot().selectAll(rules.current().selector("timePeriods"));
+    int selectedIndex = getSelectedIndex(options);
+    if (selectedIndex + 1 < options.size()) {
+      String optionValue = options.get(selectedIndex + 1).attr("value");
+      String optionLabel = options.get(selectedIndex + 1).text();
+      LOGGER.info("goto " + optionLabel + " Order Page");
+      return fetchOrderPage(fetcher, new URL(property.getHistoryUrl() + optionValue), metrics);
     }
 
     return null;
   }
 
+  /**
+   * check if next page button exist, without leaving time period of current page
+   * @param fetcher page fetcher
+   * @param page current page
+   * @param metrics meters of current session
+   * @return next page if has next page
+   */
+  private HtmlDocument gotoNextPageOfPeriod(PageFetcher fetcher, HtmlDocument page, ScrapeMetrics metrics) throws IOException {
+    HtmlNode nextPageAnchor = page.getRoot().selectFirst(rules.current().selector("nextPage"));
+    if (nextPageAnchor == null) {
+      return null;
+    }
+    LOGGER.info("goto Next Page");
+    return fetchOrderPage(fetcher, page.resolve(nextPageAnchor.attr("href")), metrics);
+  }
+
+  /**
+   * get time period filter of an order page
+   * @param page order page
+   * @return value of selected time period, null if page has no time period filter
+   */
+  private String getPeriod(HtmlDocument page) {
+    List<HtmlNode> options = page.getRoot().selectAll(rules.current().selector("timePeriods"));
+    return options.isEmpty() ? null : options.get(getSelectedIndex(options)).attr("value");
+  }
+
+  /**
+   * get index of selected option, the first option is selected if none is marked
+   * @param options options of a select
+   * @return selected index
+   */
+  private int getSelectedIndex(List<HtmlNode> options) {
+    for (int i = 0; i < options.size(); i++) {
+      if (options.get(i).attr("selected") != null) {
+        return i;
+      }
+    }
+    return 0;
+  }
+
   /**
    * Parse purchase history from webpage
-   * @param list purchase history list
+   *
+   * An order is new if its order number is neither stored nor parsed before in this run.
+   * Stored order numbers of the page are looked up at once.
+   * Pages are ordered from newest orders, so next page is checked only if all orders of this page are new.
+   * Time periods overlap, an order already parsed by the same pass is skipped and does not stop it.
+   *
+   * @param pass current pass
    * @param page html page
-   * @param last last purchase history
+   * @param newOrders orders added by this page
    * @return true if all orders are new, requires checking next page
    */
-  private boolean parsePurchaseHistory(
-    List<PurchaseHistory> list, HtmlPage page, Optional<PurchaseHistory> last) {
+  private boolean parsePurchaseHistory(Pass pass, HtmlDocument page, List<PurchaseHistory> newOrders) {
+    long start = System.nanoTime();
+    try {
+      boolean hasNewOrder = parseOrders(pass, page, newOrders);
+      pass.metrics.newOrders(newOrders.size());
+      return hasNewOrder;
+    } finally {
+      pass.metrics.pageParsed(start);
+    }
+  }
+
+  /**
+   * Parse new orders of a page, see {@link #parsePurchaseHistory}.
+   * A resumed pass skips stored orders until it passes last order saved by the interrupted run
+   * @param pass current pass
+   * @param page html page
+   * @param newOrders orders added by this page
+   * @return true if all orders are new
+   */
+  private boolean parseOrders(Pass pass, HtmlDocument page, List<PurchaseHistory> newOrders) {
+    Set<String> parsed = pass.parsed;
+
+    LOGGER.debug("Parsing page url {}", page.getUrl());
 
-    LOGGER.debug("Parsing page url %s", page.getUrl().toString());
+    // rules are taken once per page, a reload applies from next page
+    CompiledRules pageRules = rules.current();
+    List<HtmlNode> orders = page.getRoot().selectAll(pageRules.getOrders());
 
-    //List<DomNode> orders = page.getByXPath("//*[@id=\"ordersContainer\"]/div[contains(@class, \"order\")]");
-    List<DomNode> orders = page.querySelectorAll("#ordersContainer > div.order");
+    Map<String, CompiledRules.Extraction> numbered = new LinkedHashMap<>();
+    for (HtmlNode order : orders) {
+      CompiledRules.Extraction extraction = pageRules.extract(order);
+      String orderNumber = extraction.get("orderNumber");
+      if (orderNumber == null) {
+        LOGGER.warn("Order without order number in " + page.getUrl() + ", skip");
+      } else {
+        numbered.putIfAbsent(orderNumber, extraction);
+      }
+    }
+    Set<String> stored = purchaseHistoryService.findStored(getECName(),
+      numbered.keySet().stream().filter(orderNumber -> !parsed.contains(orderNumber)).collect(Collectors.toList()));
+
+    boolean hasNewOrder = true;
+    DateParser.PageDates dates = marketplace.newPage();
+    int[] unknownDates = {0};
+    for (Map.Entry<String, CompiledRules.Extraction> entry : numbered.entrySet()) {
+      // time periods overlap, an order seen earlier in this pass is skipped
+      if (pass.seen.contains(entry.getKey())) {
+        continue;
+      }
+      // stored, or saved by an earlier pass of this run
+      if (stored.contains(entry.getKey()) || !parsed.add(entry.getKey())) {
+        if (!pass.skipsStored(entry.getKey(), entry.getValue(), dates)) {
+          hasNewOrder = false;
+        }
+        continue;
+      }
+      pass.seen.add(entry.getKey());
+      long orderStart = System.nanoTime();
+      newOrders.add(parseOrder(entry.getValue(), dates, unknownDates));
+      pass.metrics.orderParsed(orderStart);
+    }
 
-    boolean hasNewOrder = orders.stream().allMatch(order -> parseOrder(list, order, last));
+    // no date of page is known, page format or marketplace locale is wrong
+    if (!newOrders.isEmpty() && unknownDates[0] == newOrders.size()) {
+      throw new FetchPurchaseHistoryListFailure("No order date of " + page.getUrl() + " matches "
+        + marketplace.getPatterns() + " of locale " + marketplace.getLocale());
+    }
 
     // only save purchase history page is there is new order
-    if (hasNewOrder && orders.size() > 0) {
-      webpageService.save("purchase-history", getECName(), page.getWebResponse().getContentAsString());
+    if (!newOrders.isEmpty()) {
+      webpageService.save("purchase-history", getECName(), page.getContent());
     }
 
     return hasNewOrder;
   }
 
   /**
-   * Parse purchase history from an order element
-   *
-   * The web-scraper assumes the order that orderDate is greater than or equals to last one as `new order`.
-   * If the order is `new order`, fetch process can continue.
-   *
-   * As other important process than above judgement, this method add the order to list if
-   *   - the orderNumber doesn't equals to last one.
-   *   - the order hasn't pushed in purchase history list yet.
-   *
-   * @param list purchase history list
-   * @param order DomNode for one order
-   * @param last last purchase history
-   * @return true if all orders are new, requires checking next page
+   * Parse purchase history from fields of an order, package visible for benchmarks
+   * @param order fields of one order
+   * @param dates dates parsed in this page
+   * @param unknownDates counts orders of this page whose date cannot be parsed
+   * @return purchase history
    */
-  private boolean parseOrder(List<PurchaseHistory> list, DomNode order, Optional<PurchaseHistory> last) {
-
-    //String date           = getTextContent(order.getFirstByXPath(".//div[contains(@class, \"order-info\")]/div/div/div/div[1]/div/div[1]/div[2]/span"));
-    //String total          = getTextContent(order.getFirstByXPath(".//div[contains(@class, \"order-info\")]/div/div/div/div[1]/div/div[2]/div[2]/span"));
-    //String orderNumber    = getTextContent(order.getFirstByXPath(".//div[contains(@class, \"order-info\")]/div/div/div/div[2]/div[1]/span[2]"));
-    //String deliveryStatus = getTextContent(order.getFirstByXPath(".//div[contains(@class, \"shipment\")]/div/div[1]/div[1]/div[2]/span[1]"));
-    String date           = getTextContent(order.querySelector("div.order-info > div > div > div > div:nth-of-type(1) > div > div:nth-of-type(1) > div:nth-of-type(2) > span"));
-    String total          = getTextContent(order.querySelector("div.order-info > div > div > div > div:nth-of-type(1) > div > div:nth-of-type(2) > div:nth-of-type(2) > span"));
-    String orderNumber    = getTextContent(order.querySelector("div.order-info > div > div > div > div:nth-of-type(2) > div:nth-of-type(1) > span:nth-of-type(2)"));
-    String deliveryStatus = getTextContent(order.querySelector("div.shipment   > div > div:nth-of-type(1) > div:nth-of-type(1) > div:nth-of-type(2) > span:nth-of-type(1)"));
-
-    //List<DomNode> products = order.getByXPath(".//div[contains(@class, \"shipment\")]/div/div/div/div[1]/div/div[contains(@class, \"a-fixed-left-grid\")]");
-    List<DomNode> products = order.querySelectorAll("div.shipment > div > div > div > div:nth-of-type(1) > div > div.a-fixed-left-grid");
-
-    List<ProductInfo> productInfoList = products.stream().map(this::parseProduct).collect(Collectors.toList());
-
-    if (total != null) {
-      total = total.substring(1);
-    }
-    PurchaseHistory ph = new PurchaseHistory(orderNumber, date, total, productInfoList, deliveryStatus);
-
-    // check if order is new one.
-    boolean isNewOrder = true;
-    if (last.isPresent()) {
-      try {
-        // Fetched orderDate is greater than or equals to last one.
-        int result = fromString(date).compareTo(fromString(last.get().getOrderDate()));
-        if (result >= 0) {
-          isNewOrder = true;
-        } else {
-          isNewOrder = false;
-        }
-      } catch (ParseException e) {
-        // fail to parse date, skip
-      }
+  PurchaseHistory parseOrder(CompiledRules.Extraction order, DateParser.PageDates dates, int[] unknownDates) {
+    List<ProductInfo> productInfoList = order.getProducts().stream().map(this::parseProduct).collect(Collectors.toList());
+
+    LocalDate orderDate = null;
+    try {
+      orderDate = dates.parse(order.get("orderDate"));
+    } catch (DateTimeParseException e) {
+      unknownDates[0]++;
+      LOGGER.warn("Fail to parse date of order " + order.get("orderNumber") + ": " + e.getMessage());
+    }
+    return new PurchaseHistory(order.get("orderNumber"), orderDate, parseMoney(order.get("totalAmount")),
+      productInfoList, order.get("deliveryStatus"));
+  }
+
+  /**
+   * Parse product info from fields of a product
+   * @param product fields of one product
+   * @return product info
+   */
+  ProductInfo parseProduct(CompiledRules.Extraction product) {
+    return new ProductInfo(product.get("name"), parseMoney(product.get("price")),
+      parseQuantity(product.get("quantity")), product.get("distributor"));
+  }
+
+  /**
+   * parse money text in number format and currency of marketplace, like "$12.34" or "12,34 EUR",
+   * unparsable amount is null
+   * @param money money text
+   * @return money or null
+   */
+  private Money parseMoney(String money) {
+    try {
+      return Money.parse(money, currency, marketplace.getLocale());
+    } catch (IllegalArgumentException e) {
+      LOGGER.warn("Fail to parse money amount " + money);
+      return null;
     }
-    // check if fetched orderNumber equals to last one.
-    boolean equalToLastOrder = false;
-    if (last.isPresent()) {
-      equalToLastOrder = orderNumber.equals(last.get().getOrderNumber());
+  }
+
+  /**
+   * parse product quantity, product without quantity is bought once
+   * @param quantity quantity text
+   * @return quantity
+   */
+  private int parseQuantity(String quantity) {
+    if (quantity == null) {
+      return 1;
+    }
+    try {
+      return Integer.parseInt(quantity.trim());
+    } catch (NumberFormatException e) {
+      LOGGER.warn("Fail to parse product quantity " + quantity);
+      return 1;
     }
-    // check if the order has already pushed in purchase history list.
-    final String orderNumberTemp = orderNumber;
-    boolean existOrderInList = list.stream().anyMatch(purchaseHistory -> purchaseHistory.getOrderNumber().equals(orderNumberTemp));
+  }
 
-    if (isNewOrder && !equalToLastOrder && !existOrderInList) {
-      list.add(ph);
+  /**
+   * Fetches order pages of one pass
+   */
+  private class PageSource implements PurchaseHistoryPipeline.PageSource<HtmlDocument> {
+    private final Pass pass;
+
+    private PageSource(Pass pass) {
+      this.pass = pass;
+    }
+
+    /**
+     * first order page, or last page saved by the interrupted run if pass is resumed
+     */
+    @Override
+    public HtmlDocument first() throws IOException {
+      if (pass.resumed != null) {
+        return fetchOrderPage(pass.fetcher, new URL(pass.resumed.getCursor()), pass.metrics);
+      }
+      return gotoOrderPage(pass.fetcher, pass.metrics);
     }
 
-    return isNewOrder;
+    @Override
+    public HtmlDocument next(HtmlDocument page) throws IOException {
+      return gotoNextPage(pass.fetcher, page, pass.metrics);
+    }
+
+    @Override
+    public void release(HtmlDocument page) {
+      page.close();
+    }
   }
 
   /**
-   * Parse product info from an product element
-   * @param product DomNode for one product
-   * @return product info
+   * Fetches order pages of one time period
    */
-  private ProductInfo parseProduct(DomNode product) {
+  private class PeriodSource implements PurchaseHistoryPipeline.PageSource<HtmlDocument> {
+    private final Pass pass;
+    private final String period;
+    private final String label;
+
+    private PeriodSource(Pass pass, String period, String label) {
+      this.pass = pass;
+      this.period = period;
+      this.label = label;
+    }
 
-    //String name        = getTextContent(product.getFirstByXPath(".//div/div[2]/div[1]/a"));
-    //String distributor = getTextContent(product.getFirstByXPath(".//span[contains(@class, \"a-color-secondary\")]"));
-    //String price       = getTextContent(product.getFirstByXPath(".//span[contains(@class, \"a-color-price\")]"));
-    //String quantity    = getTextContent(product.getFirstByXPath(".//span[contains(@class, \"item-view-qty\")]"));
-    String name        = getTextContent(product.querySelector("div > div:nth-of-type(2) > div:nth-of-type(1) > a"));
-    String distributor = getTextContent(product.querySelector("span.a-color-secondary"));
-    String price       = getTextContent(product.querySelector("span.a-color-price"));
-    String quantity    = getTextContent(product.querySelector("span.item-view-qty"));
+    @Override
+    public HtmlDocument first() throws IOException {
+      LOGGER.info("goto " + label + " Order Page");
+      return fetchOrderPage(pass.fetcher, new URL(property.getHistoryUrl() + period), pass.metrics);
+    }
 
-    if (distributor != null) {
-      distributor = distributor.split(":")[1].trim();
+    @Override
+    public HtmlDocument next(HtmlDocument page) throws IOException {
+      return gotoNextPageOfPeriod(pass.fetcher, page, pass.metrics);
     }
-    if (quantity == null) {
-      quantity = "1";
+
+    @Override
+    public void release(HtmlDocument page) {
+      page.close();
+    }
+  }
+
+  /**
+   * One pass over order pages of an account, from first order page or resumed from a checkpoint.
+   * Once orders of a page are saved, the page is saved as checkpoint.
+   * Progress is only updated from parser thread, checkpoints are saved from persister thread.
+   */
+  private class Pass implements PurchaseHistoryPipeline.Progress<HtmlDocument> {
+    private final PageFetcher fetcher;
+    private final String account;
+    private final Set<String> parsed;
+    private final ScrapeMetrics metrics;
+
+    /**
+     * Order numbers parsed by this pass, only updated from parser thread
+     */
+    private final Set<String> seen = new HashSet<>();
+
+    /**
+     * Checkpoint of interrupted run, null if pass starts from first order page
+     */
+    private final ScrapeCheckpoint resumed;
+
+    /**
+     * Whether pass goes over all pages of a time period of a backfill, stored orders never stop it
+     */
+    private final boolean backfill;
+
+    /**
+     * Whether last order saved by interrupted run is passed, stored orders are skipped until then
+     */
+    private boolean boundaryPassed;
+
+    private int orders;
+    private String lastOrderNumber;
+    private LocalDate lastOrderDate;
+
+    private Pass(PageFetcher fetcher, String account, Set<String> parsed, ScrapeMetrics metrics, ScrapeCheckpoint resumed) {
+      this(fetcher, account, parsed, metrics, resumed, false);
+    }
+
+    private Pass(PageFetcher fetcher, String account, Set<String> parsed, ScrapeMetrics metrics,
+                 ScrapeCheckpoint resumed, boolean backfill) {
+      this.fetcher = fetcher;
+      this.account = account;
+      this.parsed = parsed;
+      this.metrics = metrics;
+      this.resumed = resumed;
+      this.backfill = backfill;
+      if (resumed != null) {
+        this.orders = resumed.getOrders();
+        this.lastOrderNumber = resumed.getLastOrderNumber();
+        this.lastOrderDate = resumed.getLastOrderDate();
+      }
+      this.boundaryPassed = resumed == null || (lastOrderNumber == null && lastOrderDate == null);
     }
 
-    return new ProductInfo(name, price.substring(1), quantity, distributor);
+    /**
+     * check if a stored order is skipped without stopping the pass.
+     * Pages of a resumed pass hold orders saved by the interrupted run, possibly shifted by newer orders,
+     * they are skipped until last saved order, or an order older than it, is reached.
+     * A backfill pass skips every stored order.
+     * @param orderNumber order number
+     * @param order fields of order
+     * @param dates dates parsed in this page
+     * @return true if pass goes on
+     */
+    private boolean skipsStored(String orderNumber, CompiledRules.Extraction order, DateParser.PageDates dates) {
+      if (backfill) {
+        return true;
+      }
+      if (boundaryPassed) {
+        return false;
+      }
+      if (orderNumber.equals(lastOrderNumber)) {
+        boundaryPassed = true;
+        return true;
+      }
+      if (lastOrderDate != null) {
+        try {
+          LocalDate orderDate = dates.parse(order.get("orderDate"));
+          boundaryPassed = orderDate.isBefore(lastOrderDate);
+        } catch (DateTimeParseException e) {
+          // keep skipping
+        }
+      }
+      return !boundaryPassed;
+    }
+
+    @Override
+    public Runnable parsed(HtmlDocument page, List<PurchaseHistory> newOrders) {
+      orders += newOrders.size();
+      if (!newOrders.isEmpty()) {
+        PurchaseHistory last = newOrders.get(newOrders.size() - 1);
+        lastOrderNumber = last.getOrderNumber();
+        lastOrderDate = last.getOrderDate() != null ? last.getOrderDate() : lastOrderDate;
+      }
+
+      ScrapeCheckpoint checkpoint = new ScrapeCheckpoint(getECName(), account);
+      checkpoint.setPeriod(getPeriod(page));
+      checkpoint.setCursor(page.getUrl().toString());
+      checkpoint.setOrders(orders);
+      checkpoint.setLastOrderNumber(lastOrderNumber);
+      checkpoint.setLastOrderDate(lastOrderDate);
+      return () -> {
+        checkpoint.setUpdatedAt(System.currentTimeMillis());
+        purchaseHistoryService.saveCheckpoint(checkpoint);
+      };
+    }
   }
 }
@@ -0,0 +1,185 @@
+package com.topcoder.scraper.module.amazon;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.topcoder.scraper.config.AmazonProperty;
+import com.topcoder.scraper.config.ReplayProperty;
+import com.topcoder.scraper.connection.ArchivedPages;
+import com.topcoder.scraper.connection.ReplaySite;
+import com.topcoder.scraper.connection.ReplayWebConnection;
+import com.topcoder.scraper.fetcher.HtmlNode;
+import com.topcoder.scraper.fetcher.JsoupNode;
+import com.topcoder.scraper.parser.CompiledRules;
+import com.topcoder.scraper.parser.ExtractionRulesLoader;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.jsoup.Jsoup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Amazon stand-in of replay mode, serves archived purchase history pages.
+ *
+ * Each archived purchase history page is found by its time period and start index,
+ * read from time period form and pagination of the page, so next page links and
+ * time period changes lead to the archived page of that period and index.
+ * Home page is the latest archived login page, sign in pages are stand-ins accepting any account.
+ */
+@Component
+@ConditionalOnProperty(prefix = "replay", name = "enabled", havingValue = "true")
+public class AmazonReplaySite implements ReplaySite {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AmazonReplaySite.class);
+
+  private static final String SITE = "amazon";
+  private static final int ORDERS_PER_PAGE = 10;
+  private static final String SIGN_IN_PATH = "/ap/";
+  private static final String HISTORY_PATH = "order-history";
+  private static final String SELECTED_PAGE = "ul.a-pagination li.a-selected";
+
+  private static final String SIGN_IN_PAGE = "<html><body><form name=\"signIn\" method=\"post\" action=\"/ap/signin\">"
+    + "<input type=\"email\" id=\"ap_email\" name=\"email\"><input type=\"submit\" id=\"continue\" value=\"Continue\">"
+    + "</form></body></html>";
+  private static final String PASSWORD_PAGE = "<html><body><form name=\"signIn\" method=\"post\" action=\"/ap/signin\">"
+    + "<input type=\"password\" id=\"ap_password\" name=\"password\"><input type=\"submit\" id=\"signInSubmit\" value=\"Sign-In\">"
+    + "</form></body></html>";
+
+  private final URL home;
+  private final String homePage;
+  private final Map<String, String> historyPages = new HashMap<>();
+  private final String defaultPeriod;
+
+  @Autowired
+  public AmazonReplaySite(AmazonProperty property, ReplayProperty replayProperty) throws IOException {
+    this(property, ArchivedPages.read(replayProperty.getFolder(), SITE));
+  }
+
+  /**
+   * @param property amazon property
+   * @param pages archived pages by page name
+   */
+  AmazonReplaySite(AmazonProperty property, Map<String, List<String>> pages) throws MalformedURLException {
+    this.home = new URL(property.getUrl());
+
+    CompiledRules rules = new ExtractionRulesLoader(AmazonPurchaseHistoryListModule.RULES, property.getRulesFile()).current();
+    String firstPeriod = null;
+    for (String page : pages.getOrDefault("purchase-history", Collections.emptyList())) {
+      HtmlNode root = new JsoupNode(Jsoup.parse(page, home.toExternalForm()));
+      String period = getPeriod(root.selectAll(rules.selector("timePeriods")));
+      int startIndex = getStartIndex(root.selectFirst(SELECTED_PAGE));
+      if (firstPeriod == null && startIndex == 0) {
+        firstPeriod = period;
+      }
+      // page saved again later wins
+      historyPages.put(key(period, startIndex), page);
+    }
+    this.defaultPeriod = firstPeriod != null ? firstPeriod : "";
+
+    List<String> loginPages = pages.getOrDefault("login", Collections.emptyList());
+    this.homePage = loginPages.isEmpty()
+      ? "<html><body><a id=\"nav-link-accountList\" href=\"/ap/signin\">Sign in</a>"
+        + "<a id=\"nav-orders\" href=\"" + property.getHistoryUrl() + "\">Orders</a></body></html>"
+      : loginPages.get(loginPages.size() - 1);
+    LOGGER.info("Replay " + historyPages.size() + " purchase history pages of " + SITE);
+  }
+
+  @Override
+  public boolean handles(URL url) {
+    return url.getHost().equalsIgnoreCase(home.getHost());
+  }
+
+  @Override
+  public WebResponseData respond(WebRequest request) {
+    String path = request.getUrl().getPath();
+    if (path.startsWith(SIGN_IN_PATH)) {
+      return signIn(request);
+    }
+    if (path.contains(HISTORY_PATH)) {
+      Map<String, String> query = query(request.getUrl());
+      String period = query.get("orderFilter");
+      String page = historyPages.get(key(
+        period == null || period.isEmpty() ? defaultPeriod : period,
+        parseInt(query.get("startIndex"))));
+      return page != null ? ReplayWebConnection.html(page) : null;
+    }
+    if (path.isEmpty() || path.equals("/")) {
+      return ReplayWebConnection.html(homePage);
+    }
+    return null;
+  }
+
+  /**
+   * answer sign in requests, email is asked first, then password. Any account is signed in
+   * @param request sign in request
+   * @return sign in page, or redirect to home page once password is sent
+   */
+  private WebResponseData signIn(WebRequest request) {
+    if (request.getHttpMethod() != HttpMethod.POST) {
+      return ReplayWebConnection.html(SIGN_IN_PAGE);
+    }
+    boolean password = request.getRequestParameters().stream().anyMatch(param -> "password".equals(param.getName()));
+    return password ? ReplayWebConnection.redirect(home) : ReplayWebConnection.html(PASSWORD_PAGE);
+  }
+
+  /**
+   * get selected time period of a page
+   * @param options time period options
+   * @return selected option value, first option if none is selected, empty if page has no time period
+   */
+  private static String getPeriod(List<HtmlNode> options) {
+    for (HtmlNode option : options) {
+      if (option.attr("selected") != null) {
+        return option.attr("value");
+      }
+    }
+    return options.isEmpty() ? "" : options.get(0).attr("value");
+  }
+
+  /**
+   * get start index of a page from its selected page number
+   * @param selectedPage selected item of pagination
+   * @return index of first order of the page
+   */
+  private static int getStartIndex(HtmlNode selectedPage) {
+    int number = selectedPage != null ? parseInt(selectedPage.text()) : 0;
+    return Math.max(0, number - 1) * ORDERS_PER_PAGE;
+  }
+
+  private static int parseInt(String text) {
+    try {
+      return text != null ? Integer.parseInt(text.trim()) : 0;
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static Map<String, String> query(URL url) {
+    Map<String, String> query = new HashMap<>();
+    try {
+      for (NameValuePair pair : URLEncodedUtils.parse(url.toURI(), StandardCharsets.UTF_8)) {
+        query.put(pair.getName(), pair.getValue());
+      }
+    } catch (URISyntaxException e) {
+      LOGGER.debug("Invalid replayed url " + url);
+    }
+    return query;
+  }
+
+  private static String key(String period, int startIndex) {
+    return period + "@" + startIndex;
+  }
+}
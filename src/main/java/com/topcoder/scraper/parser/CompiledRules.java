@@ -0,0 +1,235 @@
+package com.topcoder.scraper.parser;
+
+import com.topcoder.scraper.fetcher.CompiledSelector;
+import com.topcoder.scraper.fetcher.HtmlNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extraction rules compiled for extraction, immutable and shared by all threads.
+ *
+ * Selectors and regexes are compiled once. Each order element is walked a single time
+ * and every element is matched against the fields not found yet, first match of a field wins
+ * as it would with selectFirst. Products are found in the same walk, their fields are
+ * matched against elements inside the product.
+ */
+public class CompiledRules {
+
+  private final CompiledSelector orders;
+  private final CompiledSelector products;
+  private final Field[] orderFields;
+  private final Field[] productFields;
+  private final Map<String, Integer> orderIndexes;
+  private final Map<String, Integer> productIndexes;
+  private final Map<String, CompiledSelector> selectors = new HashMap<>();
+
+  /**
+   * compile rules
+   * @param rules extraction rules
+   * @throws IllegalArgumentException if a selector or regex is not valid, or orders selector is missing
+   */
+  public CompiledRules(ExtractionRules rules) {
+    if (rules.getOrders() == null) {
+      throw new IllegalArgumentException("Orders selector is required");
+    }
+    this.orders = compile(rules.getOrders());
+    this.products = rules.getProducts() != null ? compile(rules.getProducts()) : null;
+    this.orderIndexes = new HashMap<>();
+    this.orderFields = compile(rules.getOrder(), orderIndexes);
+    this.productIndexes = new HashMap<>();
+    this.productFields = compile(rules.getProduct(), productIndexes);
+    rules.getSelectors().forEach((name, css) -> selectors.put(name, compile(css)));
+  }
+
+  /**
+   * @return selector of order elements in page
+   */
+  public CompiledSelector getOrders() {
+    return orders;
+  }
+
+  /**
+   * get a named selector of the page
+   * @param name selector name
+   * @return compiled selector
+   * @throws IllegalArgumentException if rules have no such selector
+   */
+  public CompiledSelector selector(String name) {
+    CompiledSelector selector = selectors.get(name);
+    if (selector == null) {
+      throw new IllegalArgumentException("No selector " + name + " in extraction rules");
+    }
+    return selector;
+  }
+
+  /**
+   * extract fields and products of an order element
+   * @param order order element
+   * @return extracted fields
+   */
+  public Extraction extract(HtmlNode order) {
+    Extraction result = new Extraction(orderIndexes, orderFields.length);
+    order.traverse(new HtmlNode.Visitor() {
+      private boolean root = true;
+      private HtmlNode product;
+      private Extraction productResult;
+
+      @Override
+      public void enter(HtmlNode element) {
+        // selectors match descendants only
+        if (root) {
+          root = false;
+          return;
+        }
+        if (product != null) {
+          match(element, product, productFields, productResult);
+        } else if (products != null && element.matches(products, order)) {
+          product = element;
+          productResult = new Extraction(productIndexes, productFields.length);
+          result.products.add(productResult);
+        }
+        match(element, order, orderFields, result);
+      }
+
+      @Override
+      public void exit(HtmlNode element) {
+        if (element == product) {
+          product = null;
+        }
+      }
+    });
+    result.finish(orderFields);
+    for (Extraction product : result.products) {
+      product.finish(productFields);
+    }
+    return result;
+  }
+
+  /**
+   * set value of fields matched by element, unless field is already found
+   */
+  private static void match(HtmlNode element, HtmlNode scope, Field[] fields, Extraction extraction) {
+    for (int i = 0; i < fields.length; i++) {
+      if (!extraction.found[i] && element.matches(fields[i].selector, scope)) {
+        extraction.found[i] = true;
+        extraction.values[i] = fields[i].read(element);
+      }
+    }
+  }
+
+  private static Field[] compile(Map<String, FieldRule> rules, Map<String, Integer> indexes) {
+    List<Field> fields = new ArrayList<>();
+    rules.forEach((name, rule) -> {
+      indexes.put(name, fields.size());
+      fields.add(new Field(name, rule));
+    });
+    return fields.toArray(new Field[0]);
+  }
+
+  private static CompiledSelector compile(String css) {
+    CompiledSelector selector = CompiledSelector.of(css);
+    // fail at load time, not on first page
+    selector.validate();
+    return selector;
+  }
+
+  /**
+   * Compiled rule of one field
+   */
+  private static class Field {
+    private final CompiledSelector selector;
+    private final String attr;
+    private final Pattern regex;
+    private final String split;
+    private final int index;
+    private final Integer substring;
+    private final String defaultValue;
+
+    private Field(String name, FieldRule rule) {
+      if (rule.getSelector() == null) {
+        throw new IllegalArgumentException("Field " + name + " has no selector");
+      }
+      this.selector = compile(rule.getSelector());
+      this.attr = rule.getAttr();
+      this.regex = rule.getRegex() != null ? Pattern.compile(rule.getRegex()) : null;
+      this.split = rule.getSplit();
+      this.index = rule.getIndex();
+      this.substring = rule.getSubstring();
+      this.defaultValue = rule.getDefault();
+    }
+
+    /**
+     * read value of matched element
+     * @param element matched element
+     * @return processed value, null if nothing is left
+     */
+    private String read(HtmlNode element) {
+      String value = attr != null ? element.attr(attr) : element.text();
+      if (value != null && regex != null) {
+        Matcher matcher = regex.matcher(value);
+        value = matcher.find() ? matcher.group(matcher.groupCount() > 0 ? 1 : 0) : null;
+      }
+      if (value != null && split != null) {
+        String[] parts = value.split(Pattern.quote(split), -1);
+        value = index < parts.length ? parts[index] : null;
+      }
+      if (value != null && substring != null) {
+        value = substring < value.length() ? value.substring(substring) : null;
+      }
+      if (value != null) {
+        value = value.trim();
+      }
+      return value == null || value.isEmpty() ? null : value;
+    }
+  }
+
+  /**
+   * Fields extracted from an order or a product, null if not found
+   */
+  public static class Extraction {
+    private final Map<String, Integer> indexes;
+    private final String[] values;
+    private final boolean[] found;
+    private final List<Extraction> products = new ArrayList<>();
+
+    private Extraction(Map<String, Integer> indexes, int size) {
+      this.indexes = indexes;
+      this.values = new String[size];
+      this.found = new boolean[size];
+    }
+
+    /**
+     * get value of a field
+     * @param field field name
+     * @return field value, null if not found or field is not in rules
+     */
+    public String get(String field) {
+      Integer index = indexes.get(field);
+      return index != null ? values[index] : null;
+    }
+
+    /**
+     * @return products of an order, empty for a product
+     */
+    public List<Extraction> getProducts() {
+      return Collections.unmodifiableList(products);
+    }
+
+    /**
+     * apply defaults of fields not found
+     */
+    private void finish(Field[] fields) {
+      for (int i = 0; i < fields.length; i++) {
+        if (values[i] == null) {
+          values[i] = fields[i].defaultValue;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package com.topcoder.scraper.parser;
+
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Parses dates shown on order pages of each marketplace.
+ *
+ * Formatters are immutable and built once per locale and pattern, shared by all threads.
+ * A marketplace is found by host of its url, e.g. amazon.co.jp, and tries its date patterns in order.
+ * {@link PageDates} keeps dates already parsed in one page, orders of a page often share a date.
+ */
+@Component
+public class DateParser {
+
+  /**
+   * Formatters by locale and pattern
+   */
+  private static final ConcurrentMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+  /**
+   * Date locale and patterns of known marketplaces, by host suffix
+   */
+  private static final Map<String, Marketplace> MARKETPLACES = new LinkedHashMap<>();
+
+  /**
+   * Marketplace used when host is unknown
+   */
+  private static final String DEFAULT_HOST = "amazon.com";
+
+  static {
+    marketplace("amazon.com", Locale.US, "MMMM d, uuuu", "MMM d, uuuu");
+    marketplace("amazon.ca", Locale.CANADA, "MMMM d, uuuu", "MMM d, uuuu");
+    marketplace("amazon.com.mx", new Locale("es", "MX"), "d 'de' MMMM 'de' uuuu");
+    marketplace("amazon.com.br", new Locale("pt", "BR"), "d 'de' MMMM 'de' uuuu");
+    marketplace("amazon.co.uk", Locale.UK, "d MMMM uuuu", "d MMM uuuu");
+    marketplace("amazon.com.au", new Locale("en", "AU"), "d MMMM uuuu", "d MMM uuuu");
+    marketplace("amazon.in", new Locale("en", "IN"), "d MMMM uuuu", "d MMM uuuu");
+    marketplace("amazon.de", Locale.GERMANY, "d. MMMM uuuu");
+    marketplace("amazon.fr", Locale.FRANCE, "d MMMM uuuu");
+    marketplace("amazon.it", Locale.ITALY, "d MMMM uuuu");
+    marketplace("amazon.es", new Locale("es", "ES"), "d 'de' MMMM 'de' uuuu");
+    marketplace("amazon.nl", new Locale("nl", "NL"), "d MMMM uuuu");
+    marketplace("amazon.co.jp", Locale.JAPAN, "uuuu\u5e74M\u6708d\u65e5", "uuuu/M/d");
+  }
+
+  /**
+   * Marketplaces resolved by url host
+   */
+  private final ConcurrentMap<String, Marketplace> byHost = new ConcurrentHashMap<>();
+
+  /**
+   * get marketplace of an url, by its host
+   * @param url marketplace url, e.g. https://www.amazon.co.jp/
+   * @return marketplace, amazon.com if host is not known
+   */
+  public Marketplace forUrl(String url) {
+    String host = url == null ? "" : URI.create(url.trim()).getHost();
+    return byHost.computeIfAbsent(host == null ? "" : host.toLowerCase(Locale.ROOT), DateParser::findMarketplace);
+  }
+
+  /**
+   * get marketplace with given locale and patterns, for sites which are not built in
+   * @param locale date locale
+   * @param patterns DateTimeFormatter patterns, tried in order
+   * @return marketplace
+   */
+  public Marketplace forPatterns(Locale locale, List<String> patterns) {
+    return new Marketplace(locale, patterns);
+  }
+
+  private static Marketplace findMarketplace(String host) {
+    Marketplace best = null;
+    int length = -1;
+    for (Map.Entry<String, Marketplace> entry : MARKETPLACES.entrySet()) {
+      String suffix = entry.getKey();
+      if ((host.equals(suffix) || host.endsWith("." + suffix)) && suffix.length() > length) {
+        best = entry.getValue();
+        length = suffix.length();
+      }
+    }
+    return best != null ? best : MARKETPLACES.get(DEFAULT_HOST);
+  }
+
+  private static void marketplace(String host, Locale locale, String... patterns) {
+    MARKETPLACES.put(host, new Marketplace(locale, Arrays.asList(patterns)));
+  }
+
+  private static DateTimeFormatter formatter(Locale locale, String pattern) {
+    return FORMATTERS.computeIfAbsent(locale.toLanguageTag() + "|" + pattern, key ->
+      new DateTimeFormatterBuilder().parseCaseInsensitive().parseLenient().appendPattern(pattern).toFormatter(locale));
+  }
+
+  /**
+   * Date formats of a marketplace, immutable and thread safe
+   */
+  public static final class Marketplace {
+    private final Locale locale;
+    private final List<String> patterns;
+    private final List<DateTimeFormatter> formatters = new ArrayList<>();
+
+    private Marketplace(Locale locale, List<String> patterns) {
+      this.locale = locale;
+      this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+      for (String pattern : patterns) {
+        formatters.add(formatter(locale, pattern));
+      }
+    }
+
+    /**
+     * parse a date shown on order pages
+     * @param text date text, surrounding and repeated spaces are ignored
+     * @return parsed date
+     * @throws DateTimeParseException if text matches no pattern of this marketplace
+     */
+    public LocalDate parse(String text) {
+      if (text == null) {
+        throw new DateTimeParseException("No date text", "", 0);
+      }
+      String normalized = text.replace('\u00a0', ' ').trim().replaceAll("\\s+", " ");
+      for (DateTimeFormatter formatter : formatters) {
+        try {
+          return LocalDate.parse(normalized, formatter);
+        } catch (DateTimeParseException e) {
+          // try next pattern
+        }
+      }
+      throw new DateTimeParseException("Date '" + text + "' matches no pattern " + patterns + " of locale " + locale, normalized, 0);
+    }
+
+    /**
+     * create date cache of one page, not thread safe
+     * @return page dates
+     */
+    public PageDates newPage() {
+      return new PageDates(this);
+    }
+
+    public Locale getLocale() {
+      return locale;
+    }
+
+    public List<String> getPatterns() {
+      return patterns;
+    }
+  }
+
+  /**
+   * Dates parsed in one page, each distinct text is parsed once.
+   * Failures are kept as well, so they are not parsed again.
+   */
+  public static final class PageDates {
+    private final Marketplace marketplace;
+    private final Map<String, Object> parsed = new HashMap<>();
+
+    private PageDates(Marketplace marketplace) {
+      this.marketplace = marketplace;
+    }
+
+    /**
+     * parse a date of the page
+     * @param text date text
+     * @return parsed date
+     * @throws DateTimeParseException if text matches no pattern of the marketplace
+     */
+    public LocalDate parse(String text) {
+      Object result = parsed.get(text);
+      if (result == null) {
+        try {
+          result = marketplace.parse(text);
+        } catch (DateTimeParseException e) {
+          result = e;
+        }
+        parsed.put(text, result);
+      }
+      if (result instanceof DateTimeParseException) {
+        throw (DateTimeParseException) result;
+      }
+      return (LocalDate) result;
+    }
+  }
+}
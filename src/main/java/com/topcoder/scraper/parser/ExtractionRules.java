@@ -0,0 +1,60 @@
+package com.topcoder.scraper.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rules mapping an order page to purchase histories, read from a json rule file.
+ *
+ * Order fields are relative to each element matched by orders,
+ * product fields to each element matched by products inside an order.
+ * Other selectors of the page, like next page link, are named in selectors.
+ */
+public class ExtractionRules {
+
+  private String orders;
+  private Map<String, FieldRule> order = new LinkedHashMap<>();
+  private String products;
+  private Map<String, FieldRule> product = new LinkedHashMap<>();
+  private Map<String, String> selectors = new LinkedHashMap<>();
+
+  public String getOrders() {
+    return orders;
+  }
+
+  public void setOrders(String orders) {
+    this.orders = orders;
+  }
+
+  public Map<String, FieldRule> getOrder() {
+    return order;
+  }
+
+  public void setOrder(Map<String, FieldRule> order) {
+    this.order = order;
+  }
+
+  public String getProducts() {
+    return products;
+  }
+
+  public void setProducts(String products) {
+    this.products = products;
+  }
+
+  public Map<String, FieldRule> getProduct() {
+    return product;
+  }
+
+  public void setProduct(Map<String, FieldRule> product) {
+    this.product = product;
+  }
+
+  public Map<String, String> getSelectors() {
+    return selectors;
+  }
+
+  public void setSelectors(Map<String, String> selectors) {
+    this.selectors = selectors;
+  }
+}
@@ -0,0 +1,111 @@
+package com.topcoder.scraper.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads extraction rules from a json rule file, bundled rules are used if no file is configured.
+ *
+ * Rule file is checked for changes at most once per check interval when rules are used,
+ * changed rules are compiled and replace current ones for the next page.
+ * Rules which fail to load are logged and current rules are kept.
+ */
+public class ExtractionRulesLoader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionRulesLoader.class);
+
+  private static final ObjectMapper OB = new ObjectMapper()
+    .configure(JsonParser.Feature.ALLOW_COMMENTS, true)
+    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+
+  private static final long CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+  private final Path file;
+  private final long checkInterval;
+  private volatile CompiledRules rules;
+  private long lastModified;
+  private volatile long nextCheck;
+
+  /**
+   * load rules, from file if given, otherwise from classpath resource
+   * @param resource classpath resource of bundled rules
+   * @param file rule file, null or empty to use bundled rules
+   * @throws IllegalStateException if rules cannot be loaded
+   */
+  public ExtractionRulesLoader(String resource, String file) {
+    this(resource, file, CHECK_INTERVAL);
+  }
+
+  /**
+   * load rules, rule file is checked for changes at most once per check interval
+   * @param resource classpath resource of bundled rules
+   * @param file rule file, null or empty to use bundled rules
+   * @param checkInterval check interval in milliseconds
+   */
+  ExtractionRulesLoader(String resource, String file, long checkInterval) {
+    this.checkInterval = checkInterval;
+    this.file = file == null || file.isEmpty() ? null : Paths.get(file);
+    try {
+      if (this.file != null) {
+        this.lastModified = Files.getLastModifiedTime(this.file).toMillis();
+        this.rules = load(this.file);
+        LOGGER.info("Loaded extraction rules from " + this.file);
+      } else {
+        try (InputStream in = ExtractionRulesLoader.class.getClassLoader().getResourceAsStream(resource)) {
+          if (in == null) {
+            throw new IOException("No rule resource " + resource);
+          }
+          this.rules = new CompiledRules(OB.readValue(in, ExtractionRules.class));
+        }
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      throw new IllegalStateException("Fail to load extraction rules " + (this.file != null ? this.file : resource), e);
+    }
+    this.nextCheck = System.currentTimeMillis() + checkInterval;
+  }
+
+  /**
+   * get current rules, reloading rule file if it has changed
+   * @return compiled rules
+   */
+  public CompiledRules current() {
+    if (file != null && System.currentTimeMillis() >= nextCheck) {
+      reloadIfChanged();
+    }
+    return rules;
+  }
+
+  private synchronized void reloadIfChanged() {
+    long now = System.currentTimeMillis();
+    if (now < nextCheck) {
+      return;
+    }
+    nextCheck = now + checkInterval;
+    try {
+      long modified = Files.getLastModifiedTime(file).toMillis();
+      if (modified == lastModified) {
+        return;
+      }
+      // a broken file is not loaded again until it changes
+      lastModified = modified;
+      rules = load(file);
+      LOGGER.info("Reloaded extraction rules from " + file);
+    } catch (IOException | IllegalArgumentException e) {
+      LOGGER.error("Fail to reload extraction rules from " + file + ", current rules are kept", e);
+    }
+  }
+
+  private static CompiledRules load(Path file) throws IOException {
+    return new CompiledRules(OB.readValue(file.toFile(), ExtractionRules.class));
+  }
+}
@@ -0,0 +1,107 @@
+package com.topcoder.scraper.parser;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * Rule of one extracted field: selector, then post processing of its text.
+ *
+ * A rule given as a plain string is a selector whose trimmed text is the value.
+ * Post processing runs in this order: regex, split, substring, default.
+ */
+public class FieldRule {
+
+  /**
+   * Represents css selector, relative to element the field is extracted from
+   */
+  private String selector;
+
+  /**
+   * Represents attribute to read instead of text
+   */
+  private String attr;
+
+  /**
+   * Represents regex, value is its first group, or whole match if it has no group
+   */
+  private String regex;
+
+  /**
+   * Represents separator, value is the part at index
+   */
+  private String split;
+  private int index;
+
+  /**
+   * Represents begin index of substring
+   */
+  private Integer substring;
+
+  /**
+   * Represents value when selector matches nothing or processing leaves nothing
+   */
+  private String defaultValue;
+
+  public FieldRule() {
+  }
+
+  @JsonCreator
+  public FieldRule(String selector) {
+    this.selector = selector;
+  }
+
+  public String getSelector() {
+    return selector;
+  }
+
+  public void setSelector(String selector) {
+    this.selector = selector;
+  }
+
+  public String getAttr() {
+    return attr;
+  }
+
+  public void setAttr(String attr) {
+    this.attr = attr;
+  }
+
+  public String getRegex() {
+    return regex;
+  }
+
+  public void setRegex(String regex) {
+    this.regex = regex;
+  }
+
+  public String getSplit() {
+    return split;
+  }
+
+  public void setSplit(String split) {
+    this.split = split;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public Integer getSubstring() {
+    return substring;
+  }
+
+  public void setSubstring(Integer substring) {
+    this.substring = substring;
+  }
+
+  public String getDefault() {
+    return defaultValue;
+  }
+
+  public void setDefault(String defaultValue) {
+    this.defaultValue = defaultValue;
+  }
+}
@@ -1,9 +1,31 @@
 package com.topcoder.scraper.repository;
 
 import com.topcoder.scraper.dao.PurchaseHistoryDAO;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface PurchaseHistoryRepository extends CrudRepository<PurchaseHistoryDAO, Integer> {
+
+    /**
+     * find purchase history with latest order date of an account, served by (site, account, order_date) index
+     * @param site site name
+     * @param account account username
+     * @return latest purchase history
+     */
+    Optional<PurchaseHistoryDAO> findFirstBySiteAndAccountOrderByOrderDateDescIdDesc(String site, String account);
+
+    /**
+     * find stored order numbers of a site, served by (site, order_number) unique index
+     * @param site site name
+     * @param orderNumbers order numbers to look up
+     * @return stored order numbers among given ones
+     */
+    @Query("select p.orderNumber from PurchaseHistoryDAO p where p.site = ?1 and p.orderNumber in ?2")
+    List<String> findOrderNumbers(String site, Collection<String> orderNumbers);
 }
@@ -0,0 +1,28 @@
+package com.topcoder.scraper.repository;
+
+import com.topcoder.scraper.dao.ScrapeCheckpointDAO;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ScrapeCheckpointRepository extends CrudRepository<ScrapeCheckpointDAO, Integer> {
+
+    /**
+     * find checkpoint of an account, served by (site, account) unique index
+     * @param site site name
+     * @param account account username
+     * @return checkpoint
+     */
+    Optional<ScrapeCheckpointDAO> findBySiteAndAccount(String site, String account);
+
+    /**
+     * delete checkpoint of an account
+     * @param site site name
+     * @param account account username
+     */
+    @Transactional
+    void deleteBySiteAndAccount(String site, String account);
+}
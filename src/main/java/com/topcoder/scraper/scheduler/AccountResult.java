@@ -0,0 +1,65 @@
+package com.topcoder.scraper.scheduler;
+
+/**
+ * Result of running all commands for one account
+ */
+public class AccountResult {
+
+  /**
+   * Represents site name
+   */
+  private final String site;
+
+  /**
+   * Represents account username
+   */
+  private final String username;
+
+  /**
+   * Represents whether all commands succeeded
+   */
+  private final boolean success;
+
+  /**
+   * Represents failure reason, null if succeeded
+   */
+  private final String error;
+
+  /**
+   * Represents elapsed time in milliseconds
+   */
+  private final long elapsedMillis;
+
+  public AccountResult(String site, String username, boolean success, String error, long elapsedMillis) {
+    this.site = site;
+    this.username = username;
+    this.success = success;
+    this.error = error;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public String getSite() {
+    return site;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public boolean isSuccess() {
+    return success;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  @Override
+  public String toString() {
+    return site + "/" + username + ": " + (success ? "SUCCESS" : "FAILURE (" + error + ")") + " in " + elapsedMillis + "ms";
+  }
+}
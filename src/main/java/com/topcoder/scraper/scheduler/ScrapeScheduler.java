@@ -0,0 +1,202 @@
+package com.topcoder.scraper.scheduler;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.topcoder.scraper.command.AbstractCommand;
+import com.topcoder.scraper.config.ScraperProperty;
+import com.topcoder.scraper.config.SiteProperty;
+import com.topcoder.scraper.connection.SessionBoundConnection;
+import com.topcoder.scraper.metrics.RunSummary;
+import com.topcoder.scraper.model.Account;
+import com.topcoder.scraper.session.ScrapeSession;
+import com.topcoder.scraper.session.ScrapeSessionHolder;
+import com.topcoder.scraper.session.WebClientPool;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Runs commands for every configured account,
+ * several accounts at the same time, each on its own web client
+ */
+@Component
+public class ScrapeScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ScrapeScheduler.class);
+
+  private final ScraperProperty property;
+  private final WebClientPool webClientPool;
+  private final List<SiteProperty> siteProperties;
+  private final Map<String, Semaphore> siteLimits = new ConcurrentHashMap<>();
+
+  @Autowired
+  public ScrapeScheduler(ScraperProperty property, WebClientPool webClientPool, List<SiteProperty> siteProperties) {
+    this.property = property;
+    this.webClientPool = webClientPool;
+    this.siteProperties = siteProperties;
+  }
+
+  /**
+   * Looks for "site" in arguments and run commands for every account of these sites,
+   * if no site is provided, run all sites.
+   *
+   * Commands of one account run in given order and share the same session.
+   *
+   * @param args arguments from input
+   * @param commands commands to be run for each account
+   * @return result of every account
+   */
+  public List<AccountResult> run(ApplicationArguments args, List<AbstractCommand<?>> commands) {
+    List<String> sites = args.getOptionValues("site");
+    if (sites == null) {
+      sites = siteProperties.stream().map(SiteProperty::getSite).collect(Collectors.toList());
+    }
+
+    List<Job> jobs = interleave(sites);
+    RunSummary before = RunSummary.snapshot(Metrics.globalRegistry);
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(property.getConcurrency(), jobs.size())));
+    try {
+      List<Future<AccountResult>> futures = new ArrayList<>();
+      for (Job job : jobs) {
+        futures.add(executor.submit(() -> runAccount(job.site, job.account, commands)));
+      }
+
+      List<AccountResult> results = new ArrayList<>();
+      for (Future<AccountResult> future : futures) {
+        results.add(future.get());
+      }
+      logSummary(results, RunSummary.snapshot(Metrics.globalRegistry).since(before));
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for accounts", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Unexpected failure while running accounts", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Run commands for one account, within site concurrency limit
+   * @param site site name
+   * @param account account to be run
+   * @param commands commands to be run
+   * @return account result
+   */
+  private AccountResult runAccount(String site, Account account, List<AbstractCommand<?>> commands) {
+    long start = System.currentTimeMillis();
+    Semaphore siteLimit = siteLimits.computeIfAbsent(site, s -> new Semaphore(property.getSiteConcurrency(s), true));
+
+    WebClient webClient = null;
+    boolean acquired = false;
+    try {
+      siteLimit.acquire();
+      acquired = true;
+      webClient = webClientPool.borrow();
+      SessionBoundConnection.bindAll(webClient, site, account.getUsername());
+      ScrapeSessionHolder.set(new ScrapeSession(site, account, webClient, webClientPool));
+
+      for (AbstractCommand<?> command : commands) {
+        command.run(site);
+      }
+      return new AccountResult(site, account.getUsername(), true, null, System.currentTimeMillis() - start);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new AccountResult(site, account.getUsername(), false, "interrupted", System.currentTimeMillis() - start);
+    } catch (RuntimeException e) {
+      LOGGER.error("Fail to scrape " + site + " account " + account.getUsername(), e);
+      return new AccountResult(site, account.getUsername(), false, e.getClass().getSimpleName(), System.currentTimeMillis() - start);
+    } finally {
+      ScrapeSessionHolder.clear();
+      if (webClient != null) {
+        SessionBoundConnection.unbindAll(webClient);
+        webClientPool.release(webClient);
+      }
+      if (acquired) {
+        siteLimit.release();
+      }
+    }
+  }
+
+  /**
+   * Build jobs of all accounts, alternating between sites
+   * so that workers are not all waiting for the same site limit
+   * @param sites site names
+   * @return jobs to be run
+   */
+  private List<Job> interleave(List<String> sites) {
+    List<Iterator<Account>> accounts = new ArrayList<>();
+    List<String> accountSites = new ArrayList<>();
+    for (String site : sites) {
+      Optional<SiteProperty> siteProperty = getSiteProperty(site);
+      if (siteProperty.isPresent()) {
+        accounts.add(siteProperty.get().getAccounts().iterator());
+        accountSites.add(siteProperty.get().getSite());
+      } else {
+        LOGGER.warn("No account configured for site " + site + ", skip");
+      }
+    }
+
+    List<Job> jobs = new ArrayList<>();
+    boolean hasMore = true;
+    while (hasMore) {
+      hasMore = false;
+      for (int i = 0; i < accounts.size(); i++) {
+        if (accounts.get(i).hasNext()) {
+          jobs.add(new Job(accountSites.get(i), accounts.get(i).next()));
+          hasMore = true;
+        }
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * get site property from site name
+   * @param site site name to be found
+   * @return Optional site property
+   */
+  private Optional<SiteProperty> getSiteProperty(String site) {
+    return siteProperties.stream().filter(p -> p.getSite().equalsIgnoreCase(site)).findFirst();
+  }
+
+  /**
+   * log result of every account
+   * @param results account results
+   * @param summary pages, orders and bytes fetched by this run
+   */
+  private void logSummary(List<AccountResult> results, RunSummary summary) {
+    long failures = results.stream().filter(result -> !result.isSuccess()).count();
+    LOGGER.info("Scraped " + results.size() + " accounts, " + failures + " failed, " + summary);
+    results.forEach(result -> LOGGER.info(result.toString()));
+  }
+
+  /**
+   * One account of one site to be scraped
+   */
+  private static class Job {
+    private final String site;
+    private final Account account;
+
+    private Job(String site, Account account) {
+      this.site = site;
+      this.account = account;
+    }
+  }
+}
@@ -1,9 +1,14 @@
 package com.topcoder.scraper.service;
 
 import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.model.ScrapeCheckpoint;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Interface for purchase history
@@ -12,10 +17,69 @@ public interface PurchaseHistoryService {
   /**
    * incremental save purchase history list
    * @param site site name
+   * @param account account username
    * @param list purchase history list
    */
-  void save(String site, List<PurchaseHistory> list);
-  List<PurchaseHistory> listAll(String site);
+  void save(String site, String account, List<PurchaseHistory> list);
 
-  Optional<PurchaseHistory> fetchLast(String site);
+  /**
+   * list all purchase histories of a site
+   * @param site site name
+   * @return purchase histories
+   */
+  default List<PurchaseHistory> listAll(String site) {
+    try (Stream<PurchaseHistory> stream = streamAll(site)) {
+      return stream.collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * stream all purchase histories of a site, read one at a time.
+   * Stream holds open files or database cursor, it must be closed
+   * @param site site name
+   * @return purchase histories
+   */
+  Stream<PurchaseHistory> streamAll(String site);
+
+  /**
+   * fetch purchase history with latest order date of an account
+   * @param site site name
+   * @param account account username
+   * @return latest purchase history
+   */
+  Optional<PurchaseHistory> fetchLast(String site, String account);
+
+  /**
+   * find which order numbers are already stored in a site
+   * @param site site name
+   * @param orderNumbers order numbers to look up
+   * @return stored order numbers among given ones
+   */
+  Set<String> findStored(String site, Collection<String> orderNumbers);
+
+  /**
+   * find checkpoint of an unfinished run of an account.
+   * Stores keep checkpoints with the orders they describe, a store without checkpoints never resumes a run
+   * @param site site name
+   * @param account account username
+   * @return checkpoint, null if last run finished
+   */
+  default ScrapeCheckpoint findCheckpoint(String site, String account) {
+    return null;
+  }
+
+  /**
+   * save checkpoint of a run, replacing previous checkpoint of the account
+   * @param checkpoint checkpoint to be saved
+   */
+  default void saveCheckpoint(ScrapeCheckpoint checkpoint) {
+  }
+
+  /**
+   * delete checkpoint of an account once its run finished
+   * @param site site name
+   * @param account account username
+   */
+  default void deleteCheckpoint(String site, String account) {
+  }
 }
@@ -0,0 +1,19 @@
+package com.topcoder.scraper.service;
+
+/**
+ * What to do with a webpage saved while write queue is full
+ */
+public enum QueueFullPolicy {
+  /**
+   * wait until queue has room
+   */
+  BLOCK,
+  /**
+   * discard webpage
+   */
+  DROP,
+  /**
+   * write webpage on caller thread
+   */
+  SPILL
+}
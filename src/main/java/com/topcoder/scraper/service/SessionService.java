@@ -0,0 +1,32 @@
+package com.topcoder.scraper.service;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+
+/**
+ * Interface for saved login sessions
+ */
+public interface SessionService {
+  /**
+   * Restore saved session of account into web client cookies
+   * @param site site name
+   * @param account account username
+   * @param webClient web client of current session
+   * @return true if a saved session was restored
+   */
+  boolean restore(String site, String account, WebClient webClient);
+
+  /**
+   * Save session of account from web client cookies
+   * @param site site name
+   * @param account account username
+   * @param webClient logged in web client
+   */
+  void save(String site, String account, WebClient webClient);
+
+  /**
+   * Delete saved session of account
+   * @param site site name
+   * @param account account username
+   */
+  void delete(String site, String account);
+}
@@ -11,4 +11,10 @@ public interface WebpageService {
    * @param content webpage content
    */
   void save(String filename, String site, String content);
+
+  /**
+   * Make sure webpages saved so far are written
+   */
+  default void flush() {
+  }
 }
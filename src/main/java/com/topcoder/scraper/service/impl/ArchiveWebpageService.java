@@ -0,0 +1,504 @@
+package com.topcoder.scraper.service.impl;
+
+import com.topcoder.scraper.config.WebpageProperty;
+import com.topcoder.scraper.service.WebpageService;
+import com.topcoder.scraper.util.HashUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive based WebpageService,
+ * pages are gzip compressed and appended to segment files of their site.
+ *
+ * Pages are addressed by SHA-256 of their content, a page already in archive is not stored again,
+ * only a new index entry pointing to it is added.
+ * Each segment has an index file with one line per saved page, index lines are buffered until flush.
+ * When a site has too many segments, live pages are compacted into one new segment,
+ * dropping pages older than retention.
+ * A read-only archive only lists and reads pages, it never creates folders or segment files.
+ */
+@Service
+@ConditionalOnProperty(prefix = "webpage", name = "store", havingValue = "archive", matchIfMissing = true)
+public class ArchiveWebpageService implements WebpageService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveWebpageService.class);
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String DATA_SUFFIX = ".dat";
+  private static final String INDEX_SUFFIX = ".idx";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final WebpageProperty property;
+  private final boolean readOnly;
+  private final Map<String, SiteArchive> archives = new ConcurrentHashMap<>();
+
+  @Autowired
+  public ArchiveWebpageService(WebpageProperty property) {
+    this(property, false);
+  }
+
+  /**
+   * @param property archive folder and segment policy
+   * @param readOnly true to only list and read saved pages, like replay does
+   */
+  public ArchiveWebpageService(WebpageProperty property, boolean readOnly) {
+    this.property = property;
+    this.readOnly = readOnly;
+  }
+
+  @Override
+  public void save(String filename, String site, String content) {
+    checkWritable();
+    try {
+      getArchive(site).save(filename, content.getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+    } catch (IOException e) {
+      LOGGER.error("Fail to archive webpage " + filename + " of " + site, e);
+    }
+  }
+
+  /**
+   * write buffered index entries of all sites
+   */
+  @Override
+  public void flush() {
+    for (SiteArchive archive : archives.values()) {
+      try {
+        archive.flush();
+      } catch (IOException e) {
+        LOGGER.error("Fail to flush archive index", e);
+      }
+    }
+  }
+
+  /**
+   * list saved pages of a site, in saved order
+   * @param site site name
+   * @return index entries
+   */
+  public List<Entry> list(String site) throws IOException {
+    return getArchive(site).list();
+  }
+
+  /**
+   * read content of a saved page
+   * @param site site name
+   * @param entry index entry of page
+   * @return page content
+   */
+  public String read(String site, Entry entry) throws IOException {
+    return new String(getArchive(site).read(entry), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * compact segments of a site into one, dropping pages older than retention
+   * @param site site name
+   */
+  public void compact(String site) throws IOException {
+    checkWritable();
+    getArchive(site).compact();
+  }
+
+  /**
+   * close segment files of all sites
+   */
+  @PreDestroy
+  public void close() {
+    archives.values().forEach(SiteArchive::close);
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Archive " + property.getFolder() + " is opened read-only");
+    }
+  }
+
+  private SiteArchive getArchive(String site) throws IOException {
+    try {
+      return archives.computeIfAbsent(site, s -> {
+        try {
+          return new SiteArchive(Paths.get(property.getFolder(), s));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Index entry of one saved page
+   */
+  public static class Entry {
+
+    /**
+     * Represents SHA-256 of page content
+     */
+    private final String hash;
+
+    /**
+     * Represents location of compressed content: segment number, offset and length in segment file
+     */
+    private final int segment;
+    private final long offset;
+    private final int length;
+
+    /**
+     * Represents saved time in epoch milliseconds
+     */
+    private final long savedAt;
+
+    /**
+     * Represents page name given when saved
+     */
+    private final String filename;
+
+    public Entry(String hash, int segment, long offset, int length, long savedAt, String filename) {
+      this.hash = hash;
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+      this.savedAt = savedAt;
+      this.filename = filename;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public int getSegment() {
+      return segment;
+    }
+
+    public long getOffset() {
+      return offset;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public long getSavedAt() {
+      return savedAt;
+    }
+
+    public String getFilename() {
+      return filename;
+    }
+
+    /**
+     * same page saved again, pointing to the same content
+     */
+    private Entry savedAgain(long savedAt, String filename) {
+      return new Entry(hash, segment, offset, length, savedAt, filename);
+    }
+
+    /**
+     * same page with its content moved to another location
+     */
+    private Entry movedTo(int segment, long offset) {
+      return new Entry(hash, segment, offset, length, savedAt, filename);
+    }
+
+    private String toLine() {
+      return String.join("\t", hash, String.valueOf(segment), String.valueOf(offset), String.valueOf(length),
+        String.valueOf(savedAt), filename.replaceAll("[\t\r\n]", " "));
+    }
+
+    private static Entry fromLine(String line) {
+      String[] fields = line.split("\t", 6);
+      if (fields.length < 6) {
+        return null;
+      }
+      try {
+        return new Entry(fields[0], Integer.parseInt(fields[1]), Long.parseLong(fields[2]), Integer.parseInt(fields[3]),
+          Long.parseLong(fields[4]), fields[5]);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Segment files of one site, one segment is open for appending
+   */
+  private class SiteArchive {
+
+    private final Path folder;
+
+    /**
+     * Represents latest entry of every stored content, by hash
+     */
+    private Map<String, Entry> contents = new HashMap<>();
+
+    private int segment;
+    private FileChannel data;
+    private BufferedWriter index;
+
+    private SiteArchive(Path folder) throws IOException {
+      this.folder = folder;
+      if (readOnly) {
+        return;
+      }
+      Files.createDirectories(folder);
+
+      List<Integer> segments = listSegments();
+      for (Entry entry : readIndexes(segments)) {
+        contents.put(entry.getHash(), entry);
+      }
+      open(segments.isEmpty() ? 1 : segments.get(segments.size() - 1));
+    }
+
+    private synchronized void save(String filename, byte[] content, long now) throws IOException {
+      String hash = HashUtils.sha256(content);
+      Entry stored = contents.get(hash);
+
+      Entry entry;
+      if (stored != null) {
+        entry = stored.savedAgain(now, filename);
+      } else {
+        byte[] compressed = gzip(content);
+        if (data.size() > 0 && data.size() + compressed.length > property.getSegmentSize()) {
+          roll();
+        }
+        entry = new Entry(hash, segment, append(data, compressed), compressed.length, now, filename);
+      }
+
+      index.write(entry.toLine());
+      index.newLine();
+      contents.put(hash, entry);
+    }
+
+    private synchronized void flush() throws IOException {
+      if (index != null) {
+        index.flush();
+      }
+    }
+
+    private synchronized List<Entry> list() throws IOException {
+      return readIndexes(listSegments());
+    }
+
+    private synchronized byte[] read(Entry entry) throws IOException {
+      try (FileChannel channel = FileChannel.open(dataFile(entry.getSegment()), StandardOpenOption.READ)) {
+        return gunzip(readFully(channel, entry.getOffset(), entry.getLength()));
+      }
+    }
+
+    /**
+     * start a new segment, compact if there are too many
+     */
+    private void roll() throws IOException {
+      closeFiles();
+      open(segment + 1);
+      if (listSegments().size() >= property.getCompactSegments()) {
+        compact();
+      }
+    }
+
+    /**
+     * copy live pages into a new segment, then delete old segments.
+     * New segment is written to temp files and renamed, index last, so a crash leaves old segments valid.
+     */
+    private synchronized void compact() throws IOException {
+      closeFiles();
+
+      List<Integer> segments = listSegments();
+      long cutoff = property.getRetentionDays() > 0
+        ? System.currentTimeMillis() - TimeUnit.DAYS.toMillis(property.getRetentionDays())
+        : Long.MIN_VALUE;
+      List<Entry> live = readIndexes(segments).stream()
+        .filter(entry -> entry.getSavedAt() >= cutoff)
+        .collect(Collectors.toList());
+
+      int target = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+      Path dataTemp = folder.resolve(dataFile(target).getFileName() + TEMP_SUFFIX);
+      Path indexTemp = folder.resolve(indexFile(target).getFileName() + TEMP_SUFFIX);
+
+      Map<String, Entry> moved = new HashMap<>();
+      Map<Integer, FileChannel> readers = new HashMap<>();
+      try (FileChannel out = FileChannel.open(dataTemp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+             StandardOpenOption.TRUNCATE_EXISTING);
+           BufferedWriter outIndex = Files.newBufferedWriter(indexTemp, StandardCharsets.UTF_8)) {
+        for (Entry entry : live) {
+          Entry location = moved.get(entry.getHash());
+          if (location == null) {
+            FileChannel reader = readers.get(entry.getSegment());
+            if (reader == null) {
+              reader = FileChannel.open(dataFile(entry.getSegment()), StandardOpenOption.READ);
+              readers.put(entry.getSegment(), reader);
+            }
+            location = entry.movedTo(target, append(out, readFully(reader, entry.getOffset(), entry.getLength())));
+          }
+          Entry compacted = location.savedAgain(entry.getSavedAt(), entry.getFilename());
+          outIndex.write(compacted.toLine());
+          outIndex.newLine();
+          moved.put(entry.getHash(), compacted);
+        }
+        out.force(true);
+      } finally {
+        for (FileChannel reader : readers.values()) {
+          reader.close();
+        }
+      }
+
+      Files.move(dataTemp, dataFile(target), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(indexTemp, indexFile(target), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      for (int old : segments) {
+        Files.deleteIfExists(indexFile(old));
+        Files.deleteIfExists(dataFile(old));
+      }
+
+      LOGGER.info("Compacted " + segments.size() + " segments of " + folder + ", " + live.size() + " pages kept, "
+        + moved.size() + " distinct");
+      contents = moved;
+      open(target);
+    }
+
+    private synchronized void close() {
+      try {
+        closeFiles();
+      } catch (IOException e) {
+        LOGGER.warn("Fail to close archive " + folder, e);
+      }
+    }
+
+    private void open(int segment) throws IOException {
+      this.segment = segment;
+      this.data = FileChannel.open(dataFile(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      this.index = Files.newBufferedWriter(indexFile(segment), StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void closeFiles() throws IOException {
+      if (index != null) {
+        index.close();
+        index = null;
+      }
+      if (data != null) {
+        data.force(true);
+        data.close();
+        data = null;
+      }
+    }
+
+    /**
+     * read all index entries of segments, partial lines of an interrupted write are skipped
+     */
+    private List<Entry> readIndexes(List<Integer> segments) throws IOException {
+      if (index != null) {
+        index.flush();
+      }
+      List<Entry> entries = new ArrayList<>();
+      for (int s : segments) {
+        Path file = indexFile(s);
+        if (!Files.exists(file)) {
+          continue;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            Entry entry = Entry.fromLine(line);
+            if (entry != null) {
+              entries.add(entry);
+            }
+          }
+        }
+      }
+      return entries;
+    }
+
+    private List<Integer> listSegments() throws IOException {
+      if (!Files.isDirectory(folder)) {
+        return Collections.emptyList();
+      }
+      try (Stream<Path> files = Files.list(folder)) {
+        return files
+          .map(file -> file.getFileName().toString())
+          .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(DATA_SUFFIX))
+          .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - DATA_SUFFIX.length())))
+          .sorted()
+          .collect(Collectors.toList());
+      }
+    }
+
+    private Path dataFile(int segment) {
+      return folder.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, DATA_SUFFIX));
+    }
+
+    private Path indexFile(int segment) {
+      return folder.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, INDEX_SUFFIX));
+    }
+  }
+
+  /**
+   * append bytes at end of channel
+   * @return offset of written bytes
+   */
+  private static long append(FileChannel channel, byte[] bytes) throws IOException {
+    long offset = channel.size();
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    long position = offset;
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+    return offset;
+  }
+
+  private static byte[] readFully(FileChannel channel, long offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException("Archive segment is truncated");
+      }
+    }
+    return buffer.array();
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(content);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] gunzip(byte[] compressed) throws IOException {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return IOUtils.toByteArray(in);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.topcoder.scraper.service.impl;
+
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import com.topcoder.scraper.service.QueueFullPolicy;
+import com.topcoder.scraper.service.WebpageService;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebpageService writing webpages of another WebpageService on a background thread.
+ *
+ * Saved webpages wait in a bounded queue, the writer thread takes all waiting webpages at once
+ * and flushes the underlying service once per batch.
+ * When queue is full, webpage is handled by configured {@link QueueFullPolicy}.
+ */
+public class AsyncWebpageService implements WebpageService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncWebpageService.class);
+
+  /**
+   * Stops writer thread, webpages before it are written
+   */
+  private static final Item END = new Item(null, null, null, null);
+
+  private final WebpageService delegate;
+  private final BlockingQueue<Item> queue;
+  private final int batchSize;
+  private final QueueFullPolicy policy;
+  private final Thread writer;
+  private final AtomicLong dropped = new AtomicLong();
+  private volatile boolean closed;
+
+  public AsyncWebpageService(WebpageService delegate, int queueSize, int batchSize, QueueFullPolicy policy) {
+    this.delegate = delegate;
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.batchSize = Math.max(1, batchSize);
+    this.policy = policy;
+    this.writer = new Thread(this::write, "webpage-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  @Override
+  public void save(String filename, String site, String content) {
+    if (closed) {
+      delegate.save(filename, site, content);
+      return;
+    }
+
+    Item item = new Item(filename, site, content, null);
+    switch (policy) {
+      case BLOCK:
+        try {
+          queue.put(item);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          delegate.save(filename, site, content);
+        }
+        break;
+      case DROP:
+        if (!queue.offer(item)) {
+          dropped.incrementAndGet();
+          Metrics.counter(ScrapeMetrics.WEBPAGE_DROPPED, ScrapeMetrics.sessionTags(site)).increment();
+          LOGGER.debug("Webpage queue is full, " + filename + " of " + site + " dropped");
+        }
+        break;
+      default:
+        if (!queue.offer(item)) {
+          delegate.save(filename, site, content);
+        }
+    }
+  }
+
+  /**
+   * Wait until webpages saved before this call are written and flushed
+   */
+  @Override
+  public void flush() {
+    if (!writer.isAlive()) {
+      delegate.flush();
+      return;
+    }
+
+    CountDownLatch flushed = new CountDownLatch(1);
+    try {
+      queue.put(new Item(null, null, null, flushed));
+      while (!flushed.await(1, TimeUnit.SECONDS)) {
+        if (!writer.isAlive()) {
+          LOGGER.warn("Webpage writer stopped before flush");
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Write all waiting webpages then stop writer thread,
+   * webpages saved afterwards are written on caller thread
+   */
+  @PreDestroy
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      queue.put(END);
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // webpages queued while closing
+    List<Item> rest = new ArrayList<>();
+    queue.drainTo(rest);
+    writeBatch(rest);
+
+    if (dropped.get() > 0) {
+      LOGGER.warn(dropped.get() + " webpages dropped because write queue was full");
+    }
+  }
+
+  private void write() {
+    List<Item> batch = new ArrayList<>(batchSize);
+    try {
+      while (true) {
+        batch.add(queue.take());
+        queue.drainTo(batch, batchSize - 1);
+        boolean end = batch.remove(END);
+        writeBatch(batch);
+        batch.clear();
+        if (end) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      LOGGER.warn("Webpage writer interrupted, " + queue.size() + " webpages left in queue");
+    }
+  }
+
+  private void writeBatch(List<Item> batch) {
+    for (Item item : batch) {
+      if (item.flushed == null) {
+        try {
+          delegate.save(item.filename, item.site, item.content);
+        } catch (RuntimeException e) {
+          LOGGER.error("Fail to write webpage " + item.filename + " of " + item.site, e);
+        }
+      }
+    }
+
+    try {
+      delegate.flush();
+    } catch (RuntimeException e) {
+      LOGGER.error("Fail to flush webpages", e);
+    }
+
+    for (Item item : batch) {
+      if (item.flushed != null) {
+        item.flushed.countDown();
+      }
+    }
+  }
+
+  /**
+   * Webpage waiting to be written, or a flush request if flushed is not null
+   */
+  private static class Item {
+    private final String filename;
+    private final String site;
+    private final String content;
+    private final CountDownLatch flushed;
+
+    private Item(String filename, String site, String content, CountDownLatch flushed) {
+      this.filename = filename;
+      this.site = site;
+      this.content = content;
+      this.flushed = flushed;
+    }
+  }
+}
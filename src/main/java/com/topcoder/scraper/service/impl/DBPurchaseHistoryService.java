@@ -1,52 +1,195 @@
 package com.topcoder.scraper.service.impl;
 
+import com.topcoder.scraper.config.PurchaseHistoryProperty;
+import com.topcoder.scraper.converter.JpaConverterJson;
 import com.topcoder.scraper.dao.PurchaseHistoryDAO;
+import com.topcoder.scraper.dao.ScrapeCheckpointDAO;
 import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.model.ScrapeCheckpoint;
 import com.topcoder.scraper.repository.PurchaseHistoryRepository;
+import com.topcoder.scraper.repository.ScrapeCheckpointRepository;
 import com.topcoder.scraper.service.PurchaseHistoryService;
-import com.topcoder.scraper.util.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.text.ParseException;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
+@ConditionalOnProperty(prefix = "purchase-history", name = "store", havingValue = "db", matchIfMissing = true)
 public class DBPurchaseHistoryService implements PurchaseHistoryService {
+
+    /**
+     * Insert an order, or refresh it if (site, order_number) is already stored
+     */
+    private static final String UPSERT_SQL =
+        "INSERT INTO purchase_history (site, account, order_number, order_date, order_json) VALUES (?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE account = VALUES(account), order_date = VALUES(order_date), order_json = VALUES(order_json)";
+
+    /**
+     * Read json of all orders of a site, served by site index
+     */
+    private static final String STREAM_SQL = "SELECT order_json FROM purchase_history WHERE site = ?";
+
     private final PurchaseHistoryRepository repository;
+    private final ScrapeCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PurchaseHistoryProperty property;
+    private final JpaConverterJson converter = new JpaConverterJson();
 
     @Autowired
-    public DBPurchaseHistoryService(PurchaseHistoryRepository repository) {
+    public DBPurchaseHistoryService(
+        PurchaseHistoryRepository repository,
+        ScrapeCheckpointRepository checkpointRepository,
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        PurchaseHistoryProperty property) {
         this.repository = repository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.property = property;
     }
 
+    /**
+     * Upsert purchase histories with jdbc batches,
+     * each batch of {@link PurchaseHistoryProperty#getBatchSize()} orders runs in its own transaction
+     */
     @Override
-    public void save(String site, List<PurchaseHistory> list) {
-        for (PurchaseHistory purchaseHistory : list) {
-            repository.save(new PurchaseHistoryDAO(purchaseHistory));
+    public void save(String site, String account, List<PurchaseHistory> list) {
+        int batchSize = Math.max(1, property.getBatchSize());
+        for (int from = 0; from < list.size(); from += batchSize) {
+            List<PurchaseHistoryDAO> batch = list.subList(from, Math.min(from + batchSize, list.size()))
+                .stream()
+                .map(purchaseHistory -> new PurchaseHistoryDAO(site, account, purchaseHistory))
+                .collect(Collectors.toList());
+
+            transactionTemplate.execute(
+                status -> jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), this::setValues));
         }
     }
 
+    /**
+     * Stream orders with a mysql streaming result set, rows are fetched from server one at a time
+     * and json column is parsed from its character stream.
+     * Connection is held until stream is closed.
+     */
     @Override
-    public List<PurchaseHistory> listAll(String site) {
-        List<PurchaseHistory> results = new ArrayList<>();
-        repository.findAll().forEach(
-            purchaseHistoryDAO -> results.add(purchaseHistoryDAO.getPurchaseHistory()));
+    public Stream<PurchaseHistory> streamAll(String site) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        PreparedStatement statement = null;
+        ResultSet resultSet;
+        try {
+            statement = connection.prepareStatement(STREAM_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setString(1, site);
+            resultSet = statement.executeQuery();
+        } catch (SQLException e) {
+            JdbcUtils.closeStatement(statement);
+            DataSourceUtils.releaseConnection(connection, dataSource);
+            throw jdbcTemplate.getExceptionTranslator().translate("streamAll", STREAM_SQL, e);
+        }
 
-        return results;
+        PreparedStatement openStatement = statement;
+        Spliterator<PurchaseHistory> rows = new Spliterators.AbstractSpliterator<PurchaseHistory>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super PurchaseHistory> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(converter.convertToEntityAttribute(resultSet.getCharacterStream(1)));
+                    return true;
+                } catch (SQLException e) {
+                    throw jdbcTemplate.getExceptionTranslator().translate("streamAll", STREAM_SQL, e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false)
+            .filter(Objects::nonNull)
+            .onClose(() -> {
+                JdbcUtils.closeResultSet(resultSet);
+                JdbcUtils.closeStatement(openStatement);
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            });
     }
 
     @Override
-    public Optional<PurchaseHistory> fetchLast(String site) {
-        return listAll(site).stream().max((o1, o2) -> {
-            try {
-                return DateUtils.fromString(o1.getOrderDate()).compareTo(DateUtils.fromString(o2.getOrderDate()));
-            } catch (ParseException e) {
-                return -1;
-            }
-        });
+    public Optional<PurchaseHistory> fetchLast(String site, String account) {
+        return repository.findFirstBySiteAndAccountOrderByOrderDateDescIdDesc(site, account)
+            .map(PurchaseHistoryDAO::getPurchaseHistory);
+    }
+
+    /**
+     * look up order numbers in chunks of {@link PurchaseHistoryProperty#getBatchSize()}
+     */
+    @Override
+    public Set<String> findStored(String site, Collection<String> orderNumbers) {
+        List<String> list = new ArrayList<>(orderNumbers);
+        Set<String> stored = new HashSet<>();
+        int batchSize = Math.max(1, property.getBatchSize());
+        for (int from = 0; from < list.size(); from += batchSize) {
+            stored.addAll(repository.findOrderNumbers(site, list.subList(from, Math.min(from + batchSize, list.size()))));
+        }
+        return stored;
+    }
+
+    @Override
+    public ScrapeCheckpoint findCheckpoint(String site, String account) {
+        return checkpointRepository.findBySiteAndAccount(site, account).map(ScrapeCheckpointDAO::toCheckpoint).orElse(null);
+    }
+
+    /**
+     * update checkpoint row of the account, inserted on first checkpoint of a run
+     */
+    @Override
+    public void saveCheckpoint(ScrapeCheckpoint checkpoint) {
+        ScrapeCheckpointDAO dao = checkpointRepository.findBySiteAndAccount(checkpoint.getSite(), checkpoint.getAccount())
+            .orElseGet(ScrapeCheckpointDAO::new);
+        dao.update(checkpoint);
+        checkpointRepository.save(dao);
+    }
+
+    @Override
+    public void deleteCheckpoint(String site, String account) {
+        checkpointRepository.deleteBySiteAndAccount(site, account);
+    }
+
+    /**
+     * bind one row of upsert statement
+     * @param ps prepared statement
+     * @param dao purchase history row
+     */
+    private void setValues(PreparedStatement ps, PurchaseHistoryDAO dao) throws SQLException {
+        ps.setString(1, dao.getSite());
+        ps.setString(2, dao.getAccount());
+        ps.setString(3, dao.getOrderNumber());
+        ps.setDate(4, dao.getOrderDate() != null ? Date.valueOf(dao.getOrderDate()) : null);
+        ps.setString(5, converter.convertToDatabaseColumn(dao.getPurchaseHistory()));
     }
 }
@@ -0,0 +1,191 @@
+package com.topcoder.scraper.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+import com.topcoder.scraper.config.SessionProperty;
+import com.topcoder.scraper.model.SessionCookie;
+import com.topcoder.scraper.service.SessionService;
+import com.topcoder.scraper.util.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * File based SessionService,
+ * cookies of each account are saved in one file encrypted with AES-GCM.
+ *
+ * File name is a hash of the account, site and account are bound to the content,
+ * so a file copied to another account cannot be decrypted.
+ */
+@Service
+public class EncryptedFileSessionService implements SessionService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EncryptedFileSessionService.class);
+
+  private static final byte FORMAT_VERSION = 1;
+  private static final String CIPHER = "AES/GCM/NoPadding";
+  private static final int IV_LENGTH = 12;
+  private static final int TAG_LENGTH_BITS = 128;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final SessionProperty property;
+  private final SecretKeySpec key;
+  private final SecureRandom random = new SecureRandom();
+
+  @Autowired
+  public EncryptedFileSessionService(SessionProperty property) {
+    this.property = property;
+    this.key = property.getKey().isEmpty() ? null : new SecretKeySpec(Base64.getDecoder().decode(property.getKey()), "AES");
+    if (key == null) {
+      LOGGER.info("No session key configured, login sessions are not saved");
+    }
+  }
+
+  @Override
+  public boolean restore(String site, String account, WebClient webClient) {
+    if (key == null) {
+      return false;
+    }
+
+    Path file = getFile(site, account);
+    if (!Files.exists(file)) {
+      return false;
+    }
+
+    try {
+      SavedSession saved = MAPPER.readValue(decrypt(Files.readAllBytes(file), site, account), SavedSession.class);
+
+      long now = System.currentTimeMillis();
+      if (now - saved.savedAt > TimeUnit.HOURS.toMillis(property.getMaxAgeHours())) {
+        LOGGER.info("Saved session of " + site + "/" + account + " is too old, ignored");
+        return false;
+      }
+
+      List<SessionCookie> cookies = saved.cookies.stream().filter(cookie -> !cookie.isExpired(now)).collect(Collectors.toList());
+      if (cookies.isEmpty()) {
+        return false;
+      }
+      cookies.forEach(cookie -> webClient.getCookieManager().addCookie(cookie.toCookie()));
+      return true;
+    } catch (IOException | GeneralSecurityException e) {
+      LOGGER.warn("Fail to restore saved session of " + site + "/" + account + ", ignored", e);
+      return false;
+    }
+  }
+
+  @Override
+  public void save(String site, String account, WebClient webClient) {
+    if (key == null) {
+      return;
+    }
+
+    SavedSession saved = new SavedSession();
+    saved.savedAt = System.currentTimeMillis();
+    for (Cookie cookie : webClient.getCookieManager().getCookies()) {
+      saved.cookies.add(new SessionCookie(cookie));
+    }
+
+    Path file = getFile(site, account);
+    try {
+      Files.createDirectories(file.getParent());
+      Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      Files.write(temp, encrypt(MAPPER.writeValueAsBytes(saved), site, account));
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | GeneralSecurityException e) {
+      LOGGER.warn("Fail to save session of " + site + "/" + account, e);
+    }
+  }
+
+  @Override
+  public void delete(String site, String account) {
+    try {
+      Files.deleteIfExists(getFile(site, account));
+    } catch (IOException e) {
+      LOGGER.warn("Fail to delete saved session of " + site + "/" + account, e);
+    }
+  }
+
+  /**
+   * encrypt content, output is version, iv then cipher text
+   * @param plain content to be encrypted
+   * @param site site name, authenticated with content
+   * @param account account username, authenticated with content
+   * @return encrypted content
+   */
+  private byte[] encrypt(byte[] plain, String site, String account) throws GeneralSecurityException {
+    byte[] iv = new byte[IV_LENGTH];
+    random.nextBytes(iv);
+
+    Cipher cipher = Cipher.getInstance(CIPHER);
+    cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+    cipher.updateAAD(associatedData(site, account));
+    byte[] encrypted = cipher.doFinal(plain);
+
+    byte[] result = new byte[1 + IV_LENGTH + encrypted.length];
+    result[0] = FORMAT_VERSION;
+    System.arraycopy(iv, 0, result, 1, IV_LENGTH);
+    System.arraycopy(encrypted, 0, result, 1 + IV_LENGTH, encrypted.length);
+    return result;
+  }
+
+  /**
+   * decrypt content written by encrypt
+   * @param content encrypted content
+   * @param site site name
+   * @param account account username
+   * @return plain content
+   */
+  private byte[] decrypt(byte[] content, String site, String account) throws GeneralSecurityException {
+    if (content.length <= 1 + IV_LENGTH || content[0] != FORMAT_VERSION) {
+      throw new GeneralSecurityException("Unknown session file format");
+    }
+
+    Cipher cipher = Cipher.getInstance(CIPHER);
+    cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, Arrays.copyOfRange(content, 1, 1 + IV_LENGTH)));
+    cipher.updateAAD(associatedData(site, account));
+    return cipher.doFinal(content, 1 + IV_LENGTH, content.length - 1 - IV_LENGTH);
+  }
+
+  private static byte[] associatedData(String site, String account) {
+    return (site + "\n" + account).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * get session file of account, named by account hash so username is not visible on disk
+   * @param site site name
+   * @param account account username
+   * @return session file path
+   */
+  private Path getFile(String site, String account) {
+    return Paths.get(property.getFolder(), site, HashUtils.sha256(account) + ".session");
+  }
+
+  /**
+   * Saved session content
+   */
+  private static class SavedSession {
+    public long savedAt;
+    public List<SessionCookie> cookies = new ArrayList<>();
+  }
+}
@@ -1,33 +1,119 @@
 package com.topcoder.scraper.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.topcoder.scraper.config.PurchaseHistoryProperty;
 import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.model.ScrapeCheckpoint;
 import com.topcoder.scraper.service.PurchaseHistoryService;
-import com.topcoder.scraper.util.DateUtils;
+import com.topcoder.scraper.util.HashUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.text.ParseException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * File based implementation of PurchaseHistoryService
- * which all records are saved as files in disk
+ * which all records are saved as files in disk.
+ *
+ * Orders of a site are appended as json lines to segment files,
+ * a manifest keeps the latest order of each account and the committed length of each segment,
+ * and an index file keeps every stored order number with a hash of its content.
+ * So fetchLast and skipping unchanged orders do not read any segment.
+ *
+ * Segments are read and written one json line at a time, so listing or compacting millions of orders
+ * only keeps their order numbers in memory.
+ *
+ * A segment written after the last manifest update (interrupted run) is recovered on open.
+ * When a site has too many segments, they are merged into one, keeping last version of each order.
+ * History json files of previous versions are imported once.
  */
+@Service
+@ConditionalOnProperty(prefix = "purchase-history", name = "store", havingValue = "file")
 public class FileBasedPurchaseHistoryService implements PurchaseHistoryService {
   private static final Logger LOGGER = LoggerFactory.getLogger(FileBasedPurchaseHistoryService.class);
-  private static final ObjectMapper OB = new ObjectMapper();
+  private static final ObjectMapper OB = new ObjectMapper()
+    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  /**
+   * Readers and writers are built once, they are immutable and shared by all threads
+   */
+  private static final ObjectReader RECORD_READER = OB.readerFor(Record.class);
+  private static final ObjectWriter RECORD_WRITER = OB.writerFor(Record.class)
+    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  private static final ObjectReader HISTORY_READER = OB.readerFor(PurchaseHistory.class);
+  private static final ObjectWriter HISTORY_WRITER = OB.writerFor(PurchaseHistory.class);
+
+  private static final String SEGMENT_PREFIX = "orders-";
+  private static final String SEGMENT_SUFFIX = ".ndjson";
+  private static final String MANIFEST = "manifest.json";
+  private static final String INDEX = "order-numbers.idx";
+  private static final String CHECKPOINT_PREFIX = "checkpoint-";
+  private static final String CHECKPOINT_SUFFIX = ".json";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /**
+   * Version of order json in segments, index hashes of older versions are computed again
+   */
+  private static final int FORMAT = 2;
+
+  private final PurchaseHistoryProperty property;
+  private final Map<String, SiteStore> stores = new ConcurrentHashMap<>();
+
+  @Autowired
+  public FileBasedPurchaseHistoryService(PurchaseHistoryProperty property) {
+    this.property = property;
+  }
 
   @Override
-  public void save(String site, List<PurchaseHistory> list) {
+  public void save(String site, String account, List<PurchaseHistory> list) {
 
     if (list.size() == 0) {
       LOGGER.info("No new purchase history");
@@ -35,75 +121,641 @@ public class FileBasedPurchaseHistoryService implements PurchaseHistoryService {
     }
 
     try {
-      FileUtils.write(new File(filename(site)), OB.writeValueAsString(list));
+      int saved = getStore(site).save(account, list);
+      LOGGER.info(saved + " new or changed purchase histories are saved");
     } catch (IOException e) {
       LOGGER.error("Fail to write purchase history file", e);
     }
+  }
+
+  @Override
+  public Stream<PurchaseHistory> streamAll(String site) {
+    try {
+      return getStore(site).streamAll();
+    } catch (IOException e) {
+      LOGGER.error("Fail to read purchase history files", e);
+      return Stream.empty();
+    }
+  }
+
+  @Override
+  public Optional<PurchaseHistory> fetchLast(String site, String account) {
+    try {
+      return getStore(site).fetchLast(account);
+    } catch (IOException e) {
+      LOGGER.error("Fail to read purchase history manifest", e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * look up order numbers in index of stored orders, no segment is read
+   */
+  @Override
+  public Set<String> findStored(String site, Collection<String> orderNumbers) {
+    try {
+      return getStore(site).findStored(orderNumbers);
+    } catch (IOException e) {
+      LOGGER.error("Fail to read purchase history index", e);
+      return Collections.emptySet();
+    }
+  }
+
+  @Override
+  public ScrapeCheckpoint findCheckpoint(String site, String account) {
+    Path file = checkpointFile(site, account);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try {
+      return OB.readValue(file.toFile(), ScrapeCheckpoint.class);
+    } catch (IOException e) {
+      LOGGER.warn("Fail to read checkpoint of " + site + "/" + account + ", run starts from first page", e);
+      return null;
+    }
+  }
 
-    LOGGER.info("New purchase histories are saved");
+  /**
+   * write checkpoint to a temp file then move it over previous one, so a crash keeps either of them
+   */
+  @Override
+  public void saveCheckpoint(ScrapeCheckpoint checkpoint) {
+    Path file = checkpointFile(checkpoint.getSite(), checkpoint.getAccount());
+    try {
+      Files.createDirectories(file.getParent());
+      Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+      OB.writeValue(temp.toFile(), checkpoint);
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOGGER.error("Fail to write checkpoint of " + checkpoint.getSite() + "/" + checkpoint.getAccount(), e);
+    }
   }
 
   @Override
-  public List<PurchaseHistory> listAll(String site) {
-    List<PurchaseHistory> histories = new ArrayList<>();
+  public void deleteCheckpoint(String site, String account) {
+    try {
+      Files.deleteIfExists(checkpointFile(site, account));
+    } catch (IOException e) {
+      LOGGER.error("Fail to delete checkpoint of " + site + "/" + account, e);
+    }
+  }
+
+  /**
+   * merge segments of a site into one
+   * @param site site name
+   */
+  public void compact(String site) throws IOException {
+    getStore(site).compact();
+  }
+
+  private SiteStore getStore(String site) throws IOException {
+    try {
+      return stores.computeIfAbsent(site, s -> {
+        try {
+          return new SiteStore(folder(s));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * get folder of a site
+   * @param site site name
+   * @return site folder
+   */
+  private Path folder(String site) {
+    return Paths.get(property.getFolder()).toAbsolutePath().resolve(site);
+  }
+
+  /**
+   * get checkpoint file of an account, named by account hash so username is not visible on disk
+   * @param site site name
+   * @param account account username
+   * @return checkpoint file
+   */
+  private Path checkpointFile(String site, String account) {
+    return folder(site).resolve(CHECKPOINT_PREFIX + HashUtils.sha256(account) + CHECKPOINT_SUFFIX);
+  }
+
+  /**
+   * Segments, manifest and index of one site
+   */
+  private class SiteStore {
+
+    private final Path folder;
+    private Manifest manifest;
+
+    /**
+     * Represents content hash of every stored order, by order number
+     */
+    private final Map<String, String> orderHashes = new ConcurrentHashMap<>();
+
+    private SiteStore(Path folder) throws IOException {
+      this.folder = folder;
+      Files.createDirectories(folder);
+
+      Path manifestFile = folder.resolve(MANIFEST);
+      if (Files.exists(manifestFile)) {
+        manifest = OB.readValue(manifestFile.toFile(), Manifest.class);
+        readIndex();
+      } else {
+        manifest = new Manifest();
+        manifest.format = FORMAT;
+      }
+      if (manifest.format < FORMAT) {
+        upgrade();
+      }
+      recover();
+      if (!manifest.migrated) {
+        migrateLegacyFiles();
+      }
+    }
+
+    /**
+     * append new or changed orders to current segment
+     * @return number of orders appended
+     */
+    private synchronized int save(String account, List<PurchaseHistory> list) throws IOException {
+      List<Record> records = new ArrayList<>();
+      Map<String, String> newHashes = new LinkedHashMap<>();
+      long size = 0;
+      for (PurchaseHistory order : list) {
+        byte[] json = HISTORY_WRITER.writeValueAsBytes(order);
+        String hash = hash(json);
+        if (order.getOrderNumber() != null && hash.equals(orderHashes.get(order.getOrderNumber()))) {
+          continue;
+        }
+        records.add(new Record(account, order));
+        size += json.length;
+        if (order.getOrderNumber() != null) {
+          newHashes.put(order.getOrderNumber(), hash);
+        }
+        updateLatest(account, order);
+      }
+      if (records.isEmpty()) {
+        return 0;
+      }
+
+      Segment segment = currentSegment(size);
+      try (FileChannel channel = FileChannel.open(folder.resolve(segment.name), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        // anything after committed length is an interrupted write, overwritten
+        channel.truncate(segment.length);
+        channel.position(segment.length);
+        writeRecords(channel, records.stream());
+        channel.force(false);
+        segment.length = channel.position();
+      }
+      appendIndex(newHashes);
+      orderHashes.putAll(newHashes);
+      writeManifest();
+
+      if (manifest.segments.size() >= property.getCompactSegments()) {
+        compact();
+      }
+      return records.size();
+    }
+
+    /**
+     * stream last version of every order in committed segments.
+     * Segments are opened at once, so a later compaction does not remove them while being read.
+     */
+    private synchronized Stream<PurchaseHistory> streamAll() throws IOException {
+      return currentRecords().map(record -> record.order);
+    }
 
-    Collection<File> jsonFiles = listFiles(site);
-    for (File f : jsonFiles) {
+    private Set<String> findStored(Collection<String> orderNumbers) {
+      return orderNumbers.stream().filter(orderHashes::containsKey).collect(Collectors.toSet());
+    }
+
+    private synchronized Optional<PurchaseHistory> fetchLast(String account) {
+      return Optional.ofNullable(manifest.latest.get(account));
+    }
+
+    /**
+     * merge all segments into a new one, keeping last version of each order.
+     * Manifest is switched to new segment before old segments are deleted.
+     */
+    private synchronized void compact() throws IOException {
+      Segment merged = new Segment(segmentName(nextSegmentNumber()));
+      Path temp = folder.resolve(merged.name + TEMP_SUFFIX);
+      long count;
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+             StandardOpenOption.TRUNCATE_EXISTING);
+           Stream<Record> records = currentRecords()) {
+        count = writeRecords(channel, records);
+        channel.force(false);
+        merged.length = channel.position();
+      }
+      Files.move(temp, folder.resolve(merged.name), StandardCopyOption.ATOMIC_MOVE);
+
+      List<Segment> old = manifest.segments;
+      manifest.segments = new ArrayList<>(Collections.singletonList(merged));
+      writeManifest();
+      for (Segment segment : old) {
+        Files.deleteIfExists(folder.resolve(segment.name));
+      }
+      rewriteIndex();
+      LOGGER.info("Compacted " + old.size() + " purchase history segments of " + folder + ", " + count + " orders");
+    }
+
+    /**
+     * stream records of committed segments which are last version of their order,
+     * a record is the last version if its content hash is the one in index, and order was not streamed yet
+     */
+    private Stream<Record> currentRecords() throws IOException {
+      List<RecordReader> readers = new ArrayList<>();
       try {
-        histories.addAll(
-          OB.readValue(f, new TypeReference<List<PurchaseHistory>>(){}));
+        for (Segment segment : manifest.segments) {
+          if (Files.exists(folder.resolve(segment.name))) {
+            readers.add(new RecordReader(folder.resolve(segment.name), 0, segment.length));
+          }
+        }
       } catch (IOException e) {
-        LOGGER.error("Fail to read json file, skip");
+        closeAll(readers);
+        throw e;
+      }
+
+      Set<String> streamed = new HashSet<>();
+      return readers.stream()
+        .flatMap(RecordReader::stream)
+        .filter(record -> {
+          String number = record.order.getOrderNumber();
+          return number == null
+            || hash(record.json).equals(orderHashes.get(number)) && streamed.add(number);
+        })
+        .onClose(() -> closeAll(readers));
+    }
+
+    /**
+     * get segment to append to, a new one if current one would grow over segment size
+     * @param size size of new records
+     */
+    private Segment currentSegment(long size) {
+      Segment last = manifest.segments.isEmpty() ? null : manifest.segments.get(manifest.segments.size() - 1);
+      if (last == null || last.length > 0 && last.length + size > property.getSegmentSize()) {
+        last = new Segment(segmentName(nextSegmentNumber()));
+        manifest.segments.add(last);
+      }
+      return last;
+    }
+
+    /**
+     * keep latest order of account, by order date, last saved one wins on same date
+     */
+    private void updateLatest(String account, PurchaseHistory order) {
+      PurchaseHistory latest = manifest.latest.get(account);
+      LocalDate date = order.getOrderDate();
+      if (latest == null || date != null && (latest.getOrderDate() == null || !date.isBefore(latest.getOrderDate()))) {
+        manifest.latest.put(account, order);
+      }
+    }
+
+    /**
+     * compute hashes of stored orders again, after order json has changed.
+     * Orders saved by older versions are read by the current model, so they are not appended again.
+     */
+    private void upgrade() throws IOException {
+      orderHashes.clear();
+      for (Segment segment : manifest.segments) {
+        Path file = folder.resolve(segment.name);
+        if (!Files.exists(file)) {
+          continue;
+        }
+        try (RecordReader reader = new RecordReader(file, 0, segment.length)) {
+          Record record;
+          while ((record = reader.next()) != null) {
+            if (record.order.getOrderNumber() != null) {
+              orderHashes.put(record.order.getOrderNumber(), hash(record.json));
+            }
+          }
+        }
+      }
+      rewriteIndex();
+      manifest.format = FORMAT;
+      writeManifest();
+      LOGGER.info("Upgraded purchase history index of " + folder + " to format " + FORMAT);
+    }
+
+    /**
+     * recover records after committed length of segments, and segments not in manifest yet,
+     * written by a run interrupted before manifest was updated.
+     * Segments older than manifest are leftovers of an interrupted compaction and are deleted.
+     */
+    private void recover() throws IOException {
+      int lastListed = manifest.segments.stream().mapToInt(segment -> segmentNumber(segment.name)).max().orElse(0);
+      for (Path file : listSegmentFiles()) {
+        String name = file.getFileName().toString();
+        boolean listed = manifest.segments.stream().anyMatch(segment -> segment.name.equals(name));
+        if (!listed && segmentNumber(name) < lastListed) {
+          Files.delete(file);
+        } else if (!listed) {
+          manifest.segments.add(new Segment(name));
+        }
+      }
+
+      boolean recovered = false;
+      for (Segment segment : manifest.segments) {
+        Path file = folder.resolve(segment.name);
+        long size = Files.exists(file) ? Files.size(file) : 0;
+        if (size <= segment.length) {
+          continue;
+        }
+        Map<String, String> newHashes = new LinkedHashMap<>();
+        try (RecordReader reader = new RecordReader(file, segment.length, size)) {
+          Record record;
+          while ((record = reader.next()) != null) {
+            if (record.order.getOrderNumber() != null) {
+              newHashes.put(record.order.getOrderNumber(), hash(record.json));
+            }
+            updateLatest(record.account, record.order);
+            // an incomplete last line is not committed
+            segment.length = record.end;
+          }
+        }
+        appendIndex(newHashes);
+        orderHashes.putAll(newHashes);
+        recovered = true;
+        LOGGER.info("Recovered " + newHashes.size() + " purchase histories of interrupted run in " + segment.name);
+      }
+      if (recovered) {
+        writeManifest();
+      }
+    }
+
+    /**
+     * import history json files of previous versions, saved in account folders.
+     * Each file is read one order at a time and saved in batches.
+     */
+    private void migrateLegacyFiles() throws IOException {
+      int batchSize = Math.max(1, property.getBatchSize());
+      File[] accountFolders = folder.toFile().listFiles(File::isDirectory);
+      if (accountFolders != null) {
+        for (File accountFolder : accountFolders) {
+          Collection<File> files = FileUtils.listFiles(accountFolder, new String[]{"json"}, false);
+          for (File file : files) {
+            if (!file.getName().startsWith("history-")) {
+              continue;
+            }
+            try (MappingIterator<PurchaseHistory> orders = HISTORY_READER.readValues(file)) {
+              List<PurchaseHistory> batch = new ArrayList<>(batchSize);
+              while (orders.hasNextValue()) {
+                batch.add(orders.nextValue());
+                if (batch.size() == batchSize) {
+                  save(accountFolder.getName(), batch);
+                  batch.clear();
+                }
+              }
+              save(accountFolder.getName(), batch);
+            } catch (IOException | RuntimeException e) {
+              LOGGER.error("Fail to read json file " + file + ", skip");
+            }
+          }
+          if (!files.isEmpty()) {
+            LOGGER.info("Imported " + files.size() + " history files of " + accountFolder.getName());
+          }
+        }
+      }
+      manifest.migrated = true;
+      writeManifest();
+    }
+
+    private void readIndex() throws IOException {
+      Path index = folder.resolve(INDEX);
+      if (!Files.exists(index)) {
+        return;
+      }
+      try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          int tab = line.lastIndexOf('\t');
+          if (tab > 0) {
+            orderHashes.put(line.substring(0, tab), line.substring(tab + 1));
+          }
+        }
+      }
+    }
+
+    private void appendIndex(Map<String, String> hashes) throws IOException {
+      if (hashes.isEmpty()) {
+        return;
+      }
+      try (BufferedWriter writer = Files.newBufferedWriter(folder.resolve(INDEX), StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+          writer.write(entry.getKey() + "\t" + entry.getValue());
+          writer.newLine();
+        }
+      }
+    }
+
+    private void rewriteIndex() throws IOException {
+      Path temp = folder.resolve(INDEX + TEMP_SUFFIX);
+      try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        for (Map.Entry<String, String> entry : orderHashes.entrySet()) {
+          writer.write(entry.getKey() + "\t" + entry.getValue());
+          writer.newLine();
+        }
+      }
+      Files.move(temp, folder.resolve(INDEX), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeManifest() throws IOException {
+      Path temp = folder.resolve(MANIFEST + TEMP_SUFFIX);
+      OB.writeValue(temp.toFile(), manifest);
+      Files.move(temp, folder.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+      try (Stream<Path> files = Files.list(folder)) {
+        return files
+          .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX) && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
       }
     }
-    return histories;
+
+    private int nextSegmentNumber() {
+      return manifest.segments.stream().mapToInt(segment -> segmentNumber(segment.name)).max().orElse(0) + 1;
+    }
   }
 
-  @Override
-  public Optional<PurchaseHistory> fetchLast(String site) {
-    return listAll(site).stream().max((o1, o2) -> {
+  private static String segmentName(int number) {
+    return String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+  }
+
+  private static int segmentNumber(String name) {
+    return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  /**
+   * short hash of serialized order
+   */
+  private static String hash(byte[] json) {
+    return HashUtils.sha256(json).substring(0, 16);
+  }
+
+  /**
+   * write records as json lines at channel position
+   * @return number of records written
+   */
+  private static long writeRecords(FileChannel channel, Stream<Record> records) throws IOException {
+    long count = 0;
+    OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+    JsonGenerator generator = OB.getFactory().createGenerator(out);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.setRootValueSeparator(null);
+    for (Record record : (Iterable<Record>) records::iterator) {
+      RECORD_WRITER.writeValue(generator, record);
+      generator.writeRaw('\n');
+      count++;
+    }
+    generator.close();
+    out.flush();
+    return count;
+  }
+
+  private static void closeAll(List<? extends Closeable> closeables) {
+    for (Closeable closeable : closeables) {
       try {
-        return DateUtils.fromString(o1.getOrderDate()).compareTo(DateUtils.fromString(o2.getOrderDate()));
-      } catch (ParseException e) {
-        return -1;
+        closeable.close();
+      } catch (IOException e) {
+        LOGGER.warn("Fail to close purchase history segment", e);
       }
-    });
+    }
   }
 
   /**
-   * generate filename
-   * @param site site name
-   * @return absolute file path
+   * One line of a segment
    */
-  private String filename(String site) {
+  private static class Record {
+    public String account;
+    public PurchaseHistory order;
+
+    /**
+     * serialized order, for its content hash, not saved
+     */
+    @JsonIgnore
+    private byte[] json;
+
+    /**
+     * offset after line in segment, not saved
+     */
+    @JsonIgnore
+    private long end;
+
+    public Record() {
+    }
 
-    return new File("").getAbsoluteFile().getAbsolutePath() +
-      File.separator +
-      site +
-      File.separator +
-      "history-" +
-      DateUtils.currentDateTime() +
-      ".json";
+    private Record(String account, PurchaseHistory order) {
+      this.account = account;
+      this.order = order;
+    }
   }
 
   /**
-   * Finds all json files
-   * @param site site name
-   * @return list of json files
+   * Reads records of a segment between two offsets, one line at a time.
+   * Lines which are not valid are skipped, an incomplete last line is ignored.
    */
-  private Collection<File> listFiles(String site) {
-    File folder = new File(
-      new File("").getAbsoluteFile().getAbsolutePath() +
-        File.separator +
-        site
-    );
-    Collection<File> jsonFiles = FileUtils.listFiles(
-      folder,
-      new String[]{"json"},
-      false
-    );
+  private static class RecordReader implements Closeable {
+    private final Path file;
+    private final FileChannel channel;
+    private final InputStream in;
+    private long position;
+    private byte[] line = new byte[4096];
+
+    private RecordReader(Path file, long from, long to) throws IOException {
+      this.file = file;
+      this.channel = FileChannel.open(file, StandardOpenOption.READ);
+      this.channel.position(from);
+      this.in = new BufferedInputStream(new BoundedInputStream(Channels.newInputStream(channel), to - from), 64 * 1024);
+      this.position = from;
+    }
+
+    /**
+     * read next record
+     * @return record, null at end of range
+     */
+    private Record next() throws IOException {
+      int length = 0;
+      int b;
+      while ((b = in.read()) >= 0) {
+        position++;
+        if (b != '\n') {
+          if (length == line.length) {
+            line = Arrays.copyOf(line, length * 2);
+          }
+          line[length++] = (byte) b;
+          continue;
+        }
+        if (length == 0) {
+          continue;
+        }
+        try {
+          Record record = RECORD_READER.readValue(line, 0, length);
+          record.json = HISTORY_WRITER.writeValueAsBytes(record.order);
+          record.end = position;
+          return record;
+        } catch (IOException e) {
+          LOGGER.error("Fail to read purchase history line in " + file + ", skip");
+          length = 0;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * stream remaining records, read as stream is consumed
+     */
+    private Stream<Record> stream() {
+      return StreamSupport.stream(new Spliterators.AbstractSpliterator<Record>(Long.MAX_VALUE, Spliterator.ORDERED) {
+        @Override
+        public boolean tryAdvance(Consumer<? super Record> action) {
+          try {
+            Record record = next();
+            if (record == null) {
+              return false;
+            }
+            action.accept(record);
+            return true;
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      }, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
 
-    return jsonFiles;
+  /**
+   * Manifest of a site, latest order of each account and committed segments
+   */
+  private static class Manifest {
+    public int format;
+    public boolean migrated;
+    public List<Segment> segments = new ArrayList<>();
+    public Map<String, PurchaseHistory> latest = new HashMap<>();
   }
 
+  /**
+   * Segment file and its committed length
+   */
+  private static class Segment {
+    public String name;
+    public long length;
+
+    public Segment() {
+    }
+
+    private Segment(String name) {
+      this.name = name;
+    }
+  }
 }
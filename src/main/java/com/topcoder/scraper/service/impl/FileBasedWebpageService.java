@@ -5,6 +5,7 @@ import com.topcoder.scraper.util.DateUtils;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
@@ -12,9 +13,11 @@ import java.io.IOException;
 
 /**
  * File based WebpageService
- * which all records are saved as files in disk
+ * which all records are saved as files in disk,
+ * used when webpage.store is "file"
  */
 @Service
+@ConditionalOnProperty(prefix = "webpage", name = "store", havingValue = "file")
 public class FileBasedWebpageService implements WebpageService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FileBasedWebpageService.class);
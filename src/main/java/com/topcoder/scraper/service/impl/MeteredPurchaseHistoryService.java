@@ -0,0 +1,64 @@
+package com.topcoder.scraper.service.impl;
+
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.model.ScrapeCheckpoint;
+import com.topcoder.scraper.service.PurchaseHistoryService;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * PurchaseHistoryService timing calls to another PurchaseHistoryService,
+ * timers are tagged by site and account
+ */
+public class MeteredPurchaseHistoryService implements PurchaseHistoryService {
+
+  private final PurchaseHistoryService delegate;
+
+  public MeteredPurchaseHistoryService(PurchaseHistoryService delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void save(String site, String account, List<PurchaseHistory> list) {
+    Metrics.timer(ScrapeMetrics.HISTORY_SAVE, ScrapeMetrics.tags(site, account))
+      .record(() -> delegate.save(site, account, list));
+  }
+
+  @Override
+  public Stream<PurchaseHistory> streamAll(String site) {
+    return delegate.streamAll(site);
+  }
+
+  @Override
+  public Optional<PurchaseHistory> fetchLast(String site, String account) {
+    return Metrics.timer(ScrapeMetrics.HISTORY_FETCH_LAST, ScrapeMetrics.tags(site, account))
+      .record(() -> delegate.fetchLast(site, account));
+  }
+
+  @Override
+  public Set<String> findStored(String site, Collection<String> orderNumbers) {
+    return Metrics.timer(ScrapeMetrics.HISTORY_FIND_STORED, ScrapeMetrics.sessionTags(site))
+      .record(() -> delegate.findStored(site, orderNumbers));
+  }
+
+  @Override
+  public ScrapeCheckpoint findCheckpoint(String site, String account) {
+    return delegate.findCheckpoint(site, account);
+  }
+
+  @Override
+  public void saveCheckpoint(ScrapeCheckpoint checkpoint) {
+    delegate.saveCheckpoint(checkpoint);
+  }
+
+  @Override
+  public void deleteCheckpoint(String site, String account) {
+    delegate.deleteCheckpoint(site, account);
+  }
+}
@@ -0,0 +1,38 @@
+package com.topcoder.scraper.service.impl;
+
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import com.topcoder.scraper.service.WebpageService;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * WebpageService timing saves of another WebpageService,
+ * timers are tagged by site, account of current session and page name
+ */
+public class MeteredWebpageService implements WebpageService {
+
+  private final WebpageService delegate;
+
+  public MeteredWebpageService(WebpageService delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void save(String filename, String site, String content) {
+    Metrics.timer(ScrapeMetrics.WEBPAGE_SAVE, ScrapeMetrics.sessionTags(site).and("page", filename))
+      .record(() -> delegate.save(filename, site, content));
+  }
+
+  @Override
+  public void flush() {
+    delegate.flush();
+  }
+
+  /**
+   * stop background writer of delegate, if any
+   */
+  public void close() {
+    if (delegate instanceof AsyncWebpageService) {
+      ((AsyncWebpageService) delegate).close();
+    }
+  }
+}
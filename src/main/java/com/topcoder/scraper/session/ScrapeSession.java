@@ -0,0 +1,95 @@
+package com.topcoder.scraper.session;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+import com.topcoder.scraper.connection.SessionBoundConnection;
+import com.topcoder.scraper.model.Account;
+
+/**
+ * Scrape session of one account in one site,
+ * owns an isolated web client for its cookies and windows
+ */
+public class ScrapeSession {
+
+  /**
+   * Represents site name
+   */
+  private final String site;
+
+  /**
+   * Represents account being scraped
+   */
+  private final Account account;
+
+  /**
+   * Represents web client borrowed for this session
+   */
+  private final WebClient webClient;
+
+  /**
+   * Pool lending web clients besides the borrowed one, null if this session only has its own web client
+   */
+  private final WebClientPool webClientPool;
+
+  public ScrapeSession(String site, Account account, WebClient webClient) {
+    this(site, account, webClient, null);
+  }
+
+  public ScrapeSession(String site, Account account, WebClient webClient, WebClientPool webClientPool) {
+    this.site = site;
+    this.account = account;
+    this.webClient = webClient;
+    this.webClientPool = webClientPool;
+  }
+
+  public String getSite() {
+    return site;
+  }
+
+  public Account getAccount() {
+    return account;
+  }
+
+  public WebClient getWebClient() {
+    return webClient;
+  }
+
+  /**
+   * check if this session can borrow web clients besides its own one
+   * @return true if {@link #borrowSharedWebClient()} borrows web clients
+   */
+  public boolean canShareWebClient() {
+    return webClientPool != null;
+  }
+
+  /**
+   * borrow a web client from the pool and give it cookies of session web client, so it is logged in as session account.
+   * Its connections are bound to this session, so its page requests are paced with the ones of session web client.
+   * It is returned by {@link #releaseSharedWebClient(WebClient)}
+   * @return web client, null if this session cannot borrow web clients or none is free within borrow timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public WebClient borrowSharedWebClient() throws InterruptedException {
+    if (webClientPool == null) {
+      return null;
+    }
+    WebClient shared = webClientPool.tryBorrow();
+    if (shared == null) {
+      return null;
+    }
+    for (Cookie cookie : webClient.getCookieManager().getCookies()) {
+      shared.getCookieManager().addCookie(cookie);
+    }
+    SessionBoundConnection.bindAll(shared, site, account.getUsername());
+    return shared;
+  }
+
+  /**
+   * return a web client borrowed by {@link #borrowSharedWebClient()} to the pool
+   * @param shared web client to return
+   */
+  public void releaseSharedWebClient(WebClient shared) {
+    SessionBoundConnection.unbindAll(shared);
+    webClientPool.release(shared);
+  }
+}
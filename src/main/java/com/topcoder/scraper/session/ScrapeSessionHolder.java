@@ -0,0 +1,77 @@
+package com.topcoder.scraper.session;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Holds {@link ScrapeSession} of current worker thread,
+ * modules read their web client and account from here
+ */
+public final class ScrapeSessionHolder {
+
+  private static final ThreadLocal<ScrapeSession> SESSION = new ThreadLocal<>();
+
+  private ScrapeSessionHolder() {
+  }
+
+  /**
+   * get session of current thread
+   * @return current session
+   * @throws IllegalStateException if no session is bound to current thread
+   */
+  public static ScrapeSession get() {
+    ScrapeSession session = SESSION.get();
+    if (session == null) {
+      throw new IllegalStateException("No scrape session bound to current thread");
+    }
+    return session;
+  }
+
+  /**
+   * find session of current thread
+   * @return current session, null if no session is bound to current thread
+   */
+  public static ScrapeSession find() {
+    return SESSION.get();
+  }
+
+  /**
+   * bind session to current thread
+   * @param session session to bind
+   */
+  public static void set(ScrapeSession session) {
+    SESSION.set(session);
+  }
+
+  /**
+   * unbind session from current thread
+   */
+  public static void clear() {
+    SESSION.remove();
+  }
+
+  /**
+   * wrap a task so it runs with session of current thread, for tasks run by worker threads of a session
+   * @param task task to wrap
+   * @param <T> task result type
+   * @return task binding current session while it runs, task itself if no session is bound
+   */
+  public static <T> Callable<T> propagate(Callable<T> task) {
+    ScrapeSession session = SESSION.get();
+    if (session == null) {
+      return task;
+    }
+    return () -> {
+      ScrapeSession previous = SESSION.get();
+      SESSION.set(session);
+      try {
+        return task.call();
+      } finally {
+        if (previous != null) {
+          SESSION.set(previous);
+        } else {
+          SESSION.remove();
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,307 @@
+package com.topcoder.scraper.session;
+
+import com.gargoylesoftware.htmlunit.TopLevelWindow;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebWindow;
+import com.topcoder.scraper.config.WebClientPoolProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of web clients,
+ * each borrowed client is used by one scrape session at a time.
+ *
+ * Returned clients are reset (cookies, credentials, windows and their javascript jobs) and checked,
+ * a client which fails the check or served max uses is closed, next borrow creates a new one.
+ * Min idle clients are created in background at startup, optionally loading prewarm urls,
+ * other idle clients are closed once idle timeout passes.
+ */
+public class WebClientPool implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WebClientPool.class);
+
+  private final Supplier<WebClient> factory;
+  private final int maxSize;
+  private final WebClientPoolProperty property;
+  private final LongSupplier clock;
+  private final Semaphore permits;
+  private final Deque<Idle> idle = new ConcurrentLinkedDeque<>();
+
+  /**
+   * Number of sessions served by each client
+   */
+  private final Map<WebClient, Integer> uses = new ConcurrentHashMap<>();
+
+  /**
+   * Runs warm up and idle eviction, null if pool has no background thread
+   */
+  private final ScheduledExecutorService maintenance;
+
+  private volatile boolean closed;
+
+  /**
+   * @param factory creates new web client
+   * @param maxSize maximum number of clients borrowed at the same time
+   * @param property min idle, idle eviction, max uses and prewarm of the pool
+   */
+  public WebClientPool(Supplier<WebClient> factory, int maxSize, WebClientPoolProperty property) {
+    this(factory, maxSize, property, System::currentTimeMillis, Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "web-client-pool");
+      thread.setDaemon(true);
+      return thread;
+    }));
+  }
+
+  /**
+   * @param factory creates new web client
+   * @param maxSize maximum number of clients borrowed at the same time
+   * @param property min idle, idle eviction, max uses and prewarm of the pool
+   * @param clock current time in milliseconds
+   * @param maintenance runs warm up and idle eviction, null to run them only when called
+   */
+  WebClientPool(Supplier<WebClient> factory, int maxSize, WebClientPoolProperty property,
+                LongSupplier clock, ScheduledExecutorService maintenance) {
+    this.factory = factory;
+    this.maxSize = Math.max(1, maxSize);
+    this.property = property;
+    this.clock = clock;
+    this.permits = new Semaphore(this.maxSize, true);
+    this.maintenance = maintenance;
+    if (maintenance != null) {
+      if (property.getMinIdle() > 0) {
+        maintenance.execute(this::warmUp);
+      }
+      if (property.getIdleTimeout() > 0) {
+        long period = Math.max(1, property.getIdleTimeout() / 2);
+        maintenance.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * borrow a web client, blocks until one is available
+   * @return web client with no cookies
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public WebClient borrow() throws InterruptedException {
+    permits.acquire();
+    return take();
+  }
+
+  /**
+   * borrow a web client if one is free within borrow timeout, for work besides the web client of a session
+   * @return web client with no cookies, null if pool stays at max size until timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public WebClient tryBorrow() throws InterruptedException {
+    if (!permits.tryAcquire(property.getBorrowTimeout(), TimeUnit.MILLISECONDS)) {
+      return null;
+    }
+    return take();
+  }
+
+  /**
+   * take an idle web client, or create one, once a permit is acquired
+   * @return web client with no cookies
+   */
+  private WebClient take() {
+    try {
+      Idle entry;
+      while ((entry = idle.pollFirst()) != null) {
+        if (isHealthy(entry.webClient)) {
+          return entry.webClient;
+        }
+        LOGGER.warn("Idle web client failed health check, replace it");
+        discard(entry.webClient);
+      }
+      return factory.get();
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * return a web client to the pool, it is reset so next session starts logged out on an empty window
+   * @param webClient web client borrowed from this pool
+   */
+  public void release(WebClient webClient) {
+    try {
+      int used = uses.merge(webClient, 1, Integer::sum);
+      if (property.getMaxUses() > 0 && used >= property.getMaxUses()) {
+        LOGGER.debug("Web client served " + used + " sessions, replace it");
+        discard(webClient);
+      } else {
+        offerIdle(webClient);
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * number of idle web clients
+   * @return idle web clients
+   */
+  public int getIdle() {
+    return idle.size();
+  }
+
+  /**
+   * create idle web clients up to min idle, prewarmed clients load prewarm urls first
+   */
+  void warmUp() {
+    int created = 0;
+    while (!closed && idle.size() < Math.min(property.getMinIdle(), maxSize)) {
+      WebClient webClient = factory.get();
+      if (property.isPrewarm()) {
+        prewarm(webClient);
+      }
+      if (!offerIdle(webClient)) {
+        break;
+      }
+      created++;
+    }
+    LOGGER.info("Web client pool warmed up with " + created + " clients");
+  }
+
+  /**
+   * close idle web clients above min idle once idle timeout passes, least recently used first
+   */
+  void evictIdle() {
+    long now = clock.getAsLong();
+    Idle entry;
+    while (idle.size() > property.getMinIdle() && (entry = idle.peekLast()) != null
+      && now - entry.since >= property.getIdleTimeout()) {
+      if (idle.removeLastOccurrence(entry)) {
+        discard(entry.webClient);
+      }
+    }
+  }
+
+  /**
+   * load prewarm urls, so script engine is initialized and site scripts are in shared cache
+   * @param webClient new web client
+   */
+  private void prewarm(WebClient webClient) {
+    for (String url : property.getPrewarmUrls()) {
+      try {
+        webClient.getPage(url);
+      } catch (IOException | RuntimeException e) {
+        LOGGER.warn("Fail to prewarm web client with " + url + ": " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * reset web client and keep it idle, it is closed if it fails health check or pool is full or closed
+   * @param webClient web client no longer used
+   * @return true if web client is kept
+   */
+  private boolean offerIdle(WebClient webClient) {
+    if (closed || idle.size() >= maxSize || !reset(webClient)) {
+      discard(webClient);
+      return false;
+    }
+    idle.offerFirst(new Idle(webClient, clock.getAsLong()));
+    return true;
+  }
+
+  /**
+   * drop cookies, credentials and all windows but one, whose page and javascript jobs are replaced by an empty page
+   * @param webClient web client to reset
+   * @return true if web client is healthy after reset
+   */
+  private boolean reset(WebClient webClient) {
+    try {
+      webClient.getCookieManager().clearCookies();
+      webClient.getCredentialsProvider().clear();
+
+      List<TopLevelWindow> windows = new ArrayList<>(webClient.getTopLevelWindows());
+      for (int i = 1; i < windows.size(); i++) {
+        windows.get(i).close();
+      }
+      WebWindow window = windows.isEmpty() ? webClient.getCurrentWindow() : windows.get(0);
+      window.getJobManager().removeAllJobs();
+      webClient.getPage(window, new WebRequest(WebClient.URL_ABOUT_BLANK));
+      webClient.setCurrentWindow(window);
+      return isHealthy(webClient);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Fail to reset web client, replace it: " + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * health check of an idle web client, it has one window on an empty page without pending javascript jobs
+   * @param webClient idle web client
+   * @return true if web client can be borrowed
+   */
+  private boolean isHealthy(WebClient webClient) {
+    try {
+      WebWindow window = webClient.getCurrentWindow();
+      return webClient.getTopLevelWindows().size() == 1
+        && window.getEnclosedPage() != null
+        && WebClient.URL_ABOUT_BLANK.equals(window.getEnclosedPage().getUrl())
+        && window.getJobManager().getJobCount() == 0;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * close a web client which leaves the pool
+   * @param webClient web client to close
+   */
+  private void discard(WebClient webClient) {
+    uses.remove(webClient);
+    try {
+      webClient.close();
+    } catch (RuntimeException e) {
+      LOGGER.debug("Fail to close web client: " + e.getMessage());
+    }
+  }
+
+  /**
+   * close all idle web clients
+   */
+  @Override
+  public void close() {
+    closed = true;
+    if (maintenance != null) {
+      maintenance.shutdownNow();
+    }
+    Idle entry;
+    while ((entry = idle.pollFirst()) != null) {
+      discard(entry.webClient);
+    }
+  }
+
+  /**
+   * Idle web client with the time it was returned
+   */
+  private static class Idle {
+    private final WebClient webClient;
+    private final long since;
+
+    private Idle(WebClient webClient, long since) {
+      this.webClient = webClient;
+      this.since = since;
+    }
+  }
+}
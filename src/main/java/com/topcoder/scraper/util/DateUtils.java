@@ -1,16 +1,50 @@
 package com.topcoder.scraper.util;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Date;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
 
 public class DateUtils {
+
+  /**
+   * Order date formats of order pages, like "March 3, 2018" or "Mar 3, 2018".
+   * Formatters are immutable and built once.
+   */
+  private static final DateTimeFormatter[] ORDER_DATE_FORMATS = {
+    DateTimeFormatter.ISO_LOCAL_DATE,
+    new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("MMMM d, uuuu").toFormatter(Locale.US),
+    new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("MMM d, uuuu").toFormatter(Locale.US)
+  };
+
   public static String currentDateTime() {
     return LocalDateTime.now().toString().replace(":", "-");
   }
 
-  public static Date fromString(String in) throws ParseException {
-    return new SimpleDateFormat("MMM dd, yyyy").parse(in);
+  /**
+   * parse order date text of order pages, or ISO date saved in json
+   * @param in date text
+   * @return parsed date, null if text is empty
+   * @throws DateTimeParseException if text is not a known date format
+   */
+  public static LocalDate parseOrderDate(String in) {
+    if (in == null || in.trim().isEmpty()) {
+      return null;
+    }
+    String text = in.trim();
+    // ISO dates start with the year, page dates with the month
+    int from = Character.isDigit(text.charAt(0)) ? 0 : 1;
+    int to = from == 0 ? 1 : ORDER_DATE_FORMATS.length;
+    DateTimeParseException failure = null;
+    for (int i = from; i < to; i++) {
+      try {
+        return LocalDate.parse(text, ORDER_DATE_FORMATS[i]);
+      } catch (DateTimeParseException e) {
+        failure = e;
+      }
+    }
+    throw failure;
   }
 }
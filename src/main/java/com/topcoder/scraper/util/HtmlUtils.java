@@ -1,12 +1,12 @@
 package com.topcoder.scraper.util;
 
-import com.gargoylesoftware.htmlunit.html.HtmlElement;
+import com.topcoder.scraper.fetcher.HtmlNode;
 
 public class HtmlUtils {
 
-    public static String getTextContent(HtmlElement element) {
-        if(element != null) {
-            return element.getTextContent().trim();
+    public static String getTextContent(HtmlNode node) {
+        if(node != null) {
+            return node.text();
         }
         return null;
     }
@@ -0,0 +1,24 @@
+ALTER TABLE purchase_history
+  ADD COLUMN site VARCHAR(32),
+  ADD COLUMN order_number VARCHAR(64),
+  ADD COLUMN order_date DATE;
+
+-- amazon is the only site which has been scraped before this migration
+UPDATE purchase_history
+SET site         = 'amazon',
+    order_number = NULLIF(JSON_UNQUOTE(JSON_EXTRACT(order_json, '$.orderNumber')), 'null');
+
+-- dates were stored as displayed, e.g. "October 5, 2018" or "Oct 5, 2018"
+UPDATE purchase_history
+SET order_date = STR_TO_DATE(JSON_UNQUOTE(JSON_EXTRACT(order_json, '$.orderDate')), '%M %e, %Y')
+WHERE JSON_UNQUOTE(JSON_EXTRACT(order_json, '$.orderDate'))
+  REGEXP '^(January|February|March|April|May|June|July|August|September|October|November|December) [0-9]{1,2}, [0-9]{4}$';
+
+UPDATE purchase_history
+SET order_date = STR_TO_DATE(JSON_UNQUOTE(JSON_EXTRACT(order_json, '$.orderDate')), '%b %e, %Y')
+WHERE order_date IS NULL
+  AND JSON_UNQUOTE(JSON_EXTRACT(order_json, '$.orderDate'))
+  REGEXP '^(Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec) [0-9]{1,2}, [0-9]{4}$';
+
+CREATE INDEX idx_purchase_history_site_order_date ON purchase_history (site, order_date);
+CREATE INDEX idx_purchase_history_site_order_number ON purchase_history (site, order_number);
@@ -0,0 +1,11 @@
+-- keep the first saved copy of each order before enforcing uniqueness
+DELETE duplicate FROM purchase_history duplicate
+  JOIN purchase_history original
+    ON duplicate.site = original.site
+   AND duplicate.order_number = original.order_number
+   AND duplicate.id > original.id;
+
+DROP INDEX idx_purchase_history_site_order_number ON purchase_history;
+
+ALTER TABLE purchase_history
+  ADD CONSTRAINT uq_purchase_history_site_order_number UNIQUE (site, order_number);
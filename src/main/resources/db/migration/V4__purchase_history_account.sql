@@ -0,0 +1,9 @@
+ALTER TABLE purchase_history
+  ADD COLUMN account VARCHAR(255) NOT NULL DEFAULT '';
+
+-- histories saved before this migration belong to the single configured account
+UPDATE purchase_history
+SET account = '${legacyAccount}';
+
+DROP INDEX idx_purchase_history_site_order_date ON purchase_history;
+CREATE INDEX idx_purchase_history_site_account_order_date ON purchase_history (site, account, order_date);
@@ -0,0 +1,13 @@
+-- progress of unfinished purchase history runs, one row per account
+CREATE TABLE scrape_checkpoint (
+  id                INT AUTO_INCREMENT NOT NULL PRIMARY KEY,
+  site              VARCHAR(32)   NOT NULL,
+  account           VARCHAR(255)  NOT NULL,
+  period            VARCHAR(64),
+  cursor_url        VARCHAR(2048) NOT NULL,
+  orders            INT           NOT NULL DEFAULT 0,
+  last_order_number VARCHAR(64),
+  last_order_date   DATE,
+  updated_at        BIGINT        NOT NULL,
+  CONSTRAINT uq_scrape_checkpoint_site_account UNIQUE (site, account)
+);
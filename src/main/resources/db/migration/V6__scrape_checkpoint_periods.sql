@@ -0,0 +1,2 @@
+-- checkpoint of a backfill fetching time periods in parallel has no page url, only its last written period
+ALTER TABLE scrape_checkpoint MODIFY cursor_url VARCHAR(2048);
@@ -0,0 +1,231 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.topcoder.scraper.config.HttpCacheProperty;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachingWebConnectionTest {
+
+  private static final String SCRIPT = "https://images-na.ssl-images-amazon.com/site.js";
+  private static final String PAGE = "https://www.amazon.com/gp/your-account/order-history";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final HttpCacheProperty property = new HttpCacheProperty();
+  private final Deque<WebResponseData> responses = new ArrayDeque<>();
+  private final List<WebRequest> requests = new ArrayList<>();
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private WebClient webClient;
+  private CachingWebConnection connection;
+
+  @Before
+  public void setUp() {
+    property.setFolder(folder.getRoot().getPath());
+    webClient = new WebClient();
+    webClient.setWebConnection(new WebConnection() {
+      @Override
+      public WebResponse getResponse(WebRequest request) {
+        // keep conditional headers as sent
+        WebRequest sent = new WebRequest(request.getUrl());
+        sent.setAdditionalHeaders(new HashMap<>(request.getAdditionalHeaders()));
+        requests.add(sent);
+        return new WebResponse(responses.poll(), request, 0);
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+    connection = new CachingWebConnection(webClient, property, new HttpCache(property), now::get);
+    connection.bind("amazon", "user");
+  }
+
+  @After
+  public void tearDown() {
+    webClient.close();
+  }
+
+  @Test
+  public void testFreshResponseServedFromDisk() throws IOException {
+    responses.add(response(200, "var a = 1;", "Cache-Control", "public, max-age=3600"));
+    assertEquals("var a = 1;", fetch(SCRIPT).getContentAsString());
+
+    now.addAndGet(3_599_000);
+    WebResponse cached = fetch(SCRIPT);
+    assertTrue(CachingWebConnection.isCached(cached));
+    assertEquals("var a = 1;", cached.getContentAsString());
+    assertEquals(1, requests.size());
+
+    // next run reads cache folder, scripts are shared by accounts
+    connection = new CachingWebConnection(webClient, property, new HttpCache(property), now::get);
+    connection.bind("amazon", "other");
+    assertEquals("var a = 1;", fetch(SCRIPT).getContentAsString());
+    assertEquals(1, requests.size());
+
+    // stale without validator, fetched again
+    now.addAndGet(1000);
+    responses.add(response(200, "var a = 2;", "Cache-Control", "max-age=3600"));
+    assertEquals("var a = 2;", fetch(SCRIPT).getContentAsString());
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void testStaleResponseRevalidated() throws IOException {
+    responses.add(response(200, "<html>orders</html>", "Cache-Control", "no-cache", "ETag", "\"v1\"",
+      "Last-Modified", "Tue, 15 Nov 1994 12:45:26 GMT", "Set-Cookie", "session-id=1"));
+    fetch(PAGE);
+
+    responses.add(response(304, "", "ETag", "\"v1\""));
+    WebResponse revalidated = fetch(PAGE);
+    assertTrue(CachingWebConnection.isCached(revalidated));
+    assertEquals("<html>orders</html>", revalidated.getContentAsString());
+    assertNull(revalidated.getResponseHeaderValue("Set-Cookie"));
+    WebRequest conditional = requests.get(1);
+    assertEquals("\"v1\"", conditional.getAdditionalHeaders().get("If-None-Match"));
+    assertEquals("Tue, 15 Nov 1994 12:45:26 GMT", conditional.getAdditionalHeaders().get("If-Modified-Since"));
+
+    // pages are not shared by accounts
+    connection.bind("amazon", "other");
+    responses.add(response(200, "<html>other orders</html>", "Cache-Control", "no-store"));
+    WebResponse other = fetch(PAGE);
+    assertFalse(CachingWebConnection.isCached(other));
+    assertNull(requests.get(2).getAdditionalHeaders().get("If-None-Match"));
+    assertEquals("<html>other orders</html>", other.getContentAsString());
+  }
+
+  @Test
+  public void testPrivateResponsesNotStored() throws IOException {
+    responses.add(response(200, "<html>orders</html>", "Cache-Control", "private, max-age=600", "ETag", "\"v1\""));
+    fetch(PAGE);
+    responses.add(response(200, "<html>orders</html>", "Cache-Control", "private, max-age=600", "ETag", "\"v1\""));
+    assertFalse(CachingWebConnection.isCached(fetch(PAGE)));
+
+    assertEquals(2, requests.size());
+    assertNull(requests.get(1).getAdditionalHeaders().get("If-None-Match"));
+    assertEquals(0, folder.getRoot().list().length);
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEvicted() throws IOException {
+    property.setMaxSize(2500);
+    HttpCache cache = new HttpCache(property);
+    for (String name : Arrays.asList("a", "b", "c")) {
+      HttpCache.Entry entry = new HttpCache.Entry();
+      entry.key = name;
+      entry.url = "https://www.amazon.com/" + name;
+      entry.status = 200;
+      entry.body = new byte[1000];
+      cache.put(entry);
+      if (name.equals("b")) {
+        // a is used again, b becomes least recently used
+        assertNotNull(cache.get("a"));
+      }
+    }
+
+    assertEquals(2, cache.getEntries());
+    assertTrue(cache.getSize() <= property.getMaxSize());
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+  }
+
+  @Test
+  public void testUnreadableResponseRemoved() throws IOException {
+    HttpCache cache = new HttpCache(property);
+    HttpCache.Entry entry = new HttpCache.Entry();
+    entry.key = SCRIPT;
+    entry.url = SCRIPT;
+    entry.status = 200;
+    entry.body = "var a = 1;".getBytes(StandardCharsets.UTF_8);
+    cache.put(entry);
+
+    for (File file : folder.getRoot().listFiles((dir, name) -> name.endsWith(".body"))) {
+      assertTrue(file.delete());
+    }
+    assertNull(cache.get(SCRIPT));
+    assertEquals(0, cache.getEntries());
+    assertEquals(0, folder.getRoot().list().length);
+  }
+
+  @Test
+  public void testConcurrentWritesOfSharedKey() throws Exception {
+    HttpCache cache = new HttpCache(property);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        int writer = thread;
+        tasks.add(executor.submit(() -> {
+          for (int i = 0; i < 200; i++) {
+            HttpCache.Entry entry = new HttpCache.Entry();
+            entry.key = SCRIPT;
+            entry.url = SCRIPT;
+            entry.status = 200;
+            entry.message = writer + "-" + i;
+            entry.body = entry.message.getBytes(StandardCharsets.UTF_8);
+            cache.put(entry);
+
+            // metadata and body of a read are the ones of the same write
+            HttpCache.Entry read = cache.get(SCRIPT);
+            assertNotNull(read);
+            assertEquals(read.message, new String(read.body, StandardCharsets.UTF_8));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, cache.getEntries());
+    assertEquals(2, folder.getRoot().list().length);
+  }
+
+  private WebResponse fetch(String url) throws IOException {
+    return connection.getResponse(new WebRequest(new URL(url)));
+  }
+
+  private static WebResponseData response(int status, String body, String... headers) {
+    List<NameValuePair> pairs = new ArrayList<>(Collections.singletonList(new NameValuePair("Content-Type",
+      body.startsWith("<") ? "text/html" : "application/javascript")));
+    for (int i = 0; i < headers.length; i += 2) {
+      pairs.add(new NameValuePair(headers[i], headers[i + 1]));
+    }
+    return new WebResponseData(body.getBytes(StandardCharsets.UTF_8), status, status == 200 ? "OK" : "Not Modified", pairs);
+  }
+}
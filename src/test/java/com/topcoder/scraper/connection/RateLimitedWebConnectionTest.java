@@ -0,0 +1,141 @@
+package com.topcoder.scraper.connection;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.topcoder.scraper.config.RateLimitProperty;
+import com.topcoder.scraper.exception.FetchThrottledFailure;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RateLimitedWebConnectionTest {
+
+  private static final String PAGE = "<html><body>orders</body></html>";
+  private static final String CAPTCHA = "<html><body><form action=\"/errors/validateCaptcha\"></form></body></html>";
+
+  private final RateLimitProperty property = new RateLimitProperty();
+  private final Deque<WebResponseData> responses = new ArrayDeque<>();
+  private WebClient webClient;
+  private RateLimiters limiters;
+  private int requests;
+
+  @Before
+  public void setUp() {
+    property.setRequestsPerSecond(1000);
+    property.setMaxRequestsPerSecond(1000);
+    property.setBackoff(1);
+    property.setMaxRetries(2);
+    property.setThrottlePatterns(Collections.singletonList("/errors/validateCaptcha"));
+
+    webClient = new WebClient();
+    webClient.setWebConnection(new WebConnection() {
+      @Override
+      public WebResponse getResponse(WebRequest request) {
+        requests++;
+        return new WebResponse(responses.isEmpty() ? ReplayWebConnection.html(PAGE) : responses.poll(), request, 0);
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+    limiters = new RateLimiters(property);
+    new RateLimitedWebConnection(webClient, property, limiters).bind("test", "user");
+  }
+
+  @After
+  public void tearDown() {
+    webClient.close();
+  }
+
+  @Test
+  public void testRetryThrottledResponses() throws IOException {
+    responses.addAll(Arrays.asList(ReplayWebConnection.html(503, "Service Unavailable", "busy"), ReplayWebConnection.html(CAPTCHA)));
+    double rate = limiters.get("test", "user").getRate();
+
+    WebResponse response = fetch(HttpMethod.GET);
+    assertEquals(200, response.getStatusCode());
+    assertEquals(PAGE, response.getContentAsString());
+    assertEquals(3, requests);
+    // cut twice
+    assertEquals(rate / 4, limiters.get("test", "user").getRate(), 1e-9);
+  }
+
+  @Test
+  public void testFailWhenRetriesAreExhausted() throws IOException {
+    responses.addAll(Collections.nCopies(3, ReplayWebConnection.html(CAPTCHA)));
+    try {
+      fetch(HttpMethod.GET);
+      fail("throttled page should not be returned");
+    } catch (FetchThrottledFailure e) {
+      assertEquals(3, requests);
+    }
+  }
+
+  @Test
+  public void testPostIsNotRetried() throws IOException {
+    responses.add(ReplayWebConnection.html(429, "Too Many Requests", "slow down"));
+    try {
+      fetch(HttpMethod.POST);
+      fail("throttled post should fail");
+    } catch (FetchThrottledFailure e) {
+      assertEquals(1, requests);
+    }
+  }
+
+  @Test
+  public void testAdaptiveRate() throws InterruptedException {
+    property.setRequestsPerSecond(1);
+    property.setMaxRequestsPerSecond(2);
+    property.setBurst(1);
+    property.setIncrease(0.5);
+    property.setHealthyResponses(2);
+    AtomicLong now = new AtomicLong();
+    AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(property, now::get);
+
+    // burst is spent, next request waits one token at 1 request/s
+    assertEquals(0, limiter.reserve());
+    assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.reserve());
+
+    // additive increase after healthy responses, up to maximum
+    for (int i = 0; i < 10; i++) {
+      limiter.onHealthy();
+    }
+    assertEquals(2, limiter.getRate(), 1e-9);
+
+    // multiplicative decrease, down to minimum
+    limiter.onThrottled();
+    assertEquals(1, limiter.getRate(), 1e-9);
+    for (int i = 0; i < 10; i++) {
+      limiter.onThrottled();
+    }
+    assertEquals(property.getMinRequestsPerSecond(), limiter.getRate(), 1e-9);
+
+    // tokens refill at current rate
+    now.addAndGet(TimeUnit.SECONDS.toNanos(100));
+    assertEquals(0, limiter.reserve());
+    assertTrue(limiter.reserve() > 0);
+  }
+
+  private WebResponse fetch(HttpMethod method) throws IOException {
+    WebRequest request = new WebRequest(new URL("https://www.amazon.com/gp/your-account/order-history"), method);
+    return webClient.getWebConnection().getResponse(request);
+  }
+}
@@ -0,0 +1,56 @@
+package com.topcoder.scraper.model;
+
+import org.junit.Test;
+
+import java.util.Currency;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class MoneyTest {
+
+  private static final Currency USD = Currency.getInstance("USD");
+  private static final Currency EUR = Currency.getInstance("EUR");
+
+  @Test
+  public void testUsAmounts() {
+    assertEquals(Money.of(123456, USD), Money.parse("$1,234.56", USD));
+    assertEquals(Money.of(123456, USD), Money.parse("1234.56 USD", USD));
+    assertEquals(Money.of(1200, EUR), Money.parse("\u20ac12", USD));
+    assertNull(Money.parse(" ", USD));
+  }
+
+  @Test
+  public void testCommaDecimalMarketplace() {
+    Currency currency = Money.currencyOf(Locale.GERMANY);
+    assertEquals(EUR, currency);
+    assertEquals(Money.of(1234, EUR), Money.parse("EUR 12,34", currency, Locale.GERMANY));
+    assertEquals(Money.of(1234, EUR), Money.parse("12,34 \u20ac", currency, Locale.GERMANY));
+    assertEquals(Money.of(123456, EUR), Money.parse("1.234,56 \u20ac", currency, Locale.GERMANY));
+    assertEquals(Money.of(123456, EUR), Money.parse("1 234,56 \u20ac", currency, Locale.FRANCE));
+    assertEquals(Money.of(1234, EUR), Money.parse("12,34", currency, Locale.GERMANY));
+  }
+
+  @Test
+  public void testAmbiguousGroupingIsRejected() {
+    try {
+      Money.parse("12,34", USD);
+      fail("',' groups thousands in US amounts");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertEquals(Money.of(12345678, Currency.getInstance("INR")),
+      Money.parse("\u20b9 1,23,456.78", Money.currencyOf(new Locale("en", "IN")), new Locale("en", "IN")));
+  }
+
+  @Test
+  public void testFromJson() {
+    assertEquals(Money.of(1234, USD), Money.fromJson("12.34 USD"));
+    assertEquals(Money.of(1234, USD), Money.fromJson("$12.34"));
+    assertEquals(Money.of(1234, EUR), Money.fromJson("EUR 12,34"));
+    assertEquals("12.34 EUR", Money.fromJson("EUR 12,34").toString());
+    assertNull(Money.fromJson("free"));
+  }
+}
@@ -0,0 +1,126 @@
+package com.topcoder.scraper.module;
+
+import com.topcoder.scraper.model.PurchaseHistory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PurchaseHistoryPipelineTest {
+
+  private static final int ORDERS_PER_PAGE = 3;
+
+  private final List<PurchaseHistory> written = new CopyOnWriteArrayList<>();
+  private final List<String> committed = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void testOrdersWrittenInPageOrder() throws IOException {
+    Pages pages = new Pages(5);
+    new PurchaseHistoryPipeline<>(pages, this::parse, written::addAll, 2, 1).run();
+
+    assertEquals(orderNumbers(0, 5), written.stream().map(PurchaseHistory::getOrderNumber).collect(Collectors.toList()));
+    assertEquals(5, pages.fetched);
+    assertTrue(pages.held.isEmpty());
+  }
+
+  @Test
+  public void testStopWhenParserFindsNoNewOrder() throws IOException {
+    Pages pages = new Pages(100);
+    new PurchaseHistoryPipeline<>(pages, (page, orders) -> parse(page, orders) && page < 2, written::addAll, 2, 1,
+      (page, orders) -> () -> committed.add("page " + page + " after " + written.size() + " orders")).run();
+
+    // pages fetched ahead of parser are released
+    assertEquals(orderNumbers(0, 3), written.stream().map(PurchaseHistory::getOrderNumber).collect(Collectors.toList()));
+    assertTrue(pages.fetched < 100);
+    assertTrue(pages.held.isEmpty());
+
+    // progress of a page is recorded once its orders are written
+    for (int page = 0; page < 3; page++) {
+      int recorded = Integer.parseInt(committed.get(page).replaceAll(".* after (\\d+) orders", "$1"));
+      assertTrue(committed.get(page), recorded >= (page + 1) * ORDERS_PER_PAGE);
+    }
+  }
+
+  @Test
+  public void testOrdersBeforeFailureAreWritten() {
+    Pages pages = new Pages(5);
+    pages.failAt = 3;
+    try {
+      new PurchaseHistoryPipeline<>(pages, this::parse, written::addAll, 1, 1).run();
+      fail("fetch failure should be rethrown");
+    } catch (IOException e) {
+      assertEquals("page 3 failed", e.getMessage());
+    }
+    assertEquals(orderNumbers(0, 3), written.stream().map(PurchaseHistory::getOrderNumber).collect(Collectors.toList()));
+    assertTrue(pages.held.isEmpty());
+  }
+
+  private boolean parse(Integer page, List<PurchaseHistory> orders) {
+    for (String orderNumber : orderNumbers(page, page + 1)) {
+      orders.add(new PurchaseHistory(orderNumber, null, null, Collections.emptyList(), null));
+    }
+    return true;
+  }
+
+  private static List<String> orderNumbers(int fromPage, int toPage) {
+    List<String> orderNumbers = new ArrayList<>();
+    for (int page = fromPage; page < toPage; page++) {
+      for (int i = 0; i < ORDERS_PER_PAGE; i++) {
+        orderNumbers.add(page + "-" + i);
+      }
+    }
+    return orderNumbers;
+  }
+
+  /**
+   * Numbered pages, keeps pages fetched and not yet released
+   */
+  private static class Pages implements PurchaseHistoryPipeline.PageSource<Integer> {
+
+    private final int count;
+    private final Set<Integer> held = ConcurrentHashMap.newKeySet();
+    private volatile int fetched;
+    private int failAt = -1;
+
+    private Pages(int count) {
+      this.count = count;
+    }
+
+    @Override
+    public Integer first() throws IOException {
+      return fetch(0);
+    }
+
+    @Override
+    public Integer next(Integer page) throws IOException {
+      return fetch(page + 1);
+    }
+
+    @Override
+    public void release(Integer page) {
+      held.remove(page);
+    }
+
+    private Integer fetch(int page) throws IOException {
+      if (page == failAt) {
+        throw new IOException("page " + page + " failed");
+      }
+      if (page >= count) {
+        return null;
+      }
+      fetched++;
+      held.add(page);
+      return page;
+    }
+  }
+}
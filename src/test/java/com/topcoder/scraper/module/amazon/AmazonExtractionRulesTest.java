@@ -0,0 +1,60 @@
+package com.topcoder.scraper.module.amazon;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.topcoder.scraper.fetcher.HtmlNode;
+import com.topcoder.scraper.parser.CompiledRules;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AmazonExtractionRulesTest {
+
+  private final CompiledRules rules = OrderPages.rules();
+
+  @Test
+  public void testExtractHtmlUnitPage() throws IOException {
+    WebClient webClient = OrderPages.webClient();
+    try {
+      assertSameAsSelectorQueries(OrderPages.htmlUnit(webClient, OrderPages.fixture()));
+    } finally {
+      webClient.close();
+    }
+  }
+
+  @Test
+  public void testExtractJsoupPage() throws IOException {
+    assertSameAsSelectorQueries(OrderPages.jsoup(OrderPages.fixture()));
+  }
+
+  @Test
+  public void testPageSelectors() throws IOException {
+    HtmlNode page = OrderPages.jsoup(OrderPages.fixture());
+    assertEquals("/gp/css/order-history", page.selectFirst(rules.selector("ordersLink")).attr("href"));
+    assertEquals("/gp/your-account/order-history?orderFilter=year-2018&startIndex=10",
+      page.selectFirst(rules.selector("nextPage")).attr("href"));
+    assertEquals(4, page.selectAll(rules.selector("timePeriods")).size());
+  }
+
+  private void assertSameAsSelectorQueries(HtmlNode page) {
+    List<HtmlNode> orders = page.selectAll(rules.getOrders());
+    assertEquals(10, orders.size());
+
+    CompiledRules.Extraction first = rules.extract(orders.get(0));
+    assertEquals("112-1000000-2000000", first.get("orderNumber"));
+    assertEquals("December 28, 2018", first.get("orderDate"));
+    assertEquals("$10.00", first.get("totalAmount"));
+    assertEquals("Delivered December 28, 2018", first.get("deliveryStatus"));
+    assertEquals(1, first.getProducts().size());
+    assertEquals("Product 0 of order 112-1000000-2000000", first.getProducts().get(0).get("name"));
+    assertEquals("Seller 0", first.getProducts().get(0).get("distributor"));
+    assertEquals("$5.00", first.getProducts().get(0).get("price"));
+    assertEquals("1", first.getProducts().get(0).get("quantity"));
+
+    for (HtmlNode order : orders) {
+      assertEquals(OrderPages.legacyExtract(order), OrderPages.texts(rules.extract(order)));
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.topcoder.scraper.module.amazon;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.WebWindow;
+import com.topcoder.scraper.config.AmazonProperty;
+import com.topcoder.scraper.config.PurchaseHistoryProperty;
+import com.topcoder.scraper.config.ReplayProperty;
+import com.topcoder.scraper.config.WebClientProperty;
+import com.topcoder.scraper.connection.ReplaySite;
+import com.topcoder.scraper.connection.ReplayWebConnection;
+import com.topcoder.scraper.model.Account;
+import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.parser.DateParser;
+import com.topcoder.scraper.service.PurchaseHistoryService;
+import com.topcoder.scraper.service.WebpageService;
+import com.topcoder.scraper.session.ScrapeSession;
+import com.topcoder.scraper.session.ScrapeSessionHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AmazonPageMemoryTest {
+
+  private static final int PAGES = 1000;
+  private static final int ORDERS_PER_PAGE = 10;
+  private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+  private final AmazonProperty property = new AmazonProperty();
+  private WebClient webClient;
+  private String template;
+
+  @Before
+  public void setUp() throws IOException {
+    property.setUrl("https://www.amazon.com/");
+    property.setHistoryUrl("https://www.amazon.com/gp/your-account/order-history?orderFilter=");
+    webClient = OrderPages.webClient();
+
+    // one time period, pages differ by order numbers and next page link
+    template = OrderPages.fixture().replace("<option value=\"year-2017\">2017</option>", "");
+  }
+
+  @After
+  public void tearDown() {
+    ScrapeSessionHolder.clear();
+    webClient.close();
+  }
+
+  @Test
+  public void testHeapStaysFlatAcrossReplayedPages() throws IOException {
+    // pages with new orders are saved once parsed, heap is measured there
+    AtomicInteger pages = new AtomicInteger();
+    Map<Integer, Long> heap = new ConcurrentHashMap<>();
+    WebpageService webpageService = (filename, site, content) -> {
+      int page = pages.incrementAndGet();
+      if (page % 200 == 0) {
+        heap.put(page, usedHeap());
+      }
+    };
+
+    webClient.setWebConnection(new ReplayWebConnection(
+      Collections.singletonList(new GeneratedSite()), new ReplayProperty()));
+    ScrapeSessionHolder.set(new ScrapeSession("amazon", new Account("user", "password"), webClient));
+    new AmazonPurchaseHistoryListModule(property, new PurchaseHistoryProperty(), new WebClientProperty(),
+      new DiscardingStore(), webpageService, new DateParser())
+      .fetchPurchaseHistoryList();
+
+    assertEquals(PAGES, pages.get());
+    long growth = heap.get(PAGES) - heap.get(200);
+    assertTrue("heap grew by " + growth + " bytes from page 200 to " + PAGES, growth < MAX_HEAP_GROWTH);
+
+    // order page windows are closed, no javascript job is left
+    assertEquals(1, webClient.getTopLevelWindows().size());
+    for (WebWindow window : webClient.getWebWindows()) {
+      assertEquals(0, window.getJobManager().getJobCount());
+    }
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Store keeping nothing, mocks would keep every call and its arguments
+   */
+  private static class DiscardingStore implements PurchaseHistoryService {
+
+    @Override
+    public void save(String site, String account, List<PurchaseHistory> list) {
+    }
+
+    @Override
+    public Stream<PurchaseHistory> streamAll(String site) {
+      return Stream.empty();
+    }
+
+    @Override
+    public Optional<PurchaseHistory> fetchLast(String site, String account) {
+      return Optional.empty();
+    }
+
+    @Override
+    public Set<String> findStored(String site, Collection<String> orderNumbers) {
+      return Collections.emptySet();
+    }
+  }
+
+  /**
+   * Serves home page and order pages generated from the fixture, orders of each page are new
+   */
+  private class GeneratedSite implements ReplaySite {
+
+    @Override
+    public boolean handles(URL url) {
+      return url.getHost().equals("www.amazon.com");
+    }
+
+    @Override
+    public WebResponseData respond(WebRequest request) {
+      String query = request.getUrl().getQuery();
+      if (query == null || !query.contains("orderFilter")) {
+        return ReplayWebConnection.html("<html><body><a id=\"nav-orders\" href=\"" + property.getHistoryUrl()
+          + "\">Orders</a></body></html>");
+      }
+      int index = query.contains("startIndex=") ? Integer.parseInt(query.replaceAll(".*startIndex=(\\d+).*", "$1")) : 0;
+      int page = index / ORDERS_PER_PAGE;
+      String html = template.replace("112-", page + "-");
+      html = page + 1 < PAGES
+        ? html.replace("startIndex=10", "startIndex=" + (index + ORDERS_PER_PAGE))
+        : html.replaceAll("<li class=\"a-last\">.*?</li>", "");
+      return ReplayWebConnection.html(html);
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package com.topcoder.scraper.module.amazon;
+
+import com.gargoylesoftware.htmlunit.FailingHttpStatusCodeException;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.topcoder.scraper.config.AmazonProperty;
+import com.topcoder.scraper.config.PurchaseHistoryProperty;
+import com.topcoder.scraper.config.ReplayProperty;
+import com.topcoder.scraper.config.WebClientPoolProperty;
+import com.topcoder.scraper.config.WebClientProperty;
+import com.topcoder.scraper.connection.ReplaySite;
+import com.topcoder.scraper.connection.ReplayWebConnection;
+import com.topcoder.scraper.fetcher.FetchMode;
+import com.topcoder.scraper.metrics.RunSummary;
+import com.topcoder.scraper.metrics.ScrapeMetrics;
+import com.topcoder.scraper.model.Account;
+import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.model.ScrapeCheckpoint;
+import com.topcoder.scraper.parser.DateParser;
+import com.topcoder.scraper.service.SessionService;
+import com.topcoder.scraper.service.WebpageService;
+import com.topcoder.scraper.service.impl.FileBasedPurchaseHistoryService;
+import com.topcoder.scraper.service.impl.MeteredPurchaseHistoryService;
+import com.topcoder.scraper.service.impl.MeteredWebpageService;
+import com.topcoder.scraper.session.ScrapeSession;
+import com.topcoder.scraper.session.ScrapeSessionHolder;
+import com.topcoder.scraper.session.WebClientPool;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class AmazonReplaySiteTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final AmazonProperty property = new AmazonProperty();
+  private final ReplayProperty replayProperty = new ReplayProperty();
+  private final PurchaseHistoryProperty historyProperty = new PurchaseHistoryProperty();
+  private final WebClientPoolProperty poolProperty = new WebClientPoolProperty();
+  private final AtomicInteger sharedWebClients = new AtomicInteger();
+  private int poolSize = 2;
+  private boolean poolFull;
+  private FileBasedPurchaseHistoryService purchaseHistoryService;
+  private WebClient webClient;
+
+  @Before
+  public void setUp() throws IOException {
+    property.setUrl("https://www.amazon.com/");
+    property.setHistoryUrl("https://www.amazon.com/gp/your-account/order-history?orderFilter=");
+
+    historyProperty.setStore("file");
+    historyProperty.setFolder(folder.getRoot().getPath());
+    purchaseHistoryService = new FileBasedPurchaseHistoryService(historyProperty);
+
+    webClient = OrderPages.webClient();
+  }
+
+  @After
+  public void tearDown() {
+    ScrapeSessionHolder.clear();
+    webClient.close();
+  }
+
+  @Test
+  public void testReplayPagesAndTimePeriods() throws IOException {
+    scrape();
+    // 2 pages of 2018, then 2017
+    assertEquals(30, purchaseHistoryService.listAll("amazon").size());
+  }
+
+  @Test
+  public void testReplayPlainHttp() throws IOException {
+    property.getFetchMode().put("purchase-history", FetchMode.HTTP);
+    scrape();
+    assertEquals(30, purchaseHistoryService.listAll("amazon").size());
+  }
+
+  @Test
+  public void testEmptyPeriodThenOlderOrders() throws IOException {
+    // 2018 has no order, walk goes on to 2017
+    Map<String, List<String>> pages = pages();
+    String emptyPage = OrderPages.fixture().replaceAll("<li class=\"a-last\">.*?</li>", "")
+      .replace("a-spacing-base order\"", "a-spacing-base\"");
+    scrape(Collections.singletonMap("purchase-history", Arrays.asList(emptyPage, pages.get("purchase-history").get(2))));
+
+    List<PurchaseHistory> orders = purchaseHistoryService.listAll("amazon");
+    assertEquals(10, orders.size());
+    assertTrue(orders.stream().allMatch(order -> order.getOrderNumber().startsWith("114-")));
+  }
+
+  @Test
+  public void testOverlappingTimePeriods() throws IOException {
+    // past 6 months holds first orders of 2018, walk goes on past them to older pages
+    List<String> history = pages().get("purchase-history");
+    String months = OrderPages.fixture().replaceAll("<li class=\"a-last\">.*?</li>", "")
+      .replace("<option value=\"year-2018\" selected>", "<option value=\"year-2018\">")
+      .replace("<option value=\"months-6\">", "<option value=\"months-6\" selected>");
+    List<String> overlapping = new ArrayList<>(Collections.singletonList(months));
+    overlapping.addAll(history);
+    scrape(Collections.singletonMap("purchase-history", overlapping));
+
+    List<PurchaseHistory> orders = purchaseHistoryService.listAll("amazon");
+    assertEquals(30, orders.size());
+    assertEquals(30, orders.stream().map(PurchaseHistory::getOrderNumber).distinct().count());
+  }
+
+  @Test
+  public void testLatency() throws IOException {
+    replayProperty.setLatency(20);
+    long start = System.currentTimeMillis();
+    scrape();
+    // home, 3 sign in pages and redirect, order link, 3 order pages
+    assertTrue(System.currentTimeMillis() - start >= 9 * 20);
+  }
+
+  @Test
+  public void testMetrics() throws IOException {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Metrics.addRegistry(registry);
+    try {
+      RunSummary before = RunSummary.snapshot(registry);
+      scrape();
+      RunSummary run = RunSummary.snapshot(registry).since(before);
+      assertEquals(3, run.getPages());
+      assertEquals(30, run.getOrders());
+      assertEquals(30, registry.get(ScrapeMetrics.ORDER_PARSE).tags("site", "amazon", "account", "user").timer().count());
+      assertSessionTags(registry);
+    } finally {
+      Metrics.removeRegistry(registry);
+    }
+  }
+
+  @Test
+  public void testResumeFromCheckpoint() throws IOException {
+    // run is interrupted after both pages of 2018, 2017 page fails
+    Map<String, List<String>> pages = pages();
+    try {
+      scrape(Collections.singletonMap("purchase-history", pages.get("purchase-history").subList(0, 2)));
+      fail("missing page should fail");
+    } catch (FailingHttpStatusCodeException e) {
+      assertEquals(404, e.getStatusCode());
+    }
+    ScrapeCheckpoint checkpoint = purchaseHistoryService.findCheckpoint("amazon", "user");
+    assertEquals(20, checkpoint.getOrders());
+    assertEquals("year-2018", checkpoint.getPeriod());
+    assertTrue(checkpoint.getCursor().endsWith("orderFilter=year-2018&startIndex=10"));
+
+    // without checkpoint, next run would stop at first page as its orders are stored
+    scrape(pages);
+    assertEquals(30, purchaseHistoryService.listAll("amazon").size());
+    assertNull(purchaseHistoryService.findCheckpoint("amazon", "user"));
+  }
+
+  @Test
+  public void testParallelTimePeriods() throws IOException {
+    historyProperty.setPeriodConcurrency(2);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Metrics.addRegistry(registry);
+    try {
+      scrape();
+      assertSessionTags(registry);
+    } finally {
+      Metrics.removeRegistry(registry);
+    }
+
+    // 2018 and 2017 fetched on their own web clients, 2018 orders written first
+    List<PurchaseHistory> orders = purchaseHistoryService.listAll("amazon");
+    assertEquals(30, orders.size());
+    assertEquals(2, sharedWebClients.get());
+    assertTrue(orders.subList(0, 20).stream().noneMatch(order -> order.getOrderNumber().startsWith("114-")));
+    assertTrue(orders.subList(20, 30).stream().allMatch(order -> order.getOrderNumber().startsWith("114-")));
+    assertNull(purchaseHistoryService.findCheckpoint("amazon", "user"));
+
+    // stored orders are no longer a full backfill
+    scrape();
+    assertEquals(2, sharedWebClients.get());
+    assertEquals(30, purchaseHistoryService.listAll("amazon").size());
+  }
+
+  @Test
+  public void testResumeBackfillWithoutParallelPeriods() throws IOException {
+    // parallel backfill is interrupted after 2018, 2017 page fails
+    historyProperty.setPeriodConcurrency(2);
+    Map<String, List<String>> pages = pages();
+    try {
+      scrape(Collections.singletonMap("purchase-history", pages.get("purchase-history").subList(0, 2)));
+      fail("missing page should fail");
+    } catch (FailingHttpStatusCodeException e) {
+      assertEquals(404, e.getStatusCode());
+    }
+    ScrapeCheckpoint checkpoint = purchaseHistoryService.findCheckpoint("amazon", "user");
+    assertEquals(20, checkpoint.getOrders());
+    assertEquals("year-2018", checkpoint.getPeriod());
+    assertNull(checkpoint.getCursor());
+
+    // periods left are fetched one by one by session web client
+    historyProperty.setPeriodConcurrency(1);
+    sharedWebClients.set(0);
+    scrape(pages);
+    List<PurchaseHistory> orders = purchaseHistoryService.listAll("amazon");
+    assertEquals(30, orders.size());
+    assertTrue(orders.subList(20, 30).stream().allMatch(order -> order.getOrderNumber().startsWith("114-")));
+    assertEquals(0, sharedWebClients.get());
+    assertNull(purchaseHistoryService.findCheckpoint("amazon", "user"));
+  }
+
+  @Test
+  public void testParallelTimePeriodsWithFullPool() throws IOException {
+    historyProperty.setPeriodConcurrency(2);
+    poolSize = 1;
+    poolFull = true;
+    poolProperty.setBorrowTimeout(10);
+    scrape();
+
+    // no web client is lent besides the one holding the pool, periods are fetched one by one by session web client
+    List<PurchaseHistory> orders = purchaseHistoryService.listAll("amazon");
+    assertEquals(30, orders.size());
+    assertEquals(1, sharedWebClients.get());
+    assertTrue(orders.subList(0, 20).stream().noneMatch(order -> order.getOrderNumber().startsWith("114-")));
+    assertTrue(orders.subList(20, 30).stream().allMatch(order -> order.getOrderNumber().startsWith("114-")));
+    assertNull(purchaseHistoryService.findCheckpoint("amazon", "user"));
+  }
+
+  /**
+   * check store and webpage meters are tagged by session account, never by unknown account
+   */
+  private static void assertSessionTags(SimpleMeterRegistry registry) {
+    // meters of earlier runs in global registry are added to test registry without their counts
+    for (String meter : Arrays.asList(ScrapeMetrics.HISTORY_FIND_STORED, ScrapeMetrics.WEBPAGE_SAVE)) {
+      assertTrue(meter, registry.get(meter).tags("account", "user").timer().count() > 0);
+      Timer unknown = registry.find(meter).tags("account", ScrapeMetrics.UNKNOWN).timer();
+      assertTrue(meter, unknown == null || unknown.count() == 0);
+    }
+  }
+
+  /**
+   * sign in and fetch purchase history from replayed pages
+   */
+  private void scrape() throws IOException {
+    scrape(pages());
+  }
+
+  /**
+   * 2 pages of 2018, then 2017
+   */
+  private Map<String, List<String>> pages() throws IOException {
+    String fixture = OrderPages.fixture();
+    String lastPage = fixture.replaceAll("<li class=\"a-last\">.*?</li>", "");
+    Map<String, List<String>> pages = new HashMap<>();
+    pages.put("purchase-history", Arrays.asList(
+      fixture,
+      lastPage.replace("<li class=\"a-selected\"><a href=\"#\">1</a>", "<li class=\"a-selected\"><a href=\"#\">2</a>")
+        .replace("112-", "113-"),
+      lastPage.replace("<option value=\"year-2018\" selected>", "<option value=\"year-2018\">")
+        .replace("<option value=\"year-2017\">", "<option value=\"year-2017\" selected>")
+        .replace("112-", "114-")));
+    return pages;
+  }
+
+  /**
+   * sign in and fetch purchase history from given pages
+   * @param pages archived pages by page name
+   */
+  private void scrape(Map<String, List<String>> pages) throws IOException {
+    Map<String, List<String>> archived = new HashMap<>(pages);
+    archived.put("login", Collections.emptyList());
+
+    List<ReplaySite> sites = Collections.singletonList(new AmazonReplaySite(property, archived));
+    webClient.setWebConnection(new ReplayWebConnection(sites, replayProperty));
+    try (WebClientPool pool = new WebClientPool(() -> {
+      sharedWebClients.incrementAndGet();
+      WebClient shared = OrderPages.webClient();
+      shared.setWebConnection(new ReplayWebConnection(sites, replayProperty));
+      return shared;
+    }, poolSize, poolProperty)) {
+      // pool is held by another session
+      WebClient held = poolFull ? pool.borrow() : null;
+      ScrapeSessionHolder.set(new ScrapeSession("amazon", new Account("user", "password"), webClient, pool));
+
+      new AmazonAuthenticationModule(property, new WebClientProperty(), mock(SessionService.class), mock(WebpageService.class))
+        .authenticate();
+      new AmazonPurchaseHistoryListModule(property, historyProperty, new WebClientProperty(),
+        new MeteredPurchaseHistoryService(purchaseHistoryService), new MeteredWebpageService(mock(WebpageService.class)),
+        new DateParser())
+        .fetchPurchaseHistoryList();
+      if (held != null) {
+        pool.release(held);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+}
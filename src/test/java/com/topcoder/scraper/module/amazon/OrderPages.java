@@ -0,0 +1,134 @@
+package com.topcoder.scraper.module.amazon;
+
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.DomNode;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.topcoder.scraper.fetcher.HtmlNode;
+import com.topcoder.scraper.fetcher.HtmlUnitNode;
+import com.topcoder.scraper.fetcher.JsoupNode;
+import com.topcoder.scraper.parser.CompiledRules;
+import com.topcoder.scraper.parser.ExtractionRulesLoader;
+import org.apache.commons.io.IOUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads saved order pages, and extracts orders the way they were extracted before extraction rules
+ */
+class OrderPages {
+
+  static final String FIXTURE = "/amazon/order-history.html";
+
+  static final String ORDERS           = "#ordersContainer > div.order";
+  static final String ORDER_DATE       = "div.order-info > div > div > div > div:nth-of-type(1) > div > div:nth-of-type(1) > div:nth-of-type(2) > span";
+  static final String ORDER_TOTAL      = "div.order-info > div > div > div > div:nth-of-type(1) > div > div:nth-of-type(2) > div:nth-of-type(2) > span";
+  static final String ORDER_NUMBER     = "div.order-info > div > div > div > div:nth-of-type(2) > div:nth-of-type(1) > span:nth-of-type(2)";
+  static final String DELIVERY_STATUS  = "div.shipment   > div > div:nth-of-type(1) > div:nth-of-type(1) > div:nth-of-type(2) > span:nth-of-type(1)";
+  static final String PRODUCT          = "div.shipment > div > div > div > div:nth-of-type(1) > div > div.a-fixed-left-grid";
+  static final String PRODUCT_NAME     = "div > div:nth-of-type(2) > div:nth-of-type(1) > a";
+  static final String DISTRIBUTOR      = "span.a-color-secondary";
+  static final String PRICE            = "span.a-color-price";
+  static final String QUANTITY         = "span.item-view-qty";
+
+  private static final URL PAGE_URL = url("https://www.amazon.com/gp/your-account/order-history");
+
+  static String fixture() throws IOException {
+    try (InputStream in = OrderPages.class.getResourceAsStream(FIXTURE)) {
+      return IOUtils.toString(in, StandardCharsets.UTF_8);
+    }
+  }
+
+  static WebClient webClient() {
+    WebClient webClient = new WebClient();
+    webClient.getOptions().setJavaScriptEnabled(false);
+    webClient.getOptions().setCssEnabled(false);
+    webClient.setWebConnection(new MockWebConnection());
+    return webClient;
+  }
+
+  static HtmlNode htmlUnit(WebClient webClient, String html) throws IOException {
+    ((MockWebConnection) webClient.getWebConnection()).setResponse(PAGE_URL, html);
+    HtmlPage page = webClient.getPage(PAGE_URL);
+    return new HtmlUnitNode(page);
+  }
+
+  static HtmlNode jsoup(String html) {
+    return new JsoupNode(Jsoup.parse(html, PAGE_URL.toString()));
+  }
+
+  /**
+   * load bundled amazon extraction rules
+   */
+  static CompiledRules rules() {
+    return new ExtractionRulesLoader("rules/amazon-purchase-history.json", null).current();
+  }
+
+  /**
+   * extract order with one selector query per field, selectors are parsed by HtmlUnit or jsoup on each query
+   * @return order fields then fields of each product, as the module used them
+   */
+  static List<String> legacyExtract(HtmlNode order) {
+    List<String> texts = new ArrayList<>(Arrays.asList(
+      legacyText(order, ORDER_DATE),
+      legacyText(order, ORDER_TOTAL),
+      legacyText(order, ORDER_NUMBER),
+      legacyText(order, DELIVERY_STATUS)));
+    for (Object product : legacySelectAll(order, PRODUCT)) {
+      HtmlNode node = product instanceof Element
+        ? new JsoupNode((Element) product)
+        : new HtmlUnitNode((DomNode) product);
+      String distributor = legacyText(node, DISTRIBUTOR);
+      String quantity = legacyText(node, QUANTITY);
+      texts.add(legacyText(node, PRODUCT_NAME));
+      texts.add(distributor != null ? distributor.split(":")[1].trim() : null);
+      texts.add(legacyText(node, PRICE));
+      texts.add(quantity != null ? quantity : "1");
+    }
+    return texts;
+  }
+
+  private static String legacyText(HtmlNode node, String css) {
+    if (node instanceof JsoupNode) {
+      Element result = ((JsoupNode) node).getElement().selectFirst(css);
+      return result != null ? result.text().trim() : null;
+    }
+    DomNode result = ((HtmlUnitNode) node).getNode().querySelector(css);
+    return result != null ? result.getTextContent().trim() : null;
+  }
+
+  private static List<Object> legacySelectAll(HtmlNode node, String css) {
+    if (node instanceof JsoupNode) {
+      return new ArrayList<>(((JsoupNode) node).getElement().select(css));
+    }
+    return new ArrayList<>(((HtmlUnitNode) node).getNode().querySelectorAll(css));
+  }
+
+  /**
+   * @return all fields extracted by rules, in the order of legacyExtract
+   */
+  static List<String> texts(CompiledRules.Extraction order) {
+    List<String> texts = new ArrayList<>(Arrays.asList(
+      order.get("orderDate"), order.get("totalAmount"), order.get("orderNumber"), order.get("deliveryStatus")));
+    for (CompiledRules.Extraction product : order.getProducts()) {
+      texts.addAll(Arrays.asList(product.get("name"), product.get("distributor"), product.get("price"), product.get("quantity")));
+    }
+    return texts;
+  }
+
+  private static URL url(String url) {
+    try {
+      return new URL(url);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.topcoder.scraper.parser;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class DateParserTest {
+
+  private final DateParser parser = new DateParser();
+
+  @Test
+  public void testMarketplaceDates() {
+    LocalDate date = LocalDate.of(2018, 3, 3);
+    assertEquals(date, parser.forUrl("https://www.amazon.com/").parse("March 3, 2018"));
+    assertEquals(date, parser.forUrl("https://www.amazon.com/").parse(" Mar 3,  2018 "));
+    assertEquals(date, parser.forUrl("https://www.amazon.co.uk/").parse("3 March 2018"));
+    assertEquals(date, parser.forUrl("https://www.amazon.de/").parse("3. M\u00e4rz 2018"));
+    assertEquals(date, parser.forUrl("https://www.amazon.fr/").parse("3 mars 2018"));
+    assertEquals(date, parser.forUrl("https://www.amazon.es/").parse("3 de marzo de 2018"));
+    assertEquals(date, parser.forUrl("https://www.amazon.co.jp/").parse("2018\u5e743\u67083\u65e5"));
+    assertEquals(date, parser.forPatterns(Locale.US, Arrays.asList("uuuu.MM.dd")).parse("2018.03.03"));
+  }
+
+  @Test
+  public void testMarketplaceIsFoundByHost() {
+    assertSame(parser.forUrl("https://www.amazon.com.au/"), parser.forUrl("https://smile.amazon.com.au/gp/"));
+    // unknown sites use amazon.com dates
+    assertEquals(LocalDate.of(2018, 3, 3), parser.forUrl("https://example.com/").parse("March 3, 2018"));
+  }
+
+  @Test
+  public void testUnknownDateFails() {
+    DateParser.PageDates dates = parser.forUrl("https://www.amazon.com/").newPage();
+    for (int i = 0; i < 2; i++) {
+      try {
+        dates.parse("3 March 2018");
+        fail("date of another marketplace should not be parsed");
+      } catch (DateTimeParseException e) {
+        assertEquals(true, e.getMessage().contains("3 March 2018"));
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.topcoder.scraper.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ExtractionRulesLoaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testReloadChangedFile() throws IOException {
+    File file = folder.newFile("rules.json");
+    write(file, "{\"orders\": \"div.order\", // order elements\n \"selectors\": {\"nextPage\": \"a.next\"}}", 1000);
+
+    ExtractionRulesLoader loader = new ExtractionRulesLoader("none", file.getPath(), 0);
+    CompiledRules rules = loader.current();
+    assertEquals("div.order", rules.getOrders().getCss());
+    assertSame(rules, loader.current());
+
+    write(file, "{\"orders\": \"li.order\", \"selectors\": {\"nextPage\": \"a.next\"}}", 2000);
+    CompiledRules reloaded = loader.current();
+    assertNotSame(rules, reloaded);
+    assertEquals("li.order", reloaded.getOrders().getCss());
+
+    // broken rules are not loaded, current rules are kept
+    write(file, "{\"orders\": \"li.order[\"}", 3000);
+    assertSame(reloaded, loader.current());
+  }
+
+  @Test
+  public void testInvalidRulesFailAtStart() throws IOException {
+    File file = folder.newFile("rules.json");
+    write(file, "{\"orders\": \"div.order\", \"order\": {\"orderNumber\": {\"selector\": \"span\", \"regex\": \"(\"}}}", 1000);
+    try {
+      new ExtractionRulesLoader("none", file.getPath());
+      fail("invalid rules should not be loaded");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+  }
+
+  private static void write(File file, String content, long lastModified) throws IOException {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    // file systems may keep modification time in seconds
+    file.setLastModified(lastModified);
+  }
+}
@@ -0,0 +1,130 @@
+package com.topcoder.scraper.scheduler;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.topcoder.scraper.command.AbstractCommand;
+import com.topcoder.scraper.config.ScraperProperty;
+import com.topcoder.scraper.config.SiteProperty;
+import com.topcoder.scraper.model.Account;
+import com.topcoder.scraper.session.ScrapeSessionHolder;
+import com.topcoder.scraper.session.WebClientPool;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ScrapeScheduler.class)
+public class ScrapeSchedulerTest {
+
+  @MockBean
+  private ScraperProperty scraperProperty;
+
+  @MockBean
+  private WebClientPool webClientPool;
+
+  @MockBean(name = "site1")
+  private SiteProperty siteProperty1;
+
+  @MockBean(name = "site2")
+  private SiteProperty siteProperty2;
+
+  @Mock
+  private ApplicationArguments args;
+
+  @Mock
+  private AbstractCommand<?> command;
+
+  @Autowired
+  private ScrapeScheduler scrapeScheduler;
+
+  @Before
+  public void setUp() throws InterruptedException {
+    when(scraperProperty.getConcurrency()).thenReturn(2);
+    when(scraperProperty.getSiteConcurrency(anyString())).thenReturn(2);
+    when(webClientPool.borrow()).thenAnswer(invocation -> mock(WebClient.class));
+    when(siteProperty1.getSite()).thenReturn("test");
+    when(siteProperty1.getAccounts()).thenReturn(Arrays.asList(new Account("user1", "p1"), new Account("user2", "p2")));
+    when(siteProperty2.getSite()).thenReturn("test2");
+    when(siteProperty2.getAccounts()).thenReturn(Collections.singletonList(new Account("user3", "p3")));
+  }
+
+  @Test
+  public void testRunAllAccountsOfSite() throws InterruptedException {
+    when(args.getOptionValues("site")).thenReturn(Collections.singletonList("test"));
+    List<AccountResult> results = scrapeScheduler.run(args, Collections.singletonList(command));
+
+    assertEquals(2, results.size());
+    assertTrue(results.stream().allMatch(AccountResult::isSuccess));
+    verify(command, times(2)).run("test");
+    verify(command, times(0)).run("test2");
+    verify(webClientPool, times(2)).borrow();
+    verify(webClientPool, times(2)).release(any(WebClient.class));
+  }
+
+  @Test
+  public void testRunAllSites() {
+    when(args.getOptionValues("site")).thenReturn(null);
+    List<AccountResult> results = scrapeScheduler.run(args, Collections.singletonList(command));
+
+    assertEquals(3, results.size());
+    verify(command, times(2)).run("test");
+    verify(command, times(1)).run("test2");
+  }
+
+  @Test
+  public void testEachAccountHasOwnSession() {
+    Set<String> usernames = ConcurrentHashMap.newKeySet();
+    Set<WebClient> webClients = ConcurrentHashMap.newKeySet();
+    doAnswer(invocation -> {
+      usernames.add(ScrapeSessionHolder.get().getAccount().getUsername());
+      webClients.add(ScrapeSessionHolder.get().getWebClient());
+      return null;
+    }).when(command).run("test");
+
+    when(args.getOptionValues("site")).thenReturn(Collections.singletonList("test"));
+    scrapeScheduler.run(args, Collections.singletonList(command));
+
+    assertEquals(2, usernames.size());
+    assertEquals(2, webClients.size());
+  }
+
+  @Test
+  public void testFailureIsReportedPerAccount() {
+    doAnswer(invocation -> {
+      if (ScrapeSessionHolder.get().getAccount().getUsername().equals("user2")) {
+        throw new IllegalStateException();
+      }
+      return null;
+    }).when(command).run("test");
+
+    when(args.getOptionValues("site")).thenReturn(Collections.singletonList("test"));
+    List<AccountResult> results = scrapeScheduler.run(args, Collections.singletonList(command));
+
+    assertEquals(2, results.size());
+    assertTrue(results.get(0).isSuccess());
+    assertFalse(results.get(1).isSuccess());
+    assertEquals("user2", results.get(1).getUsername());
+  }
+}
@@ -0,0 +1,123 @@
+package com.topcoder.scraper.service.impl;
+
+import com.topcoder.scraper.config.WebpageProperty;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArchiveWebpageServiceTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private WebpageProperty property;
+  private ArchiveWebpageService service;
+
+  @Before
+  public void setUp() {
+    property = new WebpageProperty();
+    property.setFolder(folder.getRoot().getAbsolutePath());
+    service = new ArchiveWebpageService(property);
+  }
+
+  @After
+  public void tearDown() {
+    service.close();
+  }
+
+  @Test
+  public void testIdenticalPagesAreStoredOnce() throws IOException {
+    service.save("purchase-history", "test", page(1));
+    service.save("purchase-history", "test", page(1));
+    service.save("purchase-history", "test", page(2));
+
+    List<ArchiveWebpageService.Entry> entries = service.list("test");
+    assertEquals(3, entries.size());
+    assertEquals(entries.get(0).getOffset(), entries.get(1).getOffset());
+    assertEquals(page(1), service.read("test", entries.get(1)));
+    assertEquals(page(2), service.read("test", entries.get(2)));
+    assertTrue(Files.size(folder.getRoot().toPath().resolve("test").resolve("segment-000001.dat")) < page(1).length());
+  }
+
+  @Test
+  public void testEntriesAreKeptAfterReopen() throws IOException {
+    service.save("login", "test", page(1));
+    service.close();
+
+    service = new ArchiveWebpageService(property);
+    service.save("login", "test", page(1));
+    service.save("login", "test", page(2));
+
+    List<ArchiveWebpageService.Entry> entries = service.list("test");
+    assertEquals(3, entries.size());
+    assertEquals(entries.get(0).getOffset(), entries.get(1).getOffset());
+    assertEquals(page(2), service.read("test", entries.get(2)));
+  }
+
+  @Test
+  public void testSegmentsAreCompacted() throws IOException {
+    property.setSegmentSize(1);
+    property.setCompactSegments(3);
+
+    for (int i = 0; i < 10; i++) {
+      service.save("purchase-history", "test", page(i % 4));
+    }
+
+    List<ArchiveWebpageService.Entry> entries = service.list("test");
+    assertEquals(10, entries.size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(page(i % 4), service.read("test", entries.get(i)));
+    }
+    assertTrue(segmentFiles().size() < 3);
+  }
+
+  @Test
+  public void testReadOnlyArchiveCreatesNoFile() throws IOException {
+    service.save("login", "test", page(1));
+    service.close();
+    List<Path> segments = segmentFiles();
+
+    service = new ArchiveWebpageService(property, true);
+    List<ArchiveWebpageService.Entry> entries = service.list("test");
+    assertEquals(1, entries.size());
+    assertEquals(page(1), service.read("test", entries.get(0)));
+    assertEquals(segments, segmentFiles());
+
+    assertTrue(service.list("other").isEmpty());
+    assertFalse(Files.exists(folder.getRoot().toPath().resolve("other")));
+    try {
+      service.save("login", "test", page(2));
+      fail("read-only archive should not save");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath().resolve("test"))) {
+      return files.filter(file -> file.toString().endsWith(".dat")).collect(Collectors.toList());
+    }
+  }
+
+  private static String page(int number) {
+    StringBuilder html = new StringBuilder("<html><body>");
+    for (int i = 0; i < 200; i++) {
+      html.append("<div class=\"order\">order ").append(number).append('-').append(i).append("</div>");
+    }
+    return html.append("</body></html>").toString();
+  }
+}
@@ -0,0 +1,106 @@
+package com.topcoder.scraper.service.impl;
+
+import com.topcoder.scraper.service.QueueFullPolicy;
+import com.topcoder.scraper.service.WebpageService;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncWebpageServiceTest {
+
+  private final CountDownLatch writable = new CountDownLatch(1);
+  private final CountDownLatch writing = new CountDownLatch(1);
+  private final List<String> written = new CopyOnWriteArrayList<>();
+  private final List<String> writerThreads = new CopyOnWriteArrayList<>();
+  private AsyncWebpageService service;
+
+  /**
+   * store blocking writer thread until writable is released
+   */
+  private final WebpageService store = (filename, site, content) -> {
+    try {
+      if ("webpage-writer".equals(Thread.currentThread().getName())) {
+        writing.countDown();
+        writable.await(5, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    written.add(content);
+    writerThreads.add(Thread.currentThread().getName());
+  };
+
+  @After
+  public void tearDown() {
+    writable.countDown();
+    service.close();
+  }
+
+  @Test
+  public void testFlushWaitsForSavedPages() {
+    service = new AsyncWebpageService(store, 8, 4, QueueFullPolicy.BLOCK);
+    writable.countDown();
+    for (int i = 0; i < 20; i++) {
+      service.save("page", "test", "content" + i);
+    }
+    service.flush();
+
+    assertEquals(20, written.size());
+    assertEquals("content19", written.get(19));
+  }
+
+  @Test
+  public void testDropWhenQueueIsFull() throws InterruptedException {
+    service = new AsyncWebpageService(store, 1, 1, QueueFullPolicy.DROP);
+    service.save("page", "test", "taken by writer");
+    waitUntilQueueIsTaken();
+    service.save("page", "test", "queued");
+    service.save("page", "test", "dropped");
+
+    writable.countDown();
+    service.flush();
+    assertEquals(2, written.size());
+    assertTrue(!written.contains("dropped"));
+  }
+
+  @Test
+  public void testSpillWritesOnCallerThreadWhenQueueIsFull() throws InterruptedException {
+    service = new AsyncWebpageService(store, 1, 1, QueueFullPolicy.SPILL);
+    service.save("page", "test", "taken by writer");
+    waitUntilQueueIsTaken();
+    service.save("page", "test", "queued");
+    service.save("page", "test", "spilled");
+
+    writable.countDown();
+    service.flush();
+
+    assertEquals(3, written.size());
+    assertEquals(Thread.currentThread().getName(), writerThreads.get(written.indexOf("spilled")));
+  }
+
+  @Test
+  public void testCloseWritesWaitingPages() {
+    service = new AsyncWebpageService(store, 8, 8, QueueFullPolicy.BLOCK);
+    for (int i = 0; i < 5; i++) {
+      service.save("page", "test", "content" + i);
+    }
+    writable.countDown();
+    service.close();
+
+    assertEquals(5, written.size());
+    service.save("page", "test", "after close");
+    assertEquals(6, written.size());
+  }
+
+  private void waitUntilQueueIsTaken() throws InterruptedException {
+    // writer takes first page and blocks in store
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,90 @@
+package com.topcoder.scraper.service.impl;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+import com.topcoder.scraper.config.SessionProperty;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EncryptedFileSessionServiceTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private SessionProperty property;
+  private EncryptedFileSessionService service;
+  private WebClient webClient;
+
+  @Before
+  public void setUp() {
+    property = new SessionProperty();
+    property.setKey(Base64.getEncoder().encodeToString(new byte[32]));
+    property.setFolder(folder.getRoot().getAbsolutePath());
+    service = new EncryptedFileSessionService(property);
+    webClient = new WebClient();
+  }
+
+  @After
+  public void tearDown() {
+    webClient.close();
+  }
+
+  @Test
+  public void testRestoreSavedCookies() {
+    webClient.getCookieManager().addCookie(new Cookie(".example.com", "session-id", "secret-value"));
+    service.save("test", "user1", webClient);
+
+    WebClient restored = new WebClient();
+    assertTrue(service.restore("test", "user1", restored));
+    assertEquals("secret-value", restored.getCookieManager().getCookie("session-id").getValue());
+    restored.close();
+  }
+
+  @Test
+  public void testSessionFileIsEncryptedAndBoundToAccount() throws IOException {
+    webClient.getCookieManager().addCookie(new Cookie(".example.com", "session-id", "secret-value"));
+    service.save("test", "user1", webClient);
+    Path user1File = listFiles().get(0);
+    service.save("test", "user2", webClient);
+    Path user2File = listFiles().stream().filter(file -> !file.equals(user1File)).findFirst().get();
+
+    String content = new String(Files.readAllBytes(user1File), StandardCharsets.ISO_8859_1);
+    assertFalse(content.contains("secret-value"));
+    assertFalse(user1File.toString().contains("user1"));
+
+    // file of another account does not decrypt
+    Files.copy(user1File, user2File, StandardCopyOption.REPLACE_EXISTING);
+    assertFalse(service.restore("test", "user2", new WebClient()));
+  }
+
+  @Test
+  public void testNothingSavedWithoutKey() {
+    property.setKey("");
+    service = new EncryptedFileSessionService(property);
+    webClient.getCookieManager().addCookie(new Cookie(".example.com", "session-id", "secret-value"));
+    service.save("test", "user1", webClient);
+
+    assertEquals(0, folder.getRoot().list().length);
+    assertFalse(service.restore("test", "user1", webClient));
+  }
+
+  private List<Path> listFiles() throws IOException {
+    return Files.walk(folder.getRoot().toPath()).filter(Files::isRegularFile).collect(Collectors.toList());
+  }
+}
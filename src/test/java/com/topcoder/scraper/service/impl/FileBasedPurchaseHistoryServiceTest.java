@@ -0,0 +1,193 @@
+package com.topcoder.scraper.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.topcoder.scraper.config.PurchaseHistoryProperty;
+import com.topcoder.scraper.model.Money;
+import com.topcoder.scraper.model.PurchaseHistory;
+import com.topcoder.scraper.util.DateUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FileBasedPurchaseHistoryServiceTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private PurchaseHistoryProperty property;
+  private FileBasedPurchaseHistoryService service;
+
+  @Before
+  public void setUp() {
+    property = new PurchaseHistoryProperty();
+    property.setFolder(folder.getRoot().getAbsolutePath());
+    service = new FileBasedPurchaseHistoryService(property);
+  }
+
+  @Test
+  public void testFetchLastPerAccount() {
+    service.save("test", "user1", Arrays.asList(order("1", "March 3, 2018"), order("2", "May 1, 2018")));
+    service.save("test", "user2", Collections.singletonList(order("3", "January 9, 2017")));
+
+    assertEquals("2", service.fetchLast("test", "user1").get().getOrderNumber());
+    assertEquals("3", service.fetchLast("test", "user2").get().getOrderNumber());
+    assertFalse(service.fetchLast("test", "user3").isPresent());
+
+    // read back from manifest
+    service = new FileBasedPurchaseHistoryService(property);
+    assertEquals("2", service.fetchLast("test", "user1").get().getOrderNumber());
+  }
+
+  @Test
+  public void testFindStoredOrderNumbers() {
+    service.save("test", "user1", Arrays.asList(order("1", "March 3, 2018"), order("2", "May 1, 2018")));
+    service.save("test", "user2", Collections.singletonList(order("3", "January 9, 2017")));
+
+    assertEquals(new HashSet<>(Arrays.asList("1", "3")), service.findStored("test", Arrays.asList("1", "3", "4")));
+    assertEquals(Collections.emptySet(), service.findStored("other", Arrays.asList("1", "3")));
+
+    // read back from index
+    service = new FileBasedPurchaseHistoryService(property);
+    assertEquals(Collections.singleton("2"), service.findStored("test", Arrays.asList("2", "5")));
+  }
+
+  @Test
+  public void testUnchangedOrdersAreNotAppendedAgain() throws IOException {
+    service.save("test", "user1", Arrays.asList(order("1", "March 3, 2018"), order("2", "May 1, 2018")));
+    long size = segmentsSize();
+    service.save("test", "user1", Arrays.asList(order("1", "March 3, 2018"), order("2", "May 1, 2018")));
+    assertEquals(size, segmentsSize());
+
+    PurchaseHistory changed = new PurchaseHistory("2", LocalDate.of(2018, 5, 1), Money.parse("$1.00", Money.DEFAULT_CURRENCY),
+      Collections.emptyList(), "Delivered");
+    service.save("test", "user1", Collections.singletonList(changed));
+
+    List<PurchaseHistory> all = service.listAll("test");
+    assertEquals(2, all.size());
+    assertEquals("Delivered", all.get(1).getDeliveryStatus());
+  }
+
+  @Test
+  public void testSegmentsAreCompacted() throws IOException {
+    property.setSegmentSize(1);
+    property.setCompactSegments(4);
+    for (int i = 0; i < 10; i++) {
+      service.save("test", "user1", Collections.singletonList(order(String.valueOf(i % 6), "March " + (i + 1) + ", 2018")));
+    }
+
+    assertEquals(6, service.listAll("test").size());
+    assertEquals("3", service.fetchLast("test", "user1").get().getOrderNumber());
+    assertEquals(true, segments().size() < 4);
+
+    service = new FileBasedPurchaseHistoryService(property);
+    assertEquals(6, service.listAll("test").size());
+  }
+
+  @Test
+  public void testOpenStreamSurvivesCompaction() {
+    property.setSegmentSize(1);
+    property.setCompactSegments(3);
+    service.save("test", "user1", Collections.singletonList(order("1", "March 1, 2018")));
+    service.save("test", "user1", Collections.singletonList(order("2", "March 2, 2018")));
+
+    try (Stream<PurchaseHistory> stream = service.streamAll("test")) {
+      // third segment triggers compaction, removing segments being streamed
+      service.save("test", "user1", Collections.singletonList(order("3", "March 3, 2018")));
+      assertEquals(Arrays.asList("1", "2"),
+        stream.map(PurchaseHistory::getOrderNumber).collect(Collectors.toList()));
+    }
+    assertEquals(3, service.listAll("test").size());
+  }
+
+  @Test
+  public void testRecoverOrdersWrittenAfterManifest() throws IOException {
+    service.save("test", "user1", Collections.singletonList(order("1", "March 3, 2018")));
+    Path segment = segments().get(0);
+    String line = "{\"account\":\"user1\",\"order\":" + new ObjectMapper().writeValueAsString(order("2", "May 1, 2018")) + "}\n";
+    Files.write(segment, (line + "{\"account\":\"us").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    service = new FileBasedPurchaseHistoryService(property);
+    assertEquals("2", service.fetchLast("test", "user1").get().getOrderNumber());
+    service.save("test", "user1", Collections.singletonList(order("3", "June 1, 2018")));
+    assertEquals(3, service.listAll("test").size());
+  }
+
+  @Test
+  public void testImportLegacyHistoryFiles() throws IOException {
+    File accountFolder = new File(folder.getRoot(), "test/user1");
+    accountFolder.mkdirs();
+    // json of previous versions, with dates and amounts as page text
+    Files.write(new File(accountFolder, "history-1.json").toPath(), Arrays.asList(
+      "[{\"orderNumber\":\"1\",\"orderDate\":\"March 3, 2018\",\"totalAmount\":\"1.00\",",
+      "\"products\":[{\"name\":\"a\",\"price\":\"1.00\",\"quantity\":\"2\"}]},",
+      "{\"orderNumber\":\"2\",\"orderDate\":\"May 1, 2018\",\"totalAmount\":\"1.00\",\"products\":[]}]"));
+
+    service = new FileBasedPurchaseHistoryService(property);
+    List<PurchaseHistory> all = service.listAll("test");
+    assertEquals(2, all.size());
+    assertEquals(LocalDate.of(2018, 3, 3), all.get(0).getOrderDate());
+    assertEquals(100, all.get(0).getTotalAmount().getAmount());
+    assertEquals(2, all.get(0).getProducts().get(0).getQuantity());
+    assertEquals("2", service.fetchLast("test", "user1").get().getOrderNumber());
+
+    // imported once
+    service = new FileBasedPurchaseHistoryService(property);
+    assertEquals(2, service.listAll("test").size());
+  }
+
+  @Test
+  public void testUpgradeSegmentsOfPreviousFormat() throws IOException {
+    Path site = folder.newFolder("test").toPath();
+    Files.write(site.resolve("orders-000001.ndjson"), Collections.singletonList(
+      "{\"account\":\"user1\",\"order\":{\"orderNumber\":\"1\",\"orderDate\":\"March 3, 2018\",\"totalAmount\":\"1.00\",\"products\":[]}}"));
+    Files.write(site.resolve("order-numbers.idx"), Collections.singletonList("1\t0123456789abcdef"));
+    Files.write(site.resolve("manifest.json"), Collections.singletonList(
+      "{\"migrated\":true,\"segments\":[{\"name\":\"orders-000001.ndjson\",\"length\":" + Files.size(site.resolve("orders-000001.ndjson")) + "}],\"latest\":{}}"));
+
+    List<PurchaseHistory> all = service.listAll("test");
+    assertEquals(1, all.size());
+    assertEquals(LocalDate.of(2018, 3, 3), all.get(0).getOrderDate());
+
+    // same order read from previous format is not appended again
+    long size = segmentsSize();
+    service.save("test", "user1", Collections.singletonList(order("1", "March 3, 2018")));
+    assertEquals(size, segmentsSize());
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath().resolve("test"))) {
+      return files.filter(file -> file.toString().endsWith(".ndjson")).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private long segmentsSize() throws IOException {
+    long size = 0;
+    for (Path segment : segments()) {
+      size += Files.size(segment);
+    }
+    return size;
+  }
+
+  private static PurchaseHistory order(String number, String date) {
+    return new PurchaseHistory(number, DateUtils.parseOrderDate(date), Money.parse("$1.00", Money.DEFAULT_CURRENCY),
+      Collections.emptyList(), null);
+  }
+}
@@ -0,0 +1,118 @@
+package com.topcoder.scraper.session;
+
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+import com.topcoder.scraper.config.WebClientPoolProperty;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WebClientPoolTest {
+
+  private static final String HOME = "https://www.amazon.com/";
+
+  private final MockWebConnection connection = new MockWebConnection();
+  private final WebClientPoolProperty property = new WebClientPoolProperty();
+  private final AtomicInteger created = new AtomicInteger();
+  private final AtomicLong now = new AtomicLong();
+  private WebClientPool pool;
+
+  @After
+  public void tearDown() {
+    pool.close();
+  }
+
+  @Test
+  public void testReleasedClientIsReset() throws Exception {
+    pool = pool(2);
+    WebClient webClient = pool.borrow();
+    webClient.getPage(HOME);
+    webClient.getCookieManager().addCookie(new Cookie("www.amazon.com", "session-id", "1"));
+    webClient.openWindow(new URL(HOME), "popup");
+    pool.release(webClient);
+
+    WebClient reused = pool.borrow();
+    assertSame(webClient, reused);
+    assertTrue(reused.getCookieManager().getCookies().isEmpty());
+    assertEquals(1, reused.getTopLevelWindows().size());
+    assertEquals(WebClient.URL_ABOUT_BLANK, reused.getCurrentWindow().getEnclosedPage().getUrl());
+    pool.release(reused);
+  }
+
+  @Test
+  public void testClientReplacedAfterMaxUses() throws Exception {
+    property.setMaxUses(2);
+    pool = pool(1);
+    WebClient webClient = pool.borrow();
+    pool.release(webClient);
+    assertSame(webClient, pool.borrow());
+    pool.release(webClient);
+
+    WebClient replaced = pool.borrow();
+    assertNotSame(webClient, replaced);
+    assertEquals(2, created.get());
+    pool.release(replaced);
+  }
+
+  @Test
+  public void testWarmUpAndEvictIdle() throws Exception {
+    property.setMinIdle(2);
+    property.setIdleTimeout(1000);
+    property.setPrewarm(true);
+    property.setPrewarmUrls(Collections.singletonList(HOME));
+    pool = pool(3);
+
+    pool.warmUp();
+    assertEquals(2, pool.getIdle());
+    assertEquals(2, connection.getRequestCount());
+
+    // one more client while all idle ones are borrowed
+    WebClient[] borrowed = {pool.borrow(), pool.borrow(), pool.borrow()};
+    assertEquals(3, created.get());
+    for (WebClient webClient : borrowed) {
+      pool.release(webClient);
+    }
+    assertEquals(3, pool.getIdle());
+
+    now.addAndGet(999);
+    pool.evictIdle();
+    assertEquals(3, pool.getIdle());
+    now.addAndGet(1);
+    pool.evictIdle();
+    assertEquals(2, pool.getIdle());
+  }
+
+  @Test
+  public void testTryBorrowTimesOutWhenFull() throws Exception {
+    property.setBorrowTimeout(10);
+    pool = pool(1);
+    WebClient webClient = pool.borrow();
+    assertNull(pool.tryBorrow());
+    assertEquals(1, created.get());
+
+    pool.release(webClient);
+    assertSame(webClient, pool.tryBorrow());
+    pool.release(webClient);
+  }
+
+  private WebClientPool pool(int maxSize) {
+    connection.setDefaultResponse("<html><body>home</body></html>");
+    return new WebClientPool(() -> {
+      created.incrementAndGet();
+      WebClient webClient = new WebClient();
+      webClient.setWebConnection(connection);
+      return webClient;
+    }, maxSize, property, now::get, null);
+  }
+}